@@ -0,0 +1,96 @@
+package PathFinding.benchmark;
+
+import PathFinding.AStar;
+import PathFinding.BitParallelBfs;
+import PathFinding.Field;
+import PathFinding.FlowField;
+import PathFinding.Movement;
+import PathFinding.PathQuery;
+import PathFinding.RowBitGrid;
+import PathFinding.SearchContext;
+
+import java.util.List;
+
+/**
+ * A benchmark comparing BitParallelBfs with the scalar searches on the same maps. For every map it reports the average
+ * time of a shortest path query with AStar and with BitParallelBfs, checking that both find paths of the same length,
+ * and the time to compute the distance of every square from a source with FlowField and with BitParallelBfs.
+ * Run with the map sizes to measure as arguments, e.g. "1024 4096".
+ */
+public class BitParallelBfsBenchmark {
+    private static final int NUM_QUERIES = 16;
+    private static final int NUM_DISTANCE_MAPS = 3;
+    private static final int WARMUP_ROUNDS = 1;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{4096} : new int[args.length];
+        for(int i = 0; i < args.length; i++){
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%-16s %-14s %12s%n", "map", "benchmark", "ms/call");
+        for(int size : sizes){
+            compare("open-" + size, MapGenerator.open(size));
+            compare("random10-" + size, MapGenerator.randomWalls(size, 10, size));
+            compare("random30-" + size, MapGenerator.randomWalls(size, 30, size));
+            compare("maze-" + size, MapGenerator.maze(size, size));
+        }
+    }
+
+    /**
+     * A method to run the same queries and distance maps with both kinds of search on a map and print the results.
+     * @param pName The name of the map.
+     * @param pField The map.
+     */
+    private static void compare(String pName, Field pField){
+        List<PathQuery> queries = MapGenerator.randomQueries(pField, NUM_QUERIES, 7);
+        RowBitGrid grid = RowBitGrid.of(pField);
+        SearchContext context = new SearchContext(pField.getNumCells());
+        BitParallelBfs bfs = new BitParallelBfs(grid);
+        FlowField flowField = new FlowField(grid, Movement.CARDINAL);
+        long aStarNanos = 0;
+        long bfsNanos = 0;
+        long flowFieldNanos = 0;
+        long distanceMapNanos = 0;
+        for(int round = 0; round <= WARMUP_ROUNDS; round++){
+            aStarNanos = 0;
+            bfsNanos = 0;
+            for(PathQuery query : queries){
+                long start = System.nanoTime();
+                AStar aStar = new AStar(grid, query.getSourceRow(), query.getSourceColumn(),
+                        query.getDestinationRow(), query.getDestinationColumn(), context);
+                aStar.solve();
+                int aStarLength = aStar.getPath().length;
+                aStarNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                int bfsLength = bfs.findPath(query).length;
+                bfsNanos += System.nanoTime() - start;
+                if(aStarLength != bfsLength){
+                    throw new IllegalStateException("Searches disagree on a path length for " + pName);
+                }
+            }
+            flowFieldNanos = 0;
+            distanceMapNanos = 0;
+            for(int i = 0; i < NUM_DISTANCE_MAPS; i++){
+                PathQuery query = queries.get(i);
+                long start = System.nanoTime();
+                flowField.compute(query.getSourceRow(), query.getSourceColumn());
+                flowFieldNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                bfs.computeDistances(query.getSourceRow(), query.getSourceColumn());
+                distanceMapNanos += System.nanoTime() - start;
+                if(flowField.getDistance(query.getDestinationRow(), query.getDestinationColumn())
+                        != bfs.getDistance(query.getDestinationRow(), query.getDestinationColumn())){
+                    throw new IllegalStateException("Searches disagree on a distance for " + pName);
+                }
+            }
+        }
+        print(pName, "astar.path", aStarNanos, NUM_QUERIES);
+        print(pName, "bfs.path", bfsNanos, NUM_QUERIES);
+        print(pName, "flowfield.all", flowFieldNanos, NUM_DISTANCE_MAPS);
+        print(pName, "bfs.all", distanceMapNanos, NUM_DISTANCE_MAPS);
+    }
+
+    private static void print(String pName, String pBenchmark, long pNanos, int pCalls){
+        System.out.printf("%-16s %-14s %12.2f%n", pName, pBenchmark, pNanos / 1e6 / pCalls);
+    }
+}
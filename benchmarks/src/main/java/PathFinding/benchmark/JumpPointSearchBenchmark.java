@@ -0,0 +1,83 @@
+package PathFinding.benchmark;
+
+import PathFinding.AStar;
+import PathFinding.Field;
+import PathFinding.JumpPointSearch;
+import PathFinding.PathQuery;
+import PathFinding.PathSolver;
+import PathFinding.RowBitGrid;
+import PathFinding.SearchContext;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A benchmark comparing AStar and JumpPointSearch on the same maps and queries. For every map it reports the average
+ * time per query and the average number of expanded squares of both solvers, and checks that both found paths of the
+ * same length. Run with the map sizes to measure as arguments, e.g. "256 1024".
+ */
+public class JumpPointSearchBenchmark {
+    private static final int NUM_QUERIES = 200;
+    private static final int WARMUP_ROUNDS = 2;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length == 0 ? new int[]{256, 1024} : new int[args.length];
+        for(int i = 0; i < args.length; i++){
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%-16s %-8s %12s %14s%n", "map", "solver", "us/query", "expanded/query");
+        for(int size : sizes){
+            compare("open-" + size, MapGenerator.open(size));
+            compare("random10-" + size, MapGenerator.randomWalls(size, 10, size));
+            compare("random30-" + size, MapGenerator.randomWalls(size, 30, size));
+        }
+    }
+
+    /**
+     * A method to run the same queries with both solvers on a map and print the results.
+     * @param pName The name of the map.
+     * @param pField The map.
+     */
+    private static void compare(String pName, Field pField){
+        List<PathQuery> queries = MapGenerator.randomQueries(pField, NUM_QUERIES, 7);
+        RowBitGrid grid = RowBitGrid.of(pField);
+        SearchContext context = new SearchContext(pField.getNumCells());
+        long[] aStarResult = new long[3];
+        long[] jumpPointResult = new long[3];
+        for(int round = 0; round <= WARMUP_ROUNDS; round++){
+            aStarResult = run(queries, query -> new AStar(grid, query.getSourceRow(), query.getSourceColumn(),
+                    query.getDestinationRow(), query.getDestinationColumn(), context));
+            jumpPointResult = run(queries, query -> new JumpPointSearch(grid, query.getSourceRow(),
+                    query.getSourceColumn(), query.getDestinationRow(), query.getDestinationColumn(), context));
+        }
+        if(aStarResult[2] != jumpPointResult[2]){
+            throw new IllegalStateException("Solvers disagree on total path length for " + pName);
+        }
+        print(pName, "astar", aStarResult);
+        print(pName, "jps", jumpPointResult);
+    }
+
+    /**
+     * A method to solve every query with solvers created by a factory.
+     * @return The total nanoseconds, total expanded squares and total path length.
+     */
+    private static long[] run(List<PathQuery> pQueries, Function<PathQuery, PathSolver> pFactory){
+        long nanos = 0;
+        long expanded = 0;
+        long length = 0;
+        for(PathQuery query : pQueries){
+            PathSolver solver = pFactory.apply(query);
+            long start = System.nanoTime();
+            solver.solve();
+            nanos += System.nanoTime() - start;
+            expanded += solver.getNumExpanded();
+            length += solver.getPath().length;
+        }
+        return new long[]{nanos, expanded, length};
+    }
+
+    private static void print(String pName, String pSolver, long[] pResult){
+        System.out.printf("%-16s %-8s %12.1f %14d%n", pName, pSolver, pResult[0] / 1000.0 / NUM_QUERIES,
+                pResult[1] / NUM_QUERIES);
+    }
+}
@@ -0,0 +1,153 @@
+package PathFinding.benchmark;
+
+import PathFinding.Field;
+import PathFinding.PathQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generators for the maps and queries that the benchmarks run on. All generators are seeded so that every run of a
+ * benchmark searches the same maps.
+ */
+public final class MapGenerator {
+    private MapGenerator(){}
+
+    /**
+     * A method to create a map without walls.
+     * @param pSize The number of rows and columns of the map.
+     * @return The map.
+     */
+    public static Field open(int pSize){
+        return new Field(pSize, pSize);
+    }
+
+    /**
+     * A method to create a map where every square is a wall with a certain probability.
+     * @param pSize The number of rows and columns of the map.
+     * @param pWallPercentage The percentage of squares that are walls.
+     * @param pSeed The seed of the random walls.
+     * @return The map.
+     */
+    public static Field randomWalls(int pSize, int pWallPercentage, long pSeed){
+        Field field = new Field(pSize, pSize);
+        Random random = new Random(pSeed);
+        for(int i = 0; i < pSize; i++){
+            for(int j = 0; j < pSize; j++){
+                if(random.nextInt(100) < pWallPercentage){
+                    field.makeInaccessible(i, j);
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * A method to create a maze with corridors one square wide, carved by a randomized depth-first search. Squares
+     * with an even row and column are corridor, squares with an odd row and column are wall and the rest are wall
+     * unless the search carved through them, so every corridor square is reachable from every other one.
+     * @param pSize The number of rows and columns of the map.
+     * @param pSeed The seed of the random maze.
+     * @return The map.
+     */
+    public static Field maze(int pSize, long pSeed){
+        Field field = new Field(pSize, pSize);
+        for(int i = 0; i < pSize; i++){
+            for(int j = 0; j < pSize; j++){
+                if(i % 2 == 1 || j % 2 == 1){
+                    field.makeInaccessible(i, j);
+                }
+            }
+        }
+        int numCells = (pSize + 1) / 2;
+        boolean[] visited = new boolean[numCells * numCells];
+        int[] stack = new int[numCells * numCells];
+        int[] unvisited = new int[4];
+        int size = 0;
+        Random random = new Random(pSeed);
+        stack[size++] = 0;
+        visited[0] = true;
+        while(size > 0){
+            int cell = stack[size - 1];
+            int row = cell / numCells;
+            int column = cell % numCells;
+            int numUnvisited = 0;
+            for(int direction = 0; direction < 4; direction++){
+                int row2 = row + (direction == 0 ? -1 : direction == 1 ? 1 : 0);
+                int column2 = column + (direction == 2 ? -1 : direction == 3 ? 1 : 0);
+                if(row2 >= 0 && row2 < numCells && column2 >= 0 && column2 < numCells
+                        && !visited[row2 * numCells + column2]){
+                    unvisited[numUnvisited++] = row2 * numCells + column2;
+                }
+            }
+            if(numUnvisited == 0){
+                size--;
+                continue;
+            }
+            int next = unvisited[random.nextInt(numUnvisited)];
+            //Carve the wall between the two corridor squares.
+            field.makeAccessible(row + next / numCells, column + next % numCells);
+            visited[next] = true;
+            stack[size++] = next;
+        }
+        return field;
+    }
+
+    /**
+     * A method to create a map divided into square rooms by walls one square thick, with a random door in every wall
+     * between two neighbouring rooms and some walls missing entirely.
+     * @param pSize The number of rows and columns of the map.
+     * @param pRoomSize The number of rows and columns inside every room.
+     * @param pSeed The seed of the random doors.
+     * @return The map.
+     */
+    public static Field rooms(int pSize, int pRoomSize, long pSeed){
+        assert pRoomSize > 0;
+        Field field = new Field(pSize, pSize);
+        Random random = new Random(pSeed);
+        int step = pRoomSize + 1;
+        for(int i = pRoomSize; i < pSize; i += step){
+            for(int j = 0; j < pSize; j++){
+                field.makeInaccessible(i, j);
+                field.makeInaccessible(j, i);
+            }
+        }
+        for(int i = pRoomSize; i < pSize; i += step){
+            for(int j = 0; j < pSize; j += step){
+                int length = Math.min(pRoomSize, pSize - j);
+                //One door in the horizontal wall below the room and one in the vertical wall to its right.
+                field.makeAccessible(i, j + random.nextInt(length));
+                field.makeAccessible(j + random.nextInt(length), i);
+                if(random.nextInt(10) == 0){
+                    for(int k = j; k < j + length; k++){
+                        field.makeAccessible(i, k);
+                    }
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * A method to create queries between random passable squares of a map.
+     * @param pField The map to create queries for.
+     * @param pNumQueries The number of queries.
+     * @param pSeed The seed of the random squares.
+     * @return The queries.
+     */
+    public static List<PathQuery> randomQueries(Field pField, int pNumQueries, long pSeed){
+        Random random = new Random(pSeed);
+        List<PathQuery> queries = new ArrayList<>(pNumQueries);
+        while(queries.size() < pNumQueries){
+            int sourceRow = random.nextInt(pField.getNumRows());
+            int sourceColumn = random.nextInt(pField.getNumColumns());
+            int destinationRow = random.nextInt(pField.getNumRows());
+            int destinationColumn = random.nextInt(pField.getNumColumns());
+            if(pField.isPassable(sourceRow, sourceColumn) && pField.isPassable(destinationRow, destinationColumn)){
+                queries.add(new PathQuery(sourceRow, sourceColumn, destinationRow, destinationColumn));
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,204 @@
+package PathFinding.benchmark;
+
+import PathFinding.AStar;
+import PathFinding.Field;
+import PathFinding.MovingAiFormat;
+import PathFinding.PathQuery;
+import PathFinding.Scenario;
+import PathFinding.SearchContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JMH benchmark suite of the pathfinder. For every map it measures solving a query with AStar, from the source
+ * only and in both directions, solving the same search again, tracing back the path of a solved query, looking up a
+ * square of the field and constructing an empty field of the same size. Every benchmark reports the throughput and
+ * the latency percentiles (sample time mode); run with "-prof gc" for the bytes allocated per call.
+ * Generated maps are the families open, random10, random30, maze and rooms at the given sizes. A standard benchmark
+ * map is measured by giving its ".map" file as the family, with the queries of a ".scen" file as scen, in which case
+ * the size is ignored and should be given once.
+ * Usage: java -jar benchmarks/target/benchmarks.jar PathfindingBenchmarks [-p size=256,4096] [-p family=open,maze]
+ * [-p family=arena.map -p scen=arena.map.scen -p size=0] [-prof gc]
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmarks {
+    private static final int NUM_QUERIES = 64;
+    private static final int LOOKUPS_PER_CALL = 1024;
+
+    //Parameters are named without the field prefix, since their names are the ones given to -p.
+    @Param({"open", "random10", "random30", "maze", "rooms"})
+    public String family;
+    @Param({"25", "256", "1024"})
+    public int size;
+    @Param({""})
+    public String scen;
+
+    private Field aField;
+    private List<PathQuery> aQueries;
+    private SearchContext aContext;
+    private SearchContext aBackwardContext;
+    private int aNextQuery;
+    //A search solved before every iteration of astarTrace and astarResolve.
+    private AStar aSolved;
+    private int[] aRows;
+    private int[] aColumns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if(family.endsWith(".map")){
+            try(Reader reader = new FileReader(family)){
+                aField = MovingAiFormat.readMap(reader);
+            }
+            aQueries = scen.isEmpty() ? MapGenerator.randomQueries(aField, NUM_QUERIES, 7) : readQueries(scen);
+        }else{
+            aField = generate(family, size);
+            aQueries = MapGenerator.randomQueries(aField, NUM_QUERIES, 7);
+        }
+        aContext = new SearchContext(aField.getNumCells());
+        aBackwardContext = new SearchContext(aField.getNumCells());
+        checkBidirectionalCosts();
+        aRows = new int[LOOKUPS_PER_CALL];
+        aColumns = new int[LOOKUPS_PER_CALL];
+        Random random = new Random(7);
+        for(int i = 0; i < LOOKUPS_PER_CALL; i++){
+            aRows[i] = random.nextInt(aField.getNumRows());
+            aColumns[i] = random.nextInt(aField.getNumColumns());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void solveForTrace(){
+        aSolved = solverFor(nextQuery(), aContext);
+        aSolved.solve();
+    }
+
+    @Benchmark
+    public int astarSolve(){
+        AStar solver = solverFor(nextQuery(), aContext);
+        solver.solve();
+        return solver.getNumExpanded();
+    }
+
+    /**
+     * A method to solve the same search again, so that with "-prof gc" the bytes per call are only those the search
+     * allocates and not those of creating it (about 100 bytes), which is close to 0 since its state is in the context.
+     */
+    @Benchmark
+    public int astarResolve(){
+        aSolved.solve();
+        return aSolved.getNumExpanded();
+    }
+
+    @Benchmark
+    public int astarBidirectional(){
+        AStar solver = solverFor(nextQuery(), aContext);
+        solver.setBidirectional(aBackwardContext);
+        solver.solve();
+        return solver.getNumExpanded();
+    }
+
+    @Benchmark
+    public int[] astarTrace(){
+        return aSolved.getPath();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS_PER_CALL)
+    public long fieldGetSquare(){
+        long sum = 0;
+        for(int i = 0; i < LOOKUPS_PER_CALL; i++){
+            sum += aField.getSquare(aRows[i], aColumns[i]).getStatus().ordinal();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Field fieldConstruct(){
+        return new Field(aField.getNumRows(), aField.getNumColumns());
+    }
+
+    /**
+     * A method to generate a map of a family.
+     * @param pFamily The name of the family.
+     * @param pSize The number of rows and columns of the map.
+     * @return The map.
+     */
+    private static Field generate(String pFamily, int pSize){
+        switch(pFamily){
+            case "open":
+                return MapGenerator.open(pSize);
+            case "random10":
+                return MapGenerator.randomWalls(pSize, 10, pSize);
+            case "random30":
+                return MapGenerator.randomWalls(pSize, 30, pSize);
+            case "maze":
+                return MapGenerator.maze(pSize, pSize);
+            case "rooms":
+                return MapGenerator.rooms(pSize, Math.max(3, pSize / 32), pSize);
+            default:
+                throw new IllegalArgumentException("Unknown map family " + pFamily);
+        }
+    }
+
+    private static List<PathQuery> readQueries(String pFile) throws IOException {
+        List<PathQuery> queries = new ArrayList<>();
+        try(Reader reader = new FileReader(pFile)){
+            for(Scenario scenario : MovingAiFormat.readScenarios(reader)){
+                queries.add(scenario.getQuery());
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * A method to solve every query in both modes and check that they found paths of the same cost, so that the two
+     * benchmarks measure the same work.
+     */
+    private void checkBidirectionalCosts(){
+        for(PathQuery query : aQueries){
+            AStar solver = solverFor(query, aContext);
+            solver.solve();
+            int cost = solver.getPathCost();
+            solver.setBidirectional(aBackwardContext);
+            solver.solve();
+            if(solver.getPathCost() != cost){
+                throw new IllegalStateException("Bidirectional search found a different cost on " + family);
+            }
+        }
+    }
+
+    private PathQuery nextQuery(){
+        PathQuery query = aQueries.get(aNextQuery);
+        aNextQuery = (aNextQuery + 1) % aQueries.size();
+        return query;
+    }
+
+    private AStar solverFor(PathQuery pQuery, SearchContext pContext){
+        return new AStar(aField, pQuery.getSourceRow(), pQuery.getSourceColumn(), pQuery.getDestinationRow(),
+                pQuery.getDestinationColumn(), pContext);
+    }
+}
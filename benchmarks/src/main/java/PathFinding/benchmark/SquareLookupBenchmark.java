@@ -0,0 +1,63 @@
+package PathFinding.benchmark;
+
+import PathFinding.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JMH benchmark to show that Field.getSquare costs the same no matter how large the field is. Walls are stored one
+ * bit per cell, so even the 10000 x 10000 field only takes about 12 MB.
+ * Usage: java -jar benchmarks/target/benchmarks.jar SquareLookupBenchmark [-p size=25,10000]
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SquareLookupBenchmark {
+    private static final int LOOKUPS = 1 << 16;
+
+    //Named without the field prefix, since it is the name given to -p.
+    @Param({"25", "250", "2000", "10000"})
+    public int size;
+
+    private Field aField;
+    private int[] aRows;
+    private int[] aColumns;
+
+    @Setup
+    public void setUp(){
+        aField = new Field(size, size);
+        Random random = new Random(42);
+        aRows = new int[LOOKUPS];
+        aColumns = new int[LOOKUPS];
+        for(int i = 0; i < LOOKUPS; i++){
+            aRows[i] = random.nextInt(size);
+            aColumns[i] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getSquare(){
+        long sum = 0;
+        for(int i = 0; i < LOOKUPS; i++){
+            sum += aField.getSquare(aRows[i], aColumns[i]).getColumn();
+        }
+        return sum;
+    }
+}
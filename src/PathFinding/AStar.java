@@ -1,145 +1,489 @@
 package PathFinding;
 import java.util.ArrayList;
 
-public class AStar {
-    Square aSource;
-    Square aDestination;
-    ArrayList<Square> openList;
-    ArrayList<Square> closedList;
-    Square[][] aParents;
+public class AStar implements PathSolver {
+    //Searches check for cancellation and report their progress every this many expansions.
+    public static final int PROGRESS_INTERVAL = 1024;
+    private static final int[] NO_PATH = new int[0];
+
+    GridMap aMap;
+    //The field is only known when the search was created from one, and is used to trace back squares.
+    Field aField;
+    int aSource;
+    int aDestination;
+    int aDestinationRow;
+    int aDestinationColumn;
+    //Search state is kept in a reusable context indexed by the row-major cell index of a square.
+    SearchContext aContext;
+    boolean aPathFound;
+    int aNumExpanded;
+    Movement aMovement = Movement.CARDINAL;
+    Heuristic aHeuristic = Movement.CARDINAL.defaultHeuristic();
+    //Told the statistics of every search, or null so that searches don't collect them.
+    SearchListener aListener;
+    //The context of the search from the destination in bidirectional mode, or null to search from the source only.
+    SearchContext aBackwardContext;
+    //Used to answer queries between unconnected squares without searching, or null.
+    ConnectedComponents aComponents;
+    CancellationToken aCancellationToken;
+    boolean aCancelled;
+    SearchProgressListener aProgressListener;
+    //The cells expanded since the progress listener was last called, only kept while there is one.
+    int[] aExpandedCells;
+    int aNumExpandedCells;
 
     /**
      * A method to create an AStar object that will be capable of solving for the shortest path.
+     * @param pField The field that the path will be found in.
+     * @param pSource The source of the field.
+     * @param pDestination The destination of the field.
+     */
+    public AStar(Field pField, Square pSource, Square pDestination) {
+        this(pField, pSource, pDestination, new SearchContext(pField.getNumCells()));
+    }
+
+    /**
+     * A method to create an AStar object that keeps its search state in an existing context, so that repeated
+     * searches don't have to allocate or clear any per-square state. The context is reset by solve, so the path of a
+     * search must be traced back before the context is used for another one.
+     * @param pField The field that the path will be found in.
      * @param pSource The source of the field.
      * @param pDestination The destination of the field.
-     * @param numColumns The number of columns that the field has.
-     * @param numRows The number of rows that the field has.
+     * @param pContext The context to keep the search state in, e.g. SearchContext.forCurrentThread.
+     */
+    public AStar(Field pField, Square pSource, Square pDestination, SearchContext pContext) {
+        this(pField, pSource.getRow(), pSource.getColumn(), pDestination.getRow(), pDestination.getColumn(), pContext);
+        aField = pField;
+    }
+
+    /**
+     * A method to create an AStar object that searches any map, such as a MapSnapshot shared between threads.
+     * The map must not change while it is being searched.
+     * @param pMap The map that the path will be found in.
+     * @param pSourceRow The row of the source.
+     * @param pSourceColumn The column of the source.
+     * @param pDestinationRow The row of the destination.
+     * @param pDestinationColumn The column of the destination.
+     * @param pContext The context to keep the search state in, which may not be used by another search at the same time.
+     */
+    public AStar(GridMap pMap, int pSourceRow, int pSourceColumn, int pDestinationRow, int pDestinationColumn,
+                 SearchContext pContext) {
+        assert pContext.getNumCells() >= pMap.getNumCells();
+        aMap = pMap;
+        aSource = pSourceRow * pMap.getNumColumns() + pSourceColumn;
+        aDestination = pDestinationRow * pMap.getNumColumns() + pDestinationColumn;
+        aDestinationRow = pDestinationRow;
+        aDestinationColumn = pDestinationColumn;
+        aContext = pContext;
+    }
+
+    /**
+     * A method to set how the search may move between squares. This also sets the heuristic to the default
+     * heuristic of the movement.
+     * @param pMovement The movement, CARDINAL unless set.
+     */
+    public void setMovement(Movement pMovement){
+        aMovement = pMovement;
+        aHeuristic = pMovement.defaultHeuristic();
+    }
+
+    /**
+     * A method to set the estimate of the remaining cost to the destination. It must be admissible and consistent for
+     * the movement (see Heuristic) for the path to be the shortest.
+     * @param pHeuristic The heuristic, the default heuristic of the movement unless set.
+     */
+    public void setHeuristic(Heuristic pHeuristic){
+        aHeuristic = pHeuristic;
+    }
+
+    /**
+     * A method to set the listener that is told the statistics of every search this object solves.
+     * @param pListener The listener, or null to stop collecting statistics.
      */
-    public AStar(Square pSource, Square pDestination, int numColumns, int numRows) {
-        //Source and destination are stored (column, row)
-        aSource = pSource;
-        aDestination = pDestination;
-        //Destination will be put in the open list first, so it's moves from start must be set to 0.
-        pSource.setMovesFromStart(0);
-        openList = new ArrayList<>();
-        closedList = new ArrayList<>();
-        aParents = new Square[numColumns][numRows];
+    public void setListener(SearchListener pListener){
+        aListener = pListener;
+    }
+
+    /**
+     * A method to set a token that makes solve stop without a path once it is cancelled, e.g. from another thread.
+     * @param pCancellationToken The token, or null.
+     */
+    public void setCancellationToken(CancellationToken pCancellationToken){
+        aCancellationToken = pCancellationToken;
+    }
+
+    /**
+     * A method to set the listener that is told the progress of solve every PROGRESS_INTERVAL expansions.
+     * @param pProgressListener The listener, or null.
+     */
+    public void setProgressListener(SearchProgressListener pProgressListener){
+        aProgressListener = pProgressListener;
+        aExpandedCells = pProgressListener == null ? null : new int[PROGRESS_INTERVAL];
+    }
+
+    /**
+     * A method to set a labeling of the regions of the map, so that solve finds out in constant time that there is no
+     * path between squares of different regions instead of searching the whole region of the source.
+     * @param pComponents The labeling of the map of this search, or null.
+     */
+    public void setComponents(ConnectedComponents pComponents){
+        aComponents = pComponents;
+    }
+
+    /**
+     * A method to make solve search from the source and from the destination at the same time until the two searches
+     * meet, which expands fewer squares on long paths. The path and its cost are the same as those of a search from the
+     * source only, apart from the choice between paths of equal cost.
+     * @param pBidirectional The boolean corresponding to if the search should go both ways.
+     */
+    public void setBidirectional(boolean pBidirectional){
+        setBidirectional(pBidirectional ? new SearchContext(aMap.getNumCells()) : null);
+    }
+
+    /**
+     * A method to make solve search both ways, keeping the search from the destination in an existing context.
+     * @param pBackwardContext The context for the search from the destination, which may not be the context of this
+     *                         search, or null to search from the source only.
+     */
+    public void setBidirectional(SearchContext pBackwardContext){
+        assert pBackwardContext != aContext;
+        assert pBackwardContext == null || pBackwardContext.getNumCells() >= aMap.getNumCells();
+        aBackwardContext = pBackwardContext;
     }
 
     /**
      * A method to solve for the shortest path.
-     * This method will alter the parents array so that traceBackSolution will be able to identify the path.
+     * This method will alter the parents in the search context so that traceBackSolution will be able to identify the path.
      */
+    @Override
     public void solve(){
-        openList.add(aSource);
+        aCancelled = false;
+        aNumExpandedCells = 0;
+        if(isUnreachable()){
+            aPathFound = false;
+            aNumExpanded = 0;
+            aContext.reset();
+            if(aListener != null){
+                aListener.searchFinished(new SearchStats(0, 0, 0, 0, 0, SearchContext.UNREACHED, 0));
+            }
+            return;
+        }
+        if(aBackwardContext != null){
+            solveBothWays();
+            return;
+        }
+        long start = aListener == null ? 0 : System.nanoTime();
+        int numPushes = 1;
+        int numReparented = 0;
+        int peakOpenSize = 1;
+        int numColumns = aMap.getNumColumns();
+        int numRows = aMap.getNumRows();
+        aPathFound = false;
+        aNumExpanded = 0;
+        aContext.reset();
+        OpenSet openList = aContext.getOpenSet();
+        //Source will be put in the open list first, so it's moves from start must be set to 0.
+        aContext.reach(aSource, 0, SearchContext.NO_PARENT);
+        int sourceEstimate = getPredictedDistanceFromDestination(aSource / numColumns, aSource % numColumns);
+        openList.insert(aSource, OpenSet.key(sourceEstimate, sourceEstimate));
+        boolean checkpoints = aCancellationToken != null || aProgressListener != null;
         while(!openList.isEmpty()){
-            Square closestSquare = findSmallestFInOpenList();
-            if(closestSquare.getRow() == aDestination.getRow() && closestSquare.getColumn() == aDestination.getColumn()){
-                return;
+            int closestF = OpenSet.fOf(openList.peekKey());
+            int closestCell = openList.poll();
+            if(closestCell == aDestination){
+                aPathFound = true;
+                break;
+            }
+            aContext.close(closestCell);
+            aNumExpanded++;
+            if(checkpoints && checkpoint(closestCell, closestF)){
+                break;
             }
-            assert closestSquare.getMovesFromStart().isPresent();
-            openList.remove(closestSquare);
-            closedList.add(closestSquare);
-            ArrayList<Square> adjacentSquares = getAdjacentSquares(closestSquare);
-            for(Square square : adjacentSquares){
-                if (!square.getStatus().equals(Status.INACCESSIBLE)) {
-                    int distanceFromStart = closestSquare.getMovesFromStart().get()+1;
-                    //If the estimated cost has not been set, this is the first time visiting the square.
-                    if(square.getEstimatedCostToFinish().isEmpty()) {
-                        int predictedDistanceToDestination = getPredictedDistanceFromDestination(square);
-                        square.setEstimatedCostToFinish(predictedDistanceToDestination);
-                        square.setMovesFromStart(distanceFromStart);
-                        openList.add(square);
-                        aParents[square.getColumn()][square.getRow()] = closestSquare;
-                        //If the estimated cost is not empty then the square is already in the open list
+            int row = closestCell / numColumns;
+            int column = closestCell - row * numColumns;
+            int movesFromStart = aContext.getMovesFromStart(closestCell);
+            int[] rowOffsets = aMovement.rowOffsets();
+            int[] columnOffsets = aMovement.columnOffsets();
+            for(int direction = 0; direction < rowOffsets.length; direction++){
+                int adjacentRow = row + rowOffsets[direction];
+                int adjacentColumn = column + columnOffsets[direction];
+                if(adjacentRow < 0 || adjacentRow >= numRows || adjacentColumn < 0 || adjacentColumn >= numColumns){
+                    continue;
+                }
+                int adjacentCell = adjacentRow * numColumns + adjacentColumn;
+                //With a consistent heuristic a closed square already has its shortest distance from the start.
+                if(aContext.isClosed(adjacentCell) || !aMap.isPassable(adjacentRow, adjacentColumn)){
+                    continue;
+                }
+                boolean diagonal = direction >= 4;
+                //A diagonal step may not cut the corner of an impassable square.
+                if(diagonal && (!aMap.isPassable(row, adjacentColumn) || !aMap.isPassable(adjacentRow, column))){
+                    continue;
+                }
+                int stepCost = diagonal ? aMovement.getDiagonalCost() : aMovement.getStraightCost();
+                int distanceFromStart = movesFromStart + stepCost * aMap.getCost(adjacentRow, adjacentColumn);
+                int existingDistanceFromStart = aContext.getMovesFromStart(adjacentCell);
+                if(distanceFromStart < existingDistanceFromStart){
+                    int predictedDistanceToDestination = getPredictedDistanceFromDestination(adjacentRow, adjacentColumn);
+                    long key = OpenSet.key(distanceFromStart + predictedDistanceToDestination, predictedDistanceToDestination);
+                    aContext.reach(adjacentCell, distanceFromStart, closestCell);
+                    //An unreached square is added to the open list, a square already in it is reordered.
+                    if(existingDistanceFromStart == SearchContext.UNREACHED){
+                        openList.insert(adjacentCell, key);
+                        numPushes++;
+                        peakOpenSize = Math.max(peakOpenSize, openList.size());
+                    }else{
+                        openList.decreaseKey(adjacentCell, key);
+                        numReparented++;
+                    }
+                }
+            }
+        }
+        //The counters are plain local variables, so a search without a listener only pays for this check.
+        if(aListener != null){
+            aListener.searchFinished(new SearchStats(aNumExpanded, numPushes, numReparented, peakOpenSize,
+                    getPath().length, getPathCost(), System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * A method to run the searches from the source and from the destination, always advancing the one with the smaller
+     * open list. Whenever a square is reached that the other search reached as well, the two halves make a path.
+     * Both searches order squares by the average of the two heuristics, hS estimating the cost from the source (see
+     * Heuristic.estimateFrom) and hD the one to the destination: the search from the source by 2G + hD - hS and the one
+     * from the destination by 2G + hS - hD. Since these keys are consistent for both searches at once, the best path found is the shortest
+     * once it costs no more than half the sum of the smallest keys of the two open lists. The half from the destination
+     * is then copied into this context, so that getPath and traceBackSolution find the whole path.
+     */
+    private void solveBothWays(){
+        long start = aListener == null ? 0 : System.nanoTime();
+        int numColumns = aMap.getNumColumns();
+        int numRows = aMap.getNumRows();
+        int sourceRow = aSource / numColumns;
+        int sourceColumn = aSource % numColumns;
+        aPathFound = false;
+        aNumExpanded = 0;
+        aContext.reset();
+        aBackwardContext.reset();
+        OpenSet forwardList = aContext.getOpenSet();
+        OpenSet backwardList = aBackwardContext.getOpenSet();
+        int estimate = getPredictedDistanceFromDestination(sourceRow, sourceColumn);
+        aContext.reach(aSource, 0, SearchContext.NO_PARENT);
+        forwardList.insert(aSource, OpenSet.key(estimate, estimate));
+        aBackwardContext.reach(aDestination, 0, SearchContext.NO_PARENT);
+        backwardList.insert(aDestination, OpenSet.key(estimate, estimate));
+        int numPushes = 2;
+        int numReparented = 0;
+        int peakOpenSize = 2;
+        int bestCost = aSource == aDestination ? 0 : SearchContext.UNREACHED;
+        int meetingCell = aSource;
+        int[] rowOffsets = aMovement.rowOffsets();
+        int[] columnOffsets = aMovement.columnOffsets();
+        boolean checkpoints = aCancellationToken != null || aProgressListener != null;
+        while(!forwardList.isEmpty() && !backwardList.isEmpty()){
+            long lowerBound = (long) OpenSet.fOf(forwardList.peekKey()) + OpenSet.fOf(backwardList.peekKey());
+            if(2L * bestCost <= lowerBound){
+                break;
+            }
+            boolean backward = backwardList.size() < forwardList.size();
+            SearchContext context = backward ? aBackwardContext : aContext;
+            SearchContext otherContext = backward ? aContext : aBackwardContext;
+            OpenSet openList = context.getOpenSet();
+            int closestCell = openList.poll();
+            context.close(closestCell);
+            aNumExpanded++;
+            if(checkpoints && checkpoint(closestCell, (int) (lowerBound / 2))){
+                break;
+            }
+            int row = closestCell / numColumns;
+            int column = closestCell - row * numColumns;
+            int movesFromStart = context.getMovesFromStart(closestCell);
+            for(int direction = 0; direction < rowOffsets.length; direction++){
+                int adjacentRow = row + rowOffsets[direction];
+                int adjacentColumn = column + columnOffsets[direction];
+                if(adjacentRow < 0 || adjacentRow >= numRows || adjacentColumn < 0 || adjacentColumn >= numColumns){
+                    continue;
+                }
+                int adjacentCell = adjacentRow * numColumns + adjacentColumn;
+                if(context.isClosed(adjacentCell) || !aMap.isPassable(adjacentRow, adjacentColumn)){
+                    continue;
+                }
+                boolean diagonal = direction >= 4;
+                if(diagonal && (!aMap.isPassable(row, adjacentColumn) || !aMap.isPassable(adjacentRow, column))){
+                    continue;
+                }
+                int stepCost = diagonal ? aMovement.getDiagonalCost() : aMovement.getStraightCost();
+                //The search from the destination walks steps backwards, so it pays for the square it steps out of.
+                int enteredCost = backward ? aMap.getCost(row, column) : aMap.getCost(adjacentRow, adjacentColumn);
+                int distanceFromStart = movesFromStart + stepCost * enteredCost;
+                int existingDistanceFromStart = context.getMovesFromStart(adjacentCell);
+                if(distanceFromStart < existingDistanceFromStart){
+                    int toSource = aHeuristic.estimateFrom(adjacentRow, adjacentColumn, sourceRow, sourceColumn);
+                    int toDestination = getPredictedDistanceFromDestination(adjacentRow, adjacentColumn);
+                    int potential = backward ? toSource - toDestination : toDestination - toSource;
+                    long key = OpenSet.key(2 * distanceFromStart + potential, backward ? toSource : toDestination);
+                    context.reach(adjacentCell, distanceFromStart, closestCell);
+                    if(existingDistanceFromStart == SearchContext.UNREACHED){
+                        openList.insert(adjacentCell, key);
+                        numPushes++;
+                        peakOpenSize = Math.max(peakOpenSize, forwardList.size() + backwardList.size());
                     }else{
-                        //Safe assert because the square has already been visited
-                        assert square.getMovesFromStart().isPresent();
-                        int existingDistanceFromStart = square.getMovesFromStart().get();
-                        if(existingDistanceFromStart > distanceFromStart){
-                            square.setMovesFromStart(distanceFromStart);
-                            aParents[square.getColumn()][square.getRow()] = closestSquare;
-                        }
+                        openList.decreaseKey(adjacentCell, key);
+                        numReparented++;
+                    }
+                    int otherDistance = otherContext.getMovesFromStart(adjacentCell);
+                    if(otherDistance != SearchContext.UNREACHED && distanceFromStart + otherDistance < bestCost){
+                        bestCost = distanceFromStart + otherDistance;
+                        meetingCell = adjacentCell;
                     }
                 }
             }
         }
+        if(bestCost != SearchContext.UNREACHED && !aCancelled){
+            //Walk the half from the destination, making every square the child of the one before it.
+            int current = meetingCell;
+            int parent = aBackwardContext.getParent(current);
+            while(parent != SearchContext.NO_PARENT){
+                int movesFromStart = aContext.getMovesFromStart(current)
+                        + aBackwardContext.getMovesFromStart(current) - aBackwardContext.getMovesFromStart(parent);
+                aContext.reach(parent, movesFromStart, current);
+                current = parent;
+                parent = aBackwardContext.getParent(current);
+            }
+            aPathFound = true;
+        }
+        if(aListener != null){
+            aListener.searchFinished(new SearchStats(aNumExpanded, numPushes, numReparented, peakOpenSize,
+                    getPath().length, getPathCost(), System.nanoTime() - start));
+        }
     }
 
     /**
-     * A method to solve for the solution after aParents has been updated by solve.
-     * @return An arraylist containing the path solution.
+     * A method to solve for the solution after the parents in the search context have been updated by solve.
+     * Only available when the search was created from a field.
+     * @return An arraylist containing the squares of the path between the source and the destination, which is empty
+     * if solve found no path or the source is the destination.
      */
     public ArrayList<Square> traceBackSolution(){
+        assert aField != null;
         ArrayList<Square> shortestPath = new ArrayList<>();
-        Square current = aParents[aDestination.getColumn()][aDestination.getRow()];
+        if(!aPathFound || aSource == aDestination){
+            return shortestPath;
+        }
+        int numColumns = aMap.getNumColumns();
+        int current = aContext.getParent(aDestination);
         while(current != aSource){
-            shortestPath.add(current);
-            current = aParents[current.getColumn()][current.getRow()];
+            shortestPath.add(aField.getSquare(current / numColumns, current % numColumns));
+            current = aContext.getParent(current);
         }
         return shortestPath;
     }
 
+    @Override
+    public int[] getPath(){
+        if(!aPathFound){
+            return NO_PATH;
+        }
+        int length = 0;
+        for(int current = aDestination; current != SearchContext.NO_PARENT; current = aContext.getParent(current)){
+            length++;
+        }
+        int[] path = new int[length];
+        int current = aDestination;
+        for(int i = length - 1; i >= 0; i--){
+            path[i] = current;
+            current = aContext.getParent(current);
+        }
+        return path;
+    }
 
     /**
-     * A method to get all the adjacent squares of a square.
-     * @param pSquare The square to get the adjacent squares of.
-     * @return A list of squares adjacent to pSquare.
+     * A method to get the path found by solve as runs of steps in the same direction, built straight from the parents
+     * in the search context without listing its squares first.
+     * @return The path from the source to the destination inclusive, or CompactPath.EMPTY if solve found no path.
      */
-    private ArrayList<Square> getAdjacentSquares(Square pSquare){
-        int row = pSquare.getRow();
-        int column = pSquare.getColumn();
-        ArrayList<Square> adjList = new ArrayList<>(8);
-        if(row != 0){
-            adjList.add(Square.getSquare(row-1, column));
+    public CompactPath getCompactPath(){
+        if(!aPathFound){
+            return CompactPath.EMPTY;
         }
-        if(column != 0){
-            adjList.add(Square.getSquare(row, column-1));
+        return CompactPath.fromParents(aContext, aMap.getNumColumns(), aSource, aDestination);
+    }
+
+    /**
+     * A method to test if solve stopped because its cancellation token was cancelled, in which case it found no path.
+     * @return The boolean corresponding to if the last solve was cancelled.
+     */
+    public boolean isCancelled(){
+        return aCancelled;
+    }
+
+    /**
+     * A method to test if solve found a path.
+     * @return The boolean corresponding to if there is a path from the source to the destination.
+     */
+    public boolean isPathFound(){
+        return aPathFound;
+    }
+
+    @Override
+    public int getNumExpanded(){
+        return aNumExpanded;
+    }
+
+    /**
+     * A method to get the cost of the path found by solve, in the step costs of the movement.
+     * @return The cost of the path, or SearchContext.UNREACHED if solve found no path.
+     */
+    public int getPathCost(){
+        return aPathFound ? aContext.getMovesFromStart(aDestination) : SearchContext.UNREACHED;
+    }
+
+    /**
+     * A method to remember an expanded cell for the progress listener, and every PROGRESS_INTERVAL expansions to call
+     * the listener and check the cancellation token.
+     * @param pCell The cell that was just expanded.
+     * @param pBestF The smallest F of the open list.
+     * @return The boolean corresponding to if the search was cancelled.
+     */
+    private boolean checkpoint(int pCell, int pBestF){
+        if(aProgressListener != null){
+            aExpandedCells[aNumExpandedCells++] = pCell;
         }
-        if(row != aParents[0].length-1){
-            adjList.add(Square.getSquare(row+1, column));
+        if(aNumExpanded % PROGRESS_INTERVAL != 0){
+            return false;
         }
-        if(column != aParents.length-1){
-            adjList.add(Square.getSquare(row, column+1));
+        if(aProgressListener != null){
+            aProgressListener.searchProgressed(aNumExpanded, pBestF, aExpandedCells, aNumExpandedCells);
+            aNumExpandedCells = 0;
         }
-        return adjList;
+        aCancelled = aCancellationToken != null && aCancellationToken.isCancelled();
+        return aCancelled;
     }
 
     /**
-     * A method to find the square with the smallest F value in the open list
-     * where F is calculated as the distance from the start + the predicted distance to the finish
-     * where predicted distance to the finish is calculated via the Manhattan method.
-     * @return The square with the smallest F value.
+     * A method to test, without searching, if there can't be a path: either end is impassable, or the components
+     * put them in different regions.
+     * @return The boolean corresponding to if the destination is known to be unreachable.
      */
-    private Square findSmallestFInOpenList(){
-        int smallestF = Integer.MAX_VALUE;
-        Square smallestFSquare = Square.getSquare(0,0);
-        for(Square square : openList){
-            assert aParents[square.getColumn()][square.getRow()].getMovesFromStart().isPresent();
-            int movesFromStart = 0;
-            int predictedMovesToDestination = 0;
-            if(square.getMovesFromStart().isEmpty()){
-                square.setMovesFromStart(aParents[square.getColumn()][square.getRow()].getMovesFromStart().get()+1);
-            }
-            movesFromStart = square.getMovesFromStart().get();
-            predictedMovesToDestination = getPredictedDistanceFromDestination(square);
-            if(movesFromStart + predictedMovesToDestination < smallestF){
-                smallestF = movesFromStart + predictedMovesToDestination;
-                smallestFSquare = square;
-            }
+    private boolean isUnreachable(){
+        int numColumns = aMap.getNumColumns();
+        int sourceRow = aSource / numColumns;
+        int sourceColumn = aSource % numColumns;
+        if(!aMap.isPassable(sourceRow, sourceColumn) || !aMap.isPassable(aDestinationRow, aDestinationColumn)){
+            return true;
         }
-        return smallestFSquare;
+        return aComponents != null
+                && !aComponents.isConnected(sourceRow, sourceColumn, aDestinationRow, aDestinationColumn);
     }
 
     /**
      * A method to calculate the predicted distance from the destination of a square
-     * as calculated by the manhattan method.
-     * @param pSquare The square to get the predicted distance of.
+     * as calculated by the heuristic, the manhattan method unless set otherwise.
+     * @param pRow The row of the square to get the predicted distance of.
+     * @param pColumn The column of the square to get the predicted distance of.
      * @return The predicted distance value.
      */
-    private int getPredictedDistanceFromDestination(Square pSquare){
-        int horizontalDistance = Math.abs(aDestination.getColumn() - pSquare.getColumn());
-        int verticalDistance = Math.abs(aDestination.getRow() - pSquare.getRow());
-        return horizontalDistance + verticalDistance;
+    private int getPredictedDistanceFromDestination(int pRow, int pColumn){
+        return aHeuristic.estimate(pRow, pColumn, aDestinationRow, aDestinationColumn);
     }
 }
@@ -0,0 +1,368 @@
+package PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * An anytime search (Anytime Repairing A*, ARA*) for queries that must be answered within a time or expansion budget.
+ * The first path is found quickly by a weighted A*, which orders squares by G + w * H and finds a path that costs at
+ * most w times the shortest one. The weight is then lowered step by step down to 1, and every step repairs the
+ * previous search instead of starting over: only squares whose distance improved since they were expanded are searched
+ * again. When the budget runs out the best path found so far is returned together with the factor that it is proven
+ * to be within of the shortest path (see getBound), which is 1 once the search has finished with weight 1.
+ * The per-square state is kept in flat arrays that are reused by every solve, so one object can answer any number of
+ * queries on a map that doesn't change while it is searched. It is not thread safe.
+ */
+public class AnytimeAStar {
+    //Keys hold G and the weighted H in 1/WEIGHT_SCALE units, so that weights don't have to be whole numbers.
+    private static final int WEIGHT_SCALE = 64;
+    public static final double MAX_WEIGHT = 64;
+    //Keys are G * WEIGHT_SCALE + w * H, below 2^44 for any int G and H, shifted past the bits of the tie-break on H.
+    private static final int TIE_BITS = 19;
+    private static final int MAX_TIE = (1 << TIE_BITS) - 1;
+    //The clock is only read every this many expansions.
+    private static final int EXPANSIONS_PER_CLOCK_CHECK = 64;
+    private static final int[] NO_PATH = new int[0];
+
+    private final GridMap aMap;
+    private final Movement aMovement;
+    private Heuristic aHeuristic;
+    private double aInitialWeight = 3;
+    private double aWeightStep = 0.5;
+    private final int[] aDistances;
+    private final int[] aParents;
+    //A square's distance and parent are only valid if its stamp is the current solve.
+    private final int[] aReached;
+    private int aSolve;
+    //A square is closed, or waiting to be searched again by the next iteration, if its stamp is the current iteration.
+    private final int[] aClosed;
+    private final int[] aInconsistent;
+    private int aIteration;
+    private int[] aInconsistentCells;
+    private int aNumInconsistent;
+    private int[] aScratch;
+    private final OpenSet aOpenList;
+    private int aDestination;
+    private int aDestinationRow;
+    private int aDestinationColumn;
+    private int[] aPath = NO_PATH;
+    private int aPathCost;
+    private double aBound;
+    private int aNumExpanded;
+    private int aNumIterations;
+
+    /**
+     * A constructor to create an anytime search of a map, using the default heuristic of the movement.
+     * @param pMap The map to search.
+     * @param pMovement The movement to find paths with.
+     */
+    public AnytimeAStar(GridMap pMap, Movement pMovement){
+        aMap = pMap;
+        aMovement = pMovement;
+        aHeuristic = pMovement.defaultHeuristic();
+        int numCells = pMap.getNumCells();
+        aDistances = new int[numCells];
+        aParents = new int[numCells];
+        aReached = new int[numCells];
+        aClosed = new int[numCells];
+        aInconsistent = new int[numCells];
+        aInconsistentCells = new int[64];
+        aScratch = new int[64];
+        aOpenList = new OpenSet(numCells);
+    }
+
+    /**
+     * A method to set the estimate of the remaining cost to the destination. It must be admissible (see Heuristic)
+     * for the bounds to hold.
+     * @param pHeuristic The heuristic, the default heuristic of the movement unless set.
+     */
+    public void setHeuristic(Heuristic pHeuristic){
+        aHeuristic = pHeuristic;
+    }
+
+    /**
+     * A method to set the weights of the searches: the first path costs at most the initial weight times the shortest
+     * one, and every following path at most the previous weight minus the step.
+     * @param pInitialWeight The weight of the first search, from 1 to MAX_WEIGHT and 3 unless set.
+     * @param pWeightStep The amount the weight is lowered by after every search, more than 0 and 0.5 unless set.
+     */
+    public void setWeights(double pInitialWeight, double pWeightStep){
+        if(!(pInitialWeight >= 1 && pInitialWeight <= MAX_WEIGHT && pWeightStep > 0)){
+            throw new IllegalArgumentException("Weights must be from 1 to " + MAX_WEIGHT + " with a positive step");
+        }
+        aInitialWeight = pInitialWeight;
+        aWeightStep = pWeightStep;
+    }
+
+    /**
+     * A method to find a path within a budget, improving it until the budget runs out or the path is the shortest.
+     * @param pQuery The query.
+     * @param pTimeBudgetNanos The longest time to search for, in nanoseconds.
+     * @param pMaxExpansions The largest number of squares to expand.
+     * @return The cells of the best path found from the source to the destination inclusive, or an empty array if none
+     * was found within the budget or there is none.
+     */
+    public int[] solve(PathQuery pQuery, long pTimeBudgetNanos, long pMaxExpansions){
+        long start = System.nanoTime();
+        long deadline = pTimeBudgetNanos > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + pTimeBudgetNanos;
+        int numColumns = aMap.getNumColumns();
+        int source = pQuery.getSourceRow() * numColumns + pQuery.getSourceColumn();
+        aDestinationRow = pQuery.getDestinationRow();
+        aDestinationColumn = pQuery.getDestinationColumn();
+        aDestination = aDestinationRow * numColumns + aDestinationColumn;
+        aPath = NO_PATH;
+        aPathCost = SearchContext.UNREACHED;
+        aBound = Double.POSITIVE_INFINITY;
+        aNumExpanded = 0;
+        aNumIterations = 0;
+        if(!aMap.isPassable(pQuery.getSourceRow(), pQuery.getSourceColumn())
+                || !aMap.isPassable(aDestinationRow, aDestinationColumn)){
+            return aPath;
+        }
+        newSolve();
+        newIteration();
+        aOpenList.clear();
+        reach(source, 0, SearchContext.NO_PARENT);
+        int weight = (int) Math.round(aInitialWeight * WEIGHT_SCALE);
+        aOpenList.insert(source, key(source, weight));
+        while(improvePath(weight, deadline, pMaxExpansions)){
+            aNumIterations++;
+            if(!isReached(aDestination)){
+                //The whole region of the source was searched without reaching the destination.
+                break;
+            }
+            //Every square that may still lead to a cheaper path is open or inconsistent, and the smallest G + H among
+            //them is a lower bound on the cost of the shortest path.
+            int numCandidates = collectCandidates();
+            aPath = tracePath();
+            aPathCost = pathCost(aPath);
+            aBound = Math.min(boundOf(aPathCost, numCandidates), (double) weight / WEIGHT_SCALE);
+            if(aBound <= 1 || weight == WEIGHT_SCALE){
+                aBound = 1;
+                return aPath;
+            }
+            weight = Math.max(WEIGHT_SCALE, weight - (int) Math.round(aWeightStep * WEIGHT_SCALE));
+            newIteration();
+            for(int i = 0; i < numCandidates; i++){
+                aOpenList.insert(aScratch[i], key(aScratch[i], weight));
+            }
+        }
+        if(isReached(aDestination)){
+            //Distances only ever drop, so the path through the current parents is no worse than the one a bound was
+            //proven for. The squares left to search give it a bound of its own, which matters when the budget ran out
+            //before the first weight was finished.
+            int[] path = tracePath();
+            int cost = pathCost(path);
+            if(cost <= aPathCost){
+                aPath = path;
+                aPathCost = cost;
+                aBound = Math.min(aBound, boundOf(cost, collectCandidates()));
+            }
+        }
+        return aPath;
+    }
+
+    //Getter for the cost of the path returned by the last solve, SearchContext.UNREACHED if it returned none
+    public int getPathCost(){
+        return aPathCost;
+    }
+
+    /**
+     * A method to get the factor that the path of the last solve is proven to be within of the shortest path.
+     * @return The factor, 1 if the path is the shortest and infinite if solve returned no path. A path found after the
+     * last weight was finished may be better than the bound, but is never worse.
+     */
+    public double getBound(){
+        return aBound;
+    }
+
+    /**
+     * A method to test if the last solve found a path within its budget.
+     * @return The boolean corresponding to if a path was found.
+     */
+    public boolean isPathFound(){
+        return aPath.length > 0;
+    }
+
+    //Getter for the number of squares the last solve expanded, over all of its weights
+    public int getNumExpanded(){
+        return aNumExpanded;
+    }
+    //Getter for the number of weights the last solve finished searching with
+    public int getNumIterations(){
+        return aNumIterations;
+    }
+
+    /**
+     * A method to run a weighted search until no open square can lead to a cheaper path to the destination at this
+     * weight. Squares whose distance improves after they were expanded are kept aside for the next weight instead of
+     * being expanded again.
+     * @return The boolean corresponding to if the search finished before the budget ran out.
+     */
+    private boolean improvePath(int pWeight, long pDeadline, long pMaxExpansions){
+        int numRows = aMap.getNumRows();
+        int numColumns = aMap.getNumColumns();
+        int[] rowOffsets = aMovement.rowOffsets();
+        int[] columnOffsets = aMovement.columnOffsets();
+        while(!aOpenList.isEmpty()){
+            if(isReached(aDestination)
+                    && (long) aDistances[aDestination] * WEIGHT_SCALE <= fOf(aOpenList.peekKey())){
+                return true;
+            }
+            if(aNumExpanded >= pMaxExpansions
+                    || aNumExpanded % EXPANSIONS_PER_CLOCK_CHECK == 0 && System.nanoTime() >= pDeadline){
+                return false;
+            }
+            int cell = aOpenList.poll();
+            aClosed[cell] = aIteration;
+            aNumExpanded++;
+            int row = cell / numColumns;
+            int column = cell - row * numColumns;
+            int distance = aDistances[cell];
+            for(int direction = 0; direction < rowOffsets.length; direction++){
+                int adjacentRow = row + rowOffsets[direction];
+                int adjacentColumn = column + columnOffsets[direction];
+                if(adjacentRow < 0 || adjacentRow >= numRows || adjacentColumn < 0 || adjacentColumn >= numColumns
+                        || !aMap.isPassable(adjacentRow, adjacentColumn)){
+                    continue;
+                }
+                boolean diagonal = direction >= 4;
+                if(diagonal && (!aMap.isPassable(row, adjacentColumn) || !aMap.isPassable(adjacentRow, column))){
+                    continue;
+                }
+                int stepCost = diagonal ? aMovement.getDiagonalCost() : aMovement.getStraightCost();
+                int adjacentDistance = distance + stepCost * aMap.getCost(adjacentRow, adjacentColumn);
+                int adjacentCell = adjacentRow * numColumns + adjacentColumn;
+                if(isReached(adjacentCell) && adjacentDistance >= aDistances[adjacentCell]){
+                    continue;
+                }
+                reach(adjacentCell, adjacentDistance, cell);
+                if(aClosed[adjacentCell] == aIteration){
+                    //With a weighted heuristic a closed square can still improve; it waits for the next weight.
+                    if(aInconsistent[adjacentCell] != aIteration){
+                        aInconsistent[adjacentCell] = aIteration;
+                        if(aNumInconsistent == aInconsistentCells.length){
+                            aInconsistentCells = Arrays.copyOf(aInconsistentCells, aNumInconsistent * 2);
+                        }
+                        aInconsistentCells[aNumInconsistent++] = adjacentCell;
+                    }
+                }else if(aOpenList.contains(adjacentCell)){
+                    aOpenList.decreaseKey(adjacentCell, key(adjacentCell, pWeight));
+                }else{
+                    aOpenList.insert(adjacentCell, key(adjacentCell, pWeight));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to get the factor that a path is proven to be within of the shortest path by the squares that may still
+     * lead to a cheaper one, i.e. the open and inconsistent squares, whose smallest G + H is a lower bound on the cost
+     * of the shortest path.
+     * @param pCost The cost of the path.
+     * @param pNumCandidates The number of those squares, which are in the scratch array.
+     * @return The factor, at least 1.
+     */
+    private double boundOf(int pCost, int pNumCandidates){
+        long lowerBound = Long.MAX_VALUE;
+        for(int i = 0; i < pNumCandidates; i++){
+            int cell = aScratch[i];
+            lowerBound = Math.min(lowerBound, (long) aDistances[cell] + estimate(cell));
+        }
+        return lowerBound >= pCost ? 1 : (double) pCost / lowerBound;
+    }
+
+    /**
+     * A method to empty the open list and the inconsistent squares into the scratch array.
+     * @return The number of squares in the scratch array.
+     */
+    private int collectCandidates(){
+        int numCandidates = aOpenList.size() + aNumInconsistent;
+        if(aScratch.length < numCandidates){
+            aScratch = new int[Math.max(numCandidates, aScratch.length * 2)];
+        }
+        int size = 0;
+        while(!aOpenList.isEmpty()){
+            aScratch[size++] = aOpenList.poll();
+        }
+        System.arraycopy(aInconsistentCells, 0, aScratch, size, aNumInconsistent);
+        return numCandidates;
+    }
+
+    /**
+     * A method to build the key of a square, ordered by G + w * H and then by the smaller H. Unlike OpenSet.key it
+     * doesn't need G + w * H to fit in an int, which it often doesn't once scaled; the tie-break on H saturates.
+     */
+    private long key(int pCell, int pWeight){
+        int estimate = estimate(pCell);
+        long f = (long) aDistances[pCell] * WEIGHT_SCALE + (long) pWeight * estimate;
+        return f << TIE_BITS | Math.min(estimate, MAX_TIE);
+    }
+
+    private static long fOf(long pKey){
+        return pKey >>> TIE_BITS;
+    }
+
+    private int estimate(int pCell){
+        int numColumns = aMap.getNumColumns();
+        return aHeuristic.estimate(pCell / numColumns, pCell % numColumns, aDestinationRow, aDestinationColumn);
+    }
+
+    private int[] tracePath(){
+        int length = 0;
+        for(int current = aDestination; current != SearchContext.NO_PARENT; current = aParents[current]){
+            length++;
+        }
+        int[] path = new int[length];
+        int current = aDestination;
+        for(int i = length - 1; i >= 0; i--){
+            path[i] = current;
+            current = aParents[current];
+        }
+        return path;
+    }
+
+    /**
+     * A method to add up the cost of the steps of a path, which may be less than the distance of its destination if
+     * squares on it improved after the destination was reached.
+     */
+    private int pathCost(int[] pPath){
+        int numColumns = aMap.getNumColumns();
+        int cost = 0;
+        for(int i = 1; i < pPath.length; i++){
+            int row = pPath[i] / numColumns;
+            int column = pPath[i] % numColumns;
+            boolean diagonal = row != pPath[i - 1] / numColumns && column != pPath[i - 1] % numColumns;
+            cost += (diagonal ? aMovement.getDiagonalCost() : aMovement.getStraightCost()) * aMap.getCost(row, column);
+        }
+        return cost;
+    }
+
+    private boolean isReached(int pCell){
+        return aReached[pCell] == aSolve;
+    }
+
+    private void reach(int pCell, int pDistance, int pParent){
+        aReached[pCell] = aSolve;
+        aDistances[pCell] = pDistance;
+        aParents[pCell] = pParent;
+    }
+
+    private void newSolve(){
+        aSolve++;
+        if(aSolve == Integer.MAX_VALUE){
+            Arrays.fill(aReached, 0);
+            aSolve = 1;
+        }
+    }
+
+    private void newIteration(){
+        aNumInconsistent = 0;
+        aIteration++;
+        if(aIteration == Integer.MAX_VALUE){
+            Arrays.fill(aClosed, 0);
+            Arrays.fill(aInconsistent, 0);
+            aIteration = 1;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package PathFinding;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * An importer for maps drawn as text, one line per row and one character per column. '#', '@', 'O', 'T' and 'W' are
+ * walls and every other character is passable, e.g.
+ * <pre>
+ * ..#..
+ * ..#..
+ * .....
+ * </pre>
+ * Blank lines are ignored and every row must have the same number of columns.
+ */
+public final class AsciiMapImporter {
+    private AsciiMapImporter(){}
+
+    /**
+     * A method to read a text map into a new field.
+     * @param pReader The text of the map.
+     * @return The field with the walls of the map.
+     * @throws IOException If the text can't be read or the rows don't all have the same length.
+     */
+    public static Field read(Reader pReader) throws IOException {
+        BufferedReader reader = new BufferedReader(pReader);
+        ArrayList<String> rows = new ArrayList<>();
+        for(String line = reader.readLine(); line != null; line = reader.readLine()){
+            if(!line.isBlank()){
+                rows.add(line.stripTrailing());
+            }
+        }
+        if(rows.isEmpty()){
+            throw new IOException("Empty map");
+        }
+        int numColumns = rows.get(0).length();
+        Field field = new Field(rows.size(), numColumns);
+        for(int i = 0; i < rows.size(); i++){
+            String row = rows.get(i);
+            if(row.length() != numColumns){
+                throw new IOException("Row " + i + " has " + row.length() + " columns instead of " + numColumns);
+            }
+            for(int j = 0; j < numColumns; j++){
+                if(isWall(row.charAt(j))){
+                    field.makeInaccessible(i, j);
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * A method to test if a character of a text map is a wall.
+     * @param pCharacter The character to test.
+     * @return The boolean corresponding to if the character is a wall.
+     */
+    static boolean isWall(char pCharacter){
+        return pCharacter == '#' || pCharacter == '@' || pCharacter == 'O' || pCharacter == 'T' || pCharacter == 'W';
+    }
+
+    /**
+     * Converts a text map to a binary map file.
+     * @param args The text map to read and the map file to write.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2){
+            System.err.println("Usage: AsciiMapImporter <text map> <map file>");
+            System.exit(2);
+        }
+        Path source = Paths.get(args[0]);
+        Field field;
+        try(Reader reader = Files.newBufferedReader(source)){
+            field = read(reader);
+        }
+        MapFile.write(field, Paths.get(args[1]));
+    }
+}
@@ -0,0 +1,95 @@
+package PathFinding;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A solver for many path queries on the same map at once. Queries are split across the threads of a fork-join pool,
+ * each thread searching with its own SearchContext, so the map must be one that doesn't change while it is searched,
+ * such as a MapSnapshot.
+ */
+public class BatchPathfinder implements AutoCloseable {
+    //Ranges of queries smaller than this are solved by one thread instead of being split further.
+    private static final int QUERIES_PER_TASK = 16;
+
+    private final GridMap aMap;
+    private final ForkJoinPool aPool;
+
+    /**
+     * A constructor to create a batch solver that uses one thread per available processor.
+     * @param pMap The map that the paths will be found in.
+     */
+    public BatchPathfinder(GridMap pMap){
+        this(pMap, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * A constructor to create a batch solver that uses a certain number of threads.
+     * @param pMap The map that the paths will be found in.
+     * @param pNumThreads The number of threads to solve queries on.
+     */
+    public BatchPathfinder(GridMap pMap, int pNumThreads){
+        assert pNumThreads > 0;
+        aMap = pMap;
+        aPool = new ForkJoinPool(pNumThreads);
+    }
+
+    /**
+     * A method to solve a list of queries in parallel.
+     * @param pQueries The queries to solve.
+     * @return The paths of the queries in the same order as the queries, each in the form returned by AStar.getPath.
+     */
+    public int[][] solveAll(List<PathQuery> pQueries){
+        int[][] paths = new int[pQueries.size()][];
+        aPool.invoke(new SolveTask(pQueries, paths, 0, pQueries.size()));
+        return paths;
+    }
+
+    /**
+     * A method to solve a single query on the calling thread.
+     * @param pQuery The query to solve.
+     * @return The path of the query in the form returned by AStar.getPath.
+     */
+    public int[] solve(PathQuery pQuery){
+        AStar aStar = new AStar(aMap, pQuery.getSourceRow(), pQuery.getSourceColumn(), pQuery.getDestinationRow(),
+                pQuery.getDestinationColumn(), SearchContext.forCurrentThread(aMap.getNumCells()));
+        aStar.solve();
+        return aStar.getPath();
+    }
+
+    /**
+     * A method to stop the threads of the solver.
+     */
+    @Override
+    public void close(){
+        aPool.shutdown();
+    }
+
+    private class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<PathQuery> aQueries;
+        private final int[][] aPaths;
+        private final int aStart;
+        private final int aEnd;
+
+        SolveTask(List<PathQuery> pQueries, int[][] pPaths, int pStart, int pEnd){
+            aQueries = pQueries;
+            aPaths = pPaths;
+            aStart = pStart;
+            aEnd = pEnd;
+        }
+
+        @Override
+        protected void compute(){
+            if(aEnd - aStart <= QUERIES_PER_TASK){
+                for(int i = aStart; i < aEnd; i++){
+                    aPaths[i] = solve(aQueries.get(i));
+                }
+                return;
+            }
+            int middle = (aStart + aEnd) >>> 1;
+            invokeAll(new SolveTask(aQueries, aPaths, aStart, middle), new SolveTask(aQueries, aPaths, middle, aEnd));
+        }
+    }
+}
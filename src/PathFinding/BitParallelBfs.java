@@ -0,0 +1,240 @@
+package PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * A breadth-first search that advances 64 squares at a time, for maps where every step costs the same and only
+ * horizontal and vertical steps are allowed. The passable squares come from a RowBitGrid, and the frontier and the
+ * visited squares are kept in the same row-aligned layout, so the next frontier of a long is its own frontier shifted
+ * one column left and right (carrying across neighbouring longs) or'ed with the frontier of the rows above and below,
+ * and'ed with the passable squares that have not been visited. Only longs next to a non-empty frontier long are looked
+ * at, so a level costs time in the size of its frontier and not of the map.
+ * The distance of every reached square is kept as well, so that shortest paths are read back by stepping to a
+ * neighbour one step closer to the source. The search ignores the costs of squares (see GridMap.getCost).
+ * The arrays are reused by every search, so one object can search a grid any number of times. It is not thread safe.
+ */
+public class BitParallelBfs {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int[] NO_PATH = new int[0];
+
+    private final RowBitGrid aGrid;
+    private final int aNumRows;
+    private final int aNumColumns;
+    private final int aWordsPerRow;
+    private final long[] aVisited;
+    private long[] aFrontier;
+    private long[] aNextFrontier;
+    //The indices of the non-empty longs of the frontier.
+    private int[] aActive;
+    private int aNumActive;
+    private int[] aNextActive;
+    //Marks the longs already looked at in the current level, with a stamp per level so nothing has to be cleared.
+    private final int[] aLooked;
+    private int aStamp;
+    //The distance of every visited square from the source; only valid where the visited bit is set.
+    private final int[] aDistances;
+    private int aNumLevels;
+
+    /**
+     * A constructor to create a search of a grid.
+     * @param pGrid The grid, e.g. RowBitGrid.of(field).
+     */
+    public BitParallelBfs(RowBitGrid pGrid){
+        aGrid = pGrid;
+        aNumRows = pGrid.getNumRows();
+        aNumColumns = pGrid.getNumColumns();
+        aWordsPerRow = pGrid.getWordsPerRow();
+        int numWords = aNumRows * aWordsPerRow;
+        aVisited = new long[numWords];
+        aFrontier = new long[numWords];
+        aNextFrontier = new long[numWords];
+        aActive = new int[64];
+        aNextActive = new int[64];
+        aLooked = new int[numWords];
+        aDistances = new int[pGrid.getNumCells()];
+    }
+
+    /**
+     * A method to compute the distance of every square from a source.
+     * @param pSourceRow The row of the source.
+     * @param pSourceColumn The column of the source.
+     */
+    public void computeDistances(int pSourceRow, int pSourceColumn){
+        search(pSourceRow, pSourceColumn, -1);
+    }
+
+    /**
+     * A method to find a shortest path, stopping the search as soon as the destination is reached.
+     * @param pQuery The query.
+     * @return The cells of the path from the source to the destination inclusive, or an empty array if there is none.
+     */
+    public int[] findPath(PathQuery pQuery){
+        int destination = pQuery.getDestinationRow() * aNumColumns + pQuery.getDestinationColumn();
+        search(pQuery.getSourceRow(), pQuery.getSourceColumn(), destination);
+        return getPath(pQuery.getDestinationRow(), pQuery.getDestinationColumn());
+    }
+
+    /**
+     * A method to get the distance of a square from the source of the last search.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The number of steps, or UNREACHABLE if the square wasn't reached.
+     */
+    public int getDistance(int pRow, int pColumn){
+        return isVisited(pRow, pColumn) ? aDistances[pRow * aNumColumns + pColumn] : UNREACHABLE;
+    }
+
+    /**
+     * A method to read a shortest path to a square back from the distances of the last search.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The cells of the path from the source to the square inclusive, or an empty array if it wasn't reached.
+     */
+    public int[] getPath(int pRow, int pColumn){
+        if(!isVisited(pRow, pColumn)){
+            return NO_PATH;
+        }
+        int[] path = new int[aDistances[pRow * aNumColumns + pColumn] + 1];
+        int row = pRow;
+        int column = pColumn;
+        for(int i = path.length - 1; i > 0; i--){
+            path[i] = row * aNumColumns + column;
+            //Any visited neighbour one step closer to the source continues a shortest path.
+            if(isCloser(row - 1, column, i)){
+                row--;
+            }else if(isCloser(row + 1, column, i)){
+                row++;
+            }else if(isCloser(row, column - 1, i)){
+                column--;
+            }else{
+                column++;
+            }
+        }
+        path[0] = row * aNumColumns + column;
+        return path;
+    }
+
+    //Getter for the number of levels the last search went through, i.e. the largest distance it found plus one
+    public int getNumLevels(){
+        return aNumLevels;
+    }
+
+    /**
+     * A method to search from a source, level by level.
+     * @param pDestination The cell to stop at once it is reached, or -1 to reach every square.
+     */
+    private void search(int pSourceRow, int pSourceColumn, int pDestination){
+        Arrays.fill(aVisited, 0);
+        for(int i = 0; i < aNumActive; i++){
+            aFrontier[aActive[i]] = 0;
+        }
+        aNumActive = 0;
+        aNumLevels = 0;
+        if(!aGrid.isPassable(pSourceRow, pSourceColumn)){
+            return;
+        }
+        int sourceWord = pSourceRow * aWordsPerRow + (pSourceColumn >>> 6);
+        aFrontier[sourceWord] = 1L << pSourceColumn;
+        aVisited[sourceWord] = aFrontier[sourceWord];
+        aDistances[pSourceRow * aNumColumns + pSourceColumn] = 0;
+        aActive[aNumActive++] = sourceWord;
+        int destinationWord = pDestination < 0 ? -1
+                : pDestination / aNumColumns * aWordsPerRow + (pDestination % aNumColumns >>> 6);
+        long destinationBit = pDestination < 0 ? 0 : 1L << (pDestination % aNumColumns);
+        for(int level = 1; aNumActive > 0; level++){
+            aNumLevels = level;
+            if(destinationWord >= 0 && (aVisited[destinationWord] & destinationBit) != 0){
+                break;
+            }
+            nextStamp();
+            int numNextActive = 0;
+            for(int i = 0; i < aNumActive; i++){
+                int word = aActive[i];
+                int row = word / aWordsPerRow;
+                int column = word - row * aWordsPerRow;
+                //The frontier of a long can only spread to itself, its neighbours in the row and the longs above and below.
+                numNextActive = advance(word, row, column, level, numNextActive);
+                if(column > 0){
+                    numNextActive = advance(word - 1, row, column - 1, level, numNextActive);
+                }
+                if(column < aWordsPerRow - 1){
+                    numNextActive = advance(word + 1, row, column + 1, level, numNextActive);
+                }
+                if(row > 0){
+                    numNextActive = advance(word - aWordsPerRow, row - 1, column, level, numNextActive);
+                }
+                if(row < aNumRows - 1){
+                    numNextActive = advance(word + aWordsPerRow, row + 1, column, level, numNextActive);
+                }
+            }
+            for(int i = 0; i < aNumActive; i++){
+                aFrontier[aActive[i]] = 0;
+            }
+            long[] frontier = aFrontier;
+            aFrontier = aNextFrontier;
+            aNextFrontier = frontier;
+            int[] active = aActive;
+            aActive = aNextActive;
+            aNextActive = active;
+            aNumActive = numNextActive;
+        }
+    }
+
+    /**
+     * A method to compute the next frontier of a long from the current frontier around it, unless it was already
+     * computed in this level, and to give the squares that it adds their distance.
+     * @return The number of non-empty longs of the next frontier.
+     */
+    private int advance(int pWord, int pRow, int pColumn, int pLevel, int pNumNextActive){
+        if(aLooked[pWord] == aStamp){
+            return pNumNextActive;
+        }
+        aLooked[pWord] = aStamp;
+        long frontier = aFrontier[pWord];
+        long spread = frontier << 1 | frontier >>> 1;
+        if(pColumn > 0){
+            spread |= aFrontier[pWord - 1] >>> 63;
+        }
+        if(pColumn < aWordsPerRow - 1){
+            spread |= aFrontier[pWord + 1] << 63;
+        }
+        if(pRow > 0){
+            spread |= aFrontier[pWord - aWordsPerRow];
+        }
+        if(pRow < aNumRows - 1){
+            spread |= aFrontier[pWord + aWordsPerRow];
+        }
+        long reached = spread & aGrid.getWord(pRow, pColumn) & ~aVisited[pWord];
+        if(reached == 0){
+            return pNumNextActive;
+        }
+        aVisited[pWord] |= reached;
+        aNextFrontier[pWord] = reached;
+        if(pNumNextActive == aNextActive.length){
+            aNextActive = Arrays.copyOf(aNextActive, pNumNextActive * 2);
+        }
+        aNextActive[pNumNextActive] = pWord;
+        int firstCell = pRow * aNumColumns + (pColumn << 6);
+        for(long bits = reached; bits != 0; bits &= bits - 1){
+            aDistances[firstCell + Long.numberOfTrailingZeros(bits)] = pLevel;
+        }
+        return pNumNextActive + 1;
+    }
+
+    private boolean isVisited(int pRow, int pColumn){
+        return (aVisited[pRow * aWordsPerRow + (pColumn >>> 6)] & (1L << pColumn)) != 0;
+    }
+
+    private boolean isCloser(int pRow, int pColumn, int pDistance){
+        return pRow >= 0 && pRow < aNumRows && pColumn >= 0 && pColumn < aNumColumns && isVisited(pRow, pColumn)
+                && aDistances[pRow * aNumColumns + pColumn] == pDistance - 1;
+    }
+
+    private void nextStamp(){
+        aStamp++;
+        if(aStamp == Integer.MAX_VALUE){
+            Arrays.fill(aLooked, 0);
+            aStamp = 1;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package PathFinding;
+
+/**
+ * A flag that another thread sets to ask a running search to stop. Searches check it every so many expansions, so
+ * cancelling costs the search nothing until it happens.
+ */
+public class CancellationToken {
+    private volatile boolean aCancelled;
+
+    /**
+     * A method to ask every search holding this token to stop.
+     */
+    public void cancel(){
+        aCancelled = true;
+    }
+
+    /**
+     * A method to test if the token has been cancelled.
+     * @return The boolean corresponding to if cancel was called.
+     */
+    public boolean isCancelled(){
+        return aCancelled;
+    }
+}
@@ -0,0 +1,341 @@
+package PathFinding;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An immutable path stored as runs of steps in the same direction instead of one entry per square, which takes a few
+ * bytes per turn however long the straight stretches are. The squares can be walked one at a time without building
+ * them all (see cells), the turns read as waypoints, with or without cutting the corners that have a clear line of
+ * sight, and the path written to a small binary form.
+ * A run is packed into an int as its number of steps shifted left by 3 and its direction, an index into the movement
+ * offsets of Movement.OCTILE (the straight directions are the same for both movements).
+ * Every square of the path is included, from the source to the destination.
+ */
+public final class CompactPath {
+    public static final CompactPath EMPTY = new CompactPath(0, -1, new int[0]);
+    private static final int DIRECTION_BITS = 3;
+    private static final int DIRECTION_MASK = (1 << DIRECTION_BITS) - 1;
+    //The direction of a step by (row offset + 1) * 3 + column offset + 1, -1 for no step.
+    private static final int[] DIRECTIONS = {4, 0, 5, 1, -1, 3, 6, 2, 7};
+
+    private final int aNumColumns;
+    private final int aStart;
+    private final int[] aRuns;
+    private final int aLength;
+
+    private CompactPath(int pNumColumns, int pStart, int[] pRuns){
+        aNumColumns = pNumColumns;
+        aStart = pStart;
+        aRuns = pRuns;
+        int length = pStart < 0 ? 0 : 1;
+        for(int run : pRuns){
+            length += run >>> DIRECTION_BITS;
+        }
+        aLength = length;
+    }
+
+    /**
+     * A method to build the path that a search found straight from the parents in its context, walking them from the
+     * destination back to the source once.
+     * @param pContext The context of the search.
+     * @param pNumColumns The number of columns of the map that was searched.
+     * @param pSource The row-major cell of the source.
+     * @param pDestination The row-major cell of the destination, which the search must have reached.
+     * @return The path.
+     */
+    public static CompactPath fromParents(SearchContext pContext, int pNumColumns, int pSource, int pDestination){
+        int[] runs = new int[8];
+        int numRuns = 0;
+        int direction = -1;
+        int steps = 0;
+        for(int current = pDestination; current != pSource; ){
+            int parent = pContext.getParent(current);
+            assert parent != SearchContext.NO_PARENT;
+            int stepDirection = direction(pNumColumns, parent, current);
+            if(stepDirection != direction && steps > 0){
+                if(numRuns == runs.length){
+                    runs = Arrays.copyOf(runs, numRuns * 2);
+                }
+                runs[numRuns++] = steps << DIRECTION_BITS | direction;
+                steps = 0;
+            }
+            direction = stepDirection;
+            steps++;
+            current = parent;
+        }
+        if(steps > 0){
+            if(numRuns == runs.length){
+                runs = Arrays.copyOf(runs, numRuns + 1);
+            }
+            runs[numRuns++] = steps << DIRECTION_BITS | direction;
+        }
+        //The runs were found from the destination back, so they are reversed into walking order.
+        int[] ordered = new int[numRuns];
+        for(int i = 0; i < numRuns; i++){
+            ordered[i] = runs[numRuns - 1 - i];
+        }
+        return new CompactPath(pNumColumns, pSource, ordered);
+    }
+
+    /**
+     * A method to build a path from its squares.
+     * @param pNumColumns The number of columns of the map of the path.
+     * @param pCells The row-major cells of the path, each next to the one before it, e.g. from AStar.getPath.
+     * @return The path, EMPTY if there are no cells.
+     */
+    public static CompactPath fromCells(int pNumColumns, int[] pCells){
+        if(pCells.length == 0){
+            return EMPTY;
+        }
+        int[] runs = new int[8];
+        int numRuns = 0;
+        for(int i = 1; i < pCells.length; i++){
+            int direction = direction(pNumColumns, pCells[i - 1], pCells[i]);
+            if(numRuns > 0 && (runs[numRuns - 1] & DIRECTION_MASK) == direction){
+                runs[numRuns - 1] += 1 << DIRECTION_BITS;
+                continue;
+            }
+            if(numRuns == runs.length){
+                runs = Arrays.copyOf(runs, numRuns * 2);
+            }
+            runs[numRuns++] = 1 << DIRECTION_BITS | direction;
+        }
+        return new CompactPath(pNumColumns, pCells[0], Arrays.copyOf(runs, numRuns));
+    }
+
+    //Getter for the number of squares of the path, 0 if it is empty
+    public int getLength(){
+        return aLength;
+    }
+    //Getter for the number of runs of steps in the same direction
+    public int getNumRuns(){
+        return aRuns.length;
+    }
+
+    /**
+     * A method to test if the path has no squares, e.g. because no path was found.
+     * @return The boolean corresponding to if the path is empty.
+     */
+    public boolean isEmpty(){
+        return aLength == 0;
+    }
+
+    /**
+     * A method to walk the squares of the path from the source to the destination, one at a time, without building
+     * them all.
+     * @return The iterator of the row-major cells of the path.
+     */
+    public PrimitiveIterator.OfInt cells(){
+        return new PrimitiveIterator.OfInt(){
+            private int aCell = aStart;
+            private int aRun = -1;
+            private int aStepsLeft = 0;
+            private int aNumReturned = 0;
+
+            @Override
+            public boolean hasNext(){
+                return aNumReturned < aLength;
+            }
+
+            @Override
+            public int nextInt(){
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                if(aNumReturned > 0){
+                    if(aStepsLeft == 0){
+                        aRun++;
+                        aStepsLeft = aRuns[aRun] >>> DIRECTION_BITS;
+                    }
+                    aCell = step(aCell, aRuns[aRun] & DIRECTION_MASK);
+                    aStepsLeft--;
+                }
+                aNumReturned++;
+                return aCell;
+            }
+        };
+    }
+
+    /**
+     * A method to get every square of the path, in the same form as AStar.getPath.
+     * @return The row-major cells of the path from the source to the destination inclusive.
+     */
+    public int[] toCells(){
+        int[] cells = new int[aLength];
+        PrimitiveIterator.OfInt iterator = cells();
+        for(int i = 0; i < aLength; i++){
+            cells[i] = iterator.nextInt();
+        }
+        return cells;
+    }
+
+    /**
+     * A method to get the squares where the path turns, together with its source and destination.
+     * @return The row-major cells of the source, every turn and the destination, or an empty array if the path is
+     * empty.
+     */
+    public int[] getWaypoints(){
+        if(aLength == 0){
+            return new int[0];
+        }
+        int[] waypoints = new int[aRuns.length + 1];
+        waypoints[0] = aStart;
+        for(int i = 0; i < aRuns.length; i++){
+            int direction = aRuns[i] & DIRECTION_MASK;
+            int steps = aRuns[i] >>> DIRECTION_BITS;
+            int row = waypoints[i] / aNumColumns + Movement.OCTILE.rowOffsets()[direction] * steps;
+            int column = waypoints[i] % aNumColumns + Movement.OCTILE.columnOffsets()[direction] * steps;
+            waypoints[i + 1] = row * aNumColumns + column;
+        }
+        return waypoints;
+    }
+
+    /**
+     * A method to get the waypoints of the path with every waypoint left out that the one before it can see past,
+     * so that an agent may walk straight lines between the remaining ones (at any angle) without touching an
+     * impassable square. A line sees past a square if every square it passes through is passable, and where it passes
+     * exactly through a corner, both squares beside the corner are.
+     * @param pMap The map of the path.
+     * @return The row-major cells of the remaining waypoints, including the source and the destination.
+     */
+    public int[] getSmoothedWaypoints(GridMap pMap){
+        int[] waypoints = getWaypoints();
+        if(waypoints.length <= 2){
+            return waypoints;
+        }
+        int[] smoothed = new int[waypoints.length];
+        int numSmoothed = 0;
+        smoothed[numSmoothed++] = waypoints[0];
+        for(int i = 1; i < waypoints.length - 1; i++){
+            if(!hasLineOfSight(pMap, smoothed[numSmoothed - 1], waypoints[i + 1])){
+                smoothed[numSmoothed++] = waypoints[i];
+            }
+        }
+        smoothed[numSmoothed++] = waypoints[waypoints.length - 1];
+        return Arrays.copyOf(smoothed, numSmoothed);
+    }
+
+    /**
+     * A method to write the path in its binary form: the number of columns, the source plus one (0 for an empty path),
+     * the number of runs and the runs, each as an unsigned variable-length integer of 7 bits per byte.
+     * @return The bytes of the path.
+     */
+    public byte[] toBytes(){
+        byte[] bytes = new byte[5 * (aRuns.length + 3)];
+        int size = writeVarInt(bytes, 0, aNumColumns);
+        size = writeVarInt(bytes, size, aStart + 1);
+        size = writeVarInt(bytes, size, aRuns.length);
+        for(int run : aRuns){
+            size = writeVarInt(bytes, size, run);
+        }
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * A method to read a path written by toBytes.
+     * @param pBytes The bytes of the path.
+     * @return The path.
+     * @throws IllegalArgumentException If the bytes are not a path.
+     */
+    public static CompactPath fromBytes(byte[] pBytes){
+        int[] position = {0};
+        int numColumns = readVarInt(pBytes, position);
+        int start = readVarInt(pBytes, position) - 1;
+        int numRuns = readVarInt(pBytes, position);
+        if(start < 0){
+            return EMPTY;
+        }
+        if(numColumns <= 0 || numRuns < 0 || numRuns > pBytes.length){
+            throw new IllegalArgumentException("Malformed path");
+        }
+        int[] runs = new int[numRuns];
+        for(int i = 0; i < numRuns; i++){
+            runs[i] = readVarInt(pBytes, position);
+        }
+        if(position[0] != pBytes.length){
+            throw new IllegalArgumentException("Malformed path");
+        }
+        return new CompactPath(numColumns, start, runs);
+    }
+
+    private int step(int pCell, int pDirection){
+        return pCell + Movement.OCTILE.rowOffsets()[pDirection] * aNumColumns
+                + Movement.OCTILE.columnOffsets()[pDirection];
+    }
+
+    private static int direction(int pNumColumns, int pFrom, int pTo){
+        int rowOffset = pTo / pNumColumns - pFrom / pNumColumns;
+        int columnOffset = pTo % pNumColumns - pFrom % pNumColumns;
+        assert Math.abs(rowOffset) <= 1 && Math.abs(columnOffset) <= 1 && (rowOffset != 0 || columnOffset != 0);
+        return DIRECTIONS[(rowOffset + 1) * 3 + columnOffset + 1];
+    }
+
+    /**
+     * A method to test if the straight line between the centres of two squares only passes through passable squares,
+     * walking the squares it crosses one boundary at a time.
+     */
+    private static boolean hasLineOfSight(GridMap pMap, int pFrom, int pTo){
+        int numColumns = pMap.getNumColumns();
+        int row = pFrom / numColumns;
+        int column = pFrom % numColumns;
+        int rowDistance = Math.abs(pTo / numColumns - row);
+        int columnDistance = Math.abs(pTo % numColumns - column);
+        int rowStep = Integer.signum(pTo / numColumns - row);
+        int columnStep = Integer.signum(pTo % numColumns - column);
+        //The line crosses a row boundary every 1 / rowDistance and a column boundary every 1 / columnDistance of its
+        //length; comparing both scaled by 2 * rowDistance * columnDistance keeps the walk in integers.
+        long nextRowBoundary = columnDistance;
+        long nextColumnBoundary = rowDistance;
+        for(int crossings = rowDistance + columnDistance; crossings > 0; ){
+            if(nextRowBoundary == nextColumnBoundary){
+                //The line passes exactly through a corner, so both squares beside it must be passable.
+                if(!pMap.isPassable(row + rowStep, column) || !pMap.isPassable(row, column + columnStep)){
+                    return false;
+                }
+                row += rowStep;
+                column += columnStep;
+                nextRowBoundary += 2L * columnDistance;
+                nextColumnBoundary += 2L * rowDistance;
+                crossings -= 2;
+            }else if(nextRowBoundary < nextColumnBoundary){
+                row += rowStep;
+                nextRowBoundary += 2L * columnDistance;
+                crossings--;
+            }else{
+                column += columnStep;
+                nextColumnBoundary += 2L * rowDistance;
+                crossings--;
+            }
+            if(!pMap.isPassable(row, column)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int writeVarInt(byte[] pBytes, int pPosition, int pValue){
+        while((pValue & ~0x7F) != 0){
+            pBytes[pPosition++] = (byte) ((pValue & 0x7F) | 0x80);
+            pValue >>>= 7;
+        }
+        pBytes[pPosition++] = (byte) pValue;
+        return pPosition;
+    }
+
+    private static int readVarInt(byte[] pBytes, int[] pPosition){
+        int value = 0;
+        for(int shift = 0; shift < 32; shift += 7){
+            if(pPosition[0] >= pBytes.length){
+                throw new IllegalArgumentException("Malformed path");
+            }
+            byte b = pBytes[pPosition[0]++];
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0){
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed path");
+    }
+}
@@ -0,0 +1,301 @@
+package PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * A labeling of the connected regions of passable squares of a map, so that a query between two regions can be
+ * answered "no path" in constant time instead of searching the whole region of the source. Squares are connected
+ * through their four straight neighbours, which also gives the regions of diagonal movement since a diagonal step
+ * may not cut a corner.
+ * Labels are kept up to date as squares change: a square that becomes passable joins the regions around it through a
+ * union-find over the labels, and a square that becomes impassable starts a search from each of its neighbours in
+ * lock-step, which stops as soon as the neighbours are known to be connected, so only a region that was actually cut
+ * off is searched to the end and relabeled. When created from a field the labeling listens to it; otherwise the owner
+ * of the map calls squareChanged after changing a square.
+ */
+public class ConnectedComponents implements FieldListener {
+    public static final int WALL = 0;
+    private static final int[] ROW_OFFSETS = {-1, 0, 1, 0};
+    private static final int[] COLUMN_OFFSETS = {0, -1, 0, 1};
+
+    private final GridMap aMap;
+    //The label of every cell, WALL for impassable ones. Labels are merged by aParents, so compare them through find.
+    private final int[] aLabels;
+    private int[] aParents;
+    private int aNumLabels;
+    //Marks which of the searches of the last split reached a cell, with a stamp per split so nothing has to be cleared.
+    private final int[] aMarks;
+    private int aStamp;
+
+    /**
+     * A constructor to create the labeling of a field that follows the changes made to it.
+     * @param pField The field to label.
+     */
+    public ConnectedComponents(Field pField){
+        this((GridMap) pField);
+        pField.addListener(this);
+    }
+
+    /**
+     * A constructor to create the labeling of a map whose owner reports its changes through squareChanged.
+     * @param pMap The map to label.
+     */
+    public ConnectedComponents(GridMap pMap){
+        aMap = pMap;
+        aLabels = new int[pMap.getNumCells()];
+        aMarks = new int[pMap.getNumCells()];
+        relabel();
+    }
+
+    /**
+     * A method to test if there is a path between two squares.
+     * @param pSourceRow The row of the first square.
+     * @param pSourceColumn The column of the first square.
+     * @param pDestinationRow The row of the second square.
+     * @param pDestinationColumn The column of the second square.
+     * @return The boolean corresponding to if both squares are passable and in the same region.
+     */
+    public boolean isConnected(int pSourceRow, int pSourceColumn, int pDestinationRow, int pDestinationColumn){
+        int source = getComponent(pSourceRow, pSourceColumn);
+        return source != WALL && source == getComponent(pDestinationRow, pDestinationColumn);
+    }
+
+    /**
+     * A method to get the label of the region of a square. Two squares have the same label exactly when they are
+     * connected, but the label of a region may change when the map changes.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The label of the region, or WALL if the square is impassable.
+     */
+    public int getComponent(int pRow, int pColumn){
+        return find(aLabels[pRow * aMap.getNumColumns() + pColumn]);
+    }
+
+    /**
+     * A method to update the labels after a square has become passable or impassable.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @param pPassable The boolean corresponding to if the square is now passable.
+     */
+    @Override
+    public void squareChanged(int pRow, int pColumn, boolean pPassable){
+        int cell = pRow * aMap.getNumColumns() + pColumn;
+        if(pPassable){
+            join(cell);
+        }else{
+            aLabels[cell] = WALL;
+            split(pRow, pColumn);
+        }
+        //Every split may leave some labels unused, so once there are far more labels than cells they are renumbered.
+        if(aNumLabels > 2 * aLabels.length + 2){
+            relabel();
+        }
+    }
+
+    /**
+     * A method to label every region from scratch with a flood fill.
+     */
+    private void relabel(){
+        Arrays.fill(aLabels, WALL);
+        aParents = new int[16];
+        aNumLabels = 1;
+        int[] queue = new int[aLabels.length];
+        int numColumns = aMap.getNumColumns();
+        for(int cell = 0; cell < aLabels.length; cell++){
+            if(aLabels[cell] != WALL || !aMap.isPassable(cell / numColumns, cell % numColumns)){
+                continue;
+            }
+            int label = newLabel();
+            aLabels[cell] = label;
+            int size = 1;
+            queue[0] = cell;
+            for(int head = 0; head < size; head++){
+                int row = queue[head] / numColumns;
+                int column = queue[head] % numColumns;
+                for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+                    int neighbour = passableNeighbour(row + ROW_OFFSETS[direction], column + COLUMN_OFFSETS[direction]);
+                    if(neighbour >= 0 && aLabels[neighbour] == WALL){
+                        aLabels[neighbour] = label;
+                        queue[size++] = neighbour;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to give a square that became passable the region of its neighbours, merging their regions.
+     */
+    private void join(int pCell){
+        int numColumns = aMap.getNumColumns();
+        int row = pCell / numColumns;
+        int column = pCell % numColumns;
+        int label = WALL;
+        for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+            int neighbour = passableNeighbour(row + ROW_OFFSETS[direction], column + COLUMN_OFFSETS[direction]);
+            if(neighbour < 0){
+                continue;
+            }
+            int neighbourLabel = find(aLabels[neighbour]);
+            if(label == WALL){
+                label = neighbourLabel;
+            }else if(neighbourLabel != label){
+                aParents[neighbourLabel] = label;
+            }
+        }
+        aLabels[pCell] = label == WALL ? newLabel() : label;
+    }
+
+    /**
+     * A method to find the regions that a square which became impassable may have cut off. A search runs from every
+     * passable neighbour, one square at a time each. Searches that meet are merged into one group, and a group whose
+     * searches all run out of squares is a region of its own and gets a new label. Once at most one group is still
+     * searching, that group keeps the old label.
+     */
+    private void split(int pRow, int pColumn){
+        int[] starts = new int[ROW_OFFSETS.length];
+        int numStarts = 0;
+        for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+            int neighbour = passableNeighbour(pRow + ROW_OFFSETS[direction], pColumn + COLUMN_OFFSETS[direction]);
+            if(neighbour >= 0){
+                starts[numStarts++] = neighbour;
+            }
+        }
+        if(numStarts < 2){
+            return;
+        }
+        int firstStamp = aStamp + 1;
+        aStamp += numStarts;
+        if(aStamp < 0){
+            //Stamps wrapped around, so old marks could be mistaken for new ones.
+            Arrays.fill(aMarks, 0);
+            firstStamp = 1;
+            aStamp = numStarts;
+        }
+        int[][] visited = new int[numStarts][];
+        int[] sizes = new int[numStarts];
+        int[] heads = new int[numStarts];
+        int[] groups = new int[numStarts];
+        for(int i = 0; i < numStarts; i++){
+            groups[i] = i;
+            visited[i] = new int[16];
+            visited[i][0] = starts[i];
+            sizes[i] = 1;
+            aMarks[starts[i]] = firstStamp + i;
+        }
+        int numColumns = aMap.getNumColumns();
+        while(countSearchingGroups(groups, heads, sizes, visited) > 1){
+            for(int i = 0; i < numStarts; i++){
+                if(groupOf(groups, i) != i || !isSearching(groups, i, heads, sizes, visited)){
+                    continue;
+                }
+                //A group advances through the first of its searches that still has squares.
+                int search = i;
+                for(int j = 0; j < numStarts; j++){
+                    if(groupOf(groups, j) == i && heads[j] < sizes[j]){
+                        search = j;
+                        break;
+                    }
+                }
+                int cell = visited[search][heads[search]++];
+                int row = cell / numColumns;
+                int column = cell % numColumns;
+                for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+                    int neighbour = passableNeighbour(row + ROW_OFFSETS[direction], column + COLUMN_OFFSETS[direction]);
+                    if(neighbour < 0){
+                        continue;
+                    }
+                    int mark = aMarks[neighbour] - firstStamp;
+                    if(mark >= 0 && mark < numStarts){
+                        //The group of this search may have been merged already while looking at the other neighbours.
+                        int group = groupOf(groups, search);
+                        int other = groupOf(groups, mark);
+                        if(other != group){
+                            groups[Math.max(other, group)] = Math.min(other, group);
+                        }
+                        continue;
+                    }
+                    aMarks[neighbour] = firstStamp + search;
+                    if(sizes[search] == visited[search].length){
+                        visited[search] = Arrays.copyOf(visited[search], sizes[search] * 2);
+                    }
+                    visited[search][sizes[search]++] = neighbour;
+                }
+            }
+        }
+        //Every group that ran out of squares is cut off from the rest and gets a new label.
+        for(int i = 0; i < numStarts; i++){
+            if(groupOf(groups, i) != i || isSearching(groups, i, heads, sizes, visited)){
+                continue;
+            }
+            int label = newLabel();
+            for(int j = 0; j < numStarts; j++){
+                if(groupOf(groups, j) == i){
+                    for(int k = 0; k < sizes[j]; k++){
+                        aLabels[visited[j][k]] = label;
+                    }
+                }
+            }
+        }
+    }
+
+    private int countSearchingGroups(int[] pGroups, int[] pHeads, int[] pSizes, int[][] pVisited){
+        int count = 0;
+        for(int i = 0; i < pGroups.length; i++){
+            if(groupOf(pGroups, i) == i && isSearching(pGroups, i, pHeads, pSizes, pVisited)){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A method to test if any search of a group still has squares to search.
+     */
+    private static boolean isSearching(int[] pGroups, int pGroup, int[] pHeads, int[] pSizes, int[][] pVisited){
+        for(int j = 0; j < pGroups.length; j++){
+            if(groupOf(pGroups, j) == pGroup && pHeads[j] < pSizes[j]){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int groupOf(int[] pGroups, int pSearch){
+        while(pGroups[pSearch] != pSearch){
+            pSearch = pGroups[pSearch];
+        }
+        return pSearch;
+    }
+
+    private int newLabel(){
+        if(aNumLabels == aParents.length){
+            aParents = Arrays.copyOf(aParents, aNumLabels * 2);
+        }
+        aParents[aNumLabels] = aNumLabels;
+        return aNumLabels++;
+    }
+
+    /**
+     * A method to get the label that a label was merged into, halving the path to it on the way.
+     */
+    private int find(int pLabel){
+        while(pLabel != WALL && aParents[pLabel] != pLabel){
+            aParents[pLabel] = aParents[aParents[pLabel]];
+            pLabel = aParents[pLabel];
+        }
+        return pLabel;
+    }
+
+    /**
+     * A method to get the cell of a square if it is inside the map and passable.
+     * @return The cell of the square, or -1.
+     */
+    private int passableNeighbour(int pRow, int pColumn){
+        if(pRow < 0 || pRow >= aMap.getNumRows() || pColumn < 0 || pColumn >= aMap.getNumColumns()
+                || !aMap.isPassable(pRow, pColumn)){
+            return -1;
+        }
+        return pRow * aMap.getNumColumns() + pColumn;
+    }
+}
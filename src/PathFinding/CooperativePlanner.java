@@ -0,0 +1,417 @@
+package PathFinding;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A planner that routes many agents over the same map without collisions (Cooperative A*). Every agent is planned
+ * with an A* over squares and time steps, where an agent may wait on its square as well as step to a neighbour, against
+ * the squares that the agents planned before it reserved in a ReservationTable. A move is refused if another agent
+ * has the square entered at that time, or if that agent comes the other way at the same time (a swap). A path is
+ * complete when it ends on the destination and the agent can stay there for good, in which case it is parked there
+ * (see isComplete). A path that can't reach the destination within the window of the table ends on the square closest
+ * to it other than the destination itself, since the agent couldn't stay there, and the agent must be planned again
+ * before the path runs out.
+ * The search is guided by the true distance to the destination, ignoring other agents, which a search backwards from
+ * the destination works out as far as needed and no further (Reverse Resumable A*). Squares are entered with
+ * horizontal and vertical steps that, like waits, take one time step each; the costs of squares are ignored.
+ * Searches only read the table, so any number of threads may plan at once; the reservations of a path are checked
+ * again and made while holding the lock of the table, and the agent is searched again if another thread took one of
+ * its squares in the meantime.
+ */
+public class CooperativePlanner {
+    private static final int[] ROW_OFFSETS = {0, -1, 0, 1, 0};
+    private static final int[] COLUMN_OFFSETS = {0, 0, -1, 0, 1};
+    //A search of an agent gives up on the destination after this many expansions and takes the closest square reached.
+    private static final int MAX_EXPANSIONS = 1 << 20;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final int[] NO_PATH = new int[0];
+
+    private final GridMap aMap;
+    private final ReservationTable aReservations;
+    private final ConcurrentHashMap<Integer, Plan> aPlans;
+    //The backward search of the distances to the destination, one per planning thread.
+    private final ThreadLocal<SearchContext> aDistanceContexts;
+
+    /**
+     * A constructor to create a planner for agents on a map that doesn't change while they move.
+     * @param pMap The map.
+     * @param pReservations The table of reserved squares, which may be shared with other planners of the same map.
+     */
+    public CooperativePlanner(GridMap pMap, ReservationTable pReservations){
+        aMap = pMap;
+        aReservations = pReservations;
+        aPlans = new ConcurrentHashMap<>();
+        aDistanceContexts = ThreadLocal.withInitial(() -> new SearchContext(pMap.getNumCells()));
+    }
+
+    /**
+     * A method to plan the path of an agent and reserve its squares, replacing the previous plan of the agent.
+     * @param pAgent The agent, at least 0.
+     * @param pQuery The square the agent is on at the start time and its destination.
+     * @param pStartTime The time step to start at, which must be in the window of the table.
+     * @return The square of the agent at every time step from the start time on, as row-major cells. Only a complete
+     * path (see isComplete) leaves the agent on its square for good; any other one must be planned again before it
+     * runs out, even if it ends on the destination, which happens when the agent starts there and can't stay. The
+     * array is empty if the agent's square at the start time is taken by another agent or its squares kept being
+     * taken by other threads or couldn't be reserved.
+     */
+    public int[] plan(int pAgent, PathQuery pQuery, int pStartTime){
+        assert aReservations.isInWindow(pStartTime);
+        int numColumns = aMap.getNumColumns();
+        int source = pQuery.getSourceRow() * numColumns + pQuery.getSourceColumn();
+        int destination = pQuery.getDestinationRow() * numColumns + pQuery.getDestinationColumn();
+        release(pAgent);
+        for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++){
+            int[] path = search(pAgent, source, destination, pStartTime);
+            if(path.length == 0){
+                return NO_PATH;
+            }
+            boolean endsOnDestination = path[path.length - 1] == destination;
+            synchronized(aReservations){
+                boolean complete = endsOnDestination
+                        && aReservations.isFreeFrom(destination, pStartTime + path.length - 1, pAgent);
+                //The search only moves an agent onto its destination if it can stay there, so another thread took the
+                //destination in the meantime; only an agent that starts there and can't leave is left on it.
+                if((complete || !endsOnDestination || path.length == 1) && isFree(pAgent, path, pStartTime)
+                        && commit(pAgent, path, pStartTime, complete)){
+                    aPlans.put(pAgent, new Plan(path, pStartTime, complete));
+                    return path;
+                }
+            }
+        }
+        return NO_PATH;
+    }
+
+    /**
+     * A method to test if the plan of an agent ends with the agent parked on its destination, so that it never has to
+     * be planned again.
+     * @param pAgent The agent.
+     * @return The boolean corresponding to if the agent has a plan and it is complete.
+     */
+    public boolean isComplete(int pAgent){
+        Plan plan = aPlans.get(pAgent);
+        return plan != null && plan.aComplete;
+    }
+
+    /**
+     * A method to release the squares reserved by the plan of an agent, e.g. when it leaves the map.
+     * @param pAgent The agent.
+     */
+    public void release(int pAgent){
+        Plan plan = aPlans.remove(pAgent);
+        if(plan == null){
+            return;
+        }
+        for(int i = 0; i < plan.aCells.length; i++){
+            aReservations.release(plan.aCells[i], plan.aStartTime + i, pAgent);
+        }
+        if(plan.aComplete){
+            aReservations.unpark(plan.aCells[plan.aCells.length - 1], pAgent);
+        }
+    }
+
+    /**
+     * A method to reserve the squares of a path and park the agent at its end if it is complete, undoing whatever was
+     * already reserved if a square can't be, so that a failed plan leaves no reservations behind.
+     * @return The boolean corresponding to if the whole path is now reserved.
+     */
+    private boolean commit(int pAgent, int[] pPath, int pStartTime, boolean pComplete){
+        int numReserved = 0;
+        while(numReserved < pPath.length
+                && aReservations.reserve(pPath[numReserved], pStartTime + numReserved, pAgent)){
+            numReserved++;
+        }
+        if(numReserved == pPath.length
+                && (!pComplete || aReservations.park(pPath[pPath.length - 1], pStartTime + pPath.length - 1, pAgent))){
+            return true;
+        }
+        for(int i = 0; i < numReserved; i++){
+            aReservations.release(pPath[i], pStartTime + i, pAgent);
+        }
+        return false;
+    }
+
+    /**
+     * A method to test if every move of a path is still allowed by the reservations of the other agents.
+     */
+    private boolean isFree(int pAgent, int[] pPath, int pStartTime){
+        for(int i = 0; i < pPath.length; i++){
+            if(!canEnter(pAgent, i == 0 ? pPath[0] : pPath[i - 1], pPath[i], pStartTime + i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to test if an agent may move from one square to another (or stay on it) and be there at a time step.
+     */
+    private boolean canEnter(int pAgent, int pFrom, int pTo, int pTime){
+        int agent = aReservations.getAgent(pTo, pTime);
+        if(agent != ReservationTable.NO_AGENT && agent != pAgent){
+            return false;
+        }
+        if(pFrom == pTo){
+            return true;
+        }
+        //Two agents may not swap squares, since they would pass through each other.
+        int oncoming = aReservations.getAgent(pTo, pTime - 1);
+        return oncoming == ReservationTable.NO_AGENT || oncoming == pAgent
+                || aReservations.getAgent(pFrom, pTime) != oncoming;
+    }
+
+    /**
+     * A method to search squares and time steps for the path of an agent, reading the reservations of the others.
+     * @return The square of the agent at every time step from the start on, or an empty array if its square at the
+     * start is taken.
+     */
+    private int[] search(int pAgent, int pSource, int pDestination, int pStartTime){
+        if(aReservations.getAgent(pSource, pStartTime) != ReservationTable.NO_AGENT
+                && aReservations.getAgent(pSource, pStartTime) != pAgent){
+            return NO_PATH;
+        }
+        int numRows = aMap.getNumRows();
+        int numColumns = aMap.getNumColumns();
+        int lastTime = aReservations.getNow() + aReservations.getHorizon() - 1;
+        SearchContext distances = aDistanceContexts.get();
+        distances.reset();
+        distances.reach(pDestination, 0, SearchContext.NO_PARENT);
+        distances.getOpenSet().insert(pDestination, OpenSet.key(manhattan(pDestination, pSource), 0));
+        int sourceDistance = distance(distances, pSource, pSource);
+        if(sourceDistance == SearchContext.UNREACHED){
+            return new int[]{pSource};
+        }
+        Search search = new Search();
+        search.add(pSource, pStartTime, -1, sourceDistance);
+        //The destination is never the closest square of an incomplete path, since the agent can't stay there; if the
+        //agent starts there and can't reach any other square it has to stay for now.
+        int best = 0;
+        int bestDistance = pSource == pDestination ? Integer.MAX_VALUE : sourceDistance;
+        int numExpanded = 0;
+        int found = -1;
+        while(!search.isEmpty() && numExpanded < MAX_EXPANSIONS){
+            int node = search.poll();
+            int cell = search.aCells[node];
+            int time = search.aTimes[node];
+            int distance = distance(distances, cell, pSource);
+            if(cell == pDestination && aReservations.isFreeFrom(pDestination, time, pAgent)){
+                found = node;
+                break;
+            }
+            if(cell != pDestination
+                    && (distance < bestDistance || distance == bestDistance && time > search.aTimes[best])){
+                best = node;
+                bestDistance = distance;
+            }
+            numExpanded++;
+            if(time == lastTime){
+                continue;
+            }
+            int row = cell / numColumns;
+            int column = cell - row * numColumns;
+            for(int move = 0; move < ROW_OFFSETS.length; move++){
+                int adjacentRow = row + ROW_OFFSETS[move];
+                int adjacentColumn = column + COLUMN_OFFSETS[move];
+                if(adjacentRow < 0 || adjacentRow >= numRows || adjacentColumn < 0 || adjacentColumn >= numColumns
+                        || !aMap.isPassable(adjacentRow, adjacentColumn)){
+                    continue;
+                }
+                int adjacentCell = adjacentRow * numColumns + adjacentColumn;
+                //Every move takes one time step, so a square at a time step is always reached at the same cost.
+                if(search.contains(adjacentCell, time + 1) || !canEnter(pAgent, cell, adjacentCell, time + 1)){
+                    continue;
+                }
+                int adjacentDistance = distance(distances, adjacentCell, pSource);
+                if(adjacentDistance != SearchContext.UNREACHED){
+                    search.add(adjacentCell, time + 1, node, time + 1 - pStartTime + adjacentDistance);
+                }
+            }
+        }
+        int last = found >= 0 ? found : best;
+        int[] path = new int[search.aTimes[last] - pStartTime + 1];
+        for(int node = last, i = path.length - 1; i >= 0; node = search.aParents[node], i--){
+            path[i] = search.aCells[node];
+        }
+        return path;
+    }
+
+    /**
+     * A method to get the distance from a square to the destination, resuming the backward search from the destination
+     * until the square is closed. The search is ordered by the distance to the source of the agent, so it looks at the
+     * squares between the two first.
+     * @return The number of steps, or SearchContext.UNREACHED if the square can't reach the destination.
+     */
+    private int distance(SearchContext pDistances, int pCell, int pSource){
+        OpenSet openList = pDistances.getOpenSet();
+        int numRows = aMap.getNumRows();
+        int numColumns = aMap.getNumColumns();
+        while(!pDistances.isClosed(pCell)){
+            if(openList.isEmpty()){
+                return SearchContext.UNREACHED;
+            }
+            int cell = openList.poll();
+            pDistances.close(cell);
+            int row = cell / numColumns;
+            int column = cell - row * numColumns;
+            int distance = pDistances.getMovesFromStart(cell) + 1;
+            for(int move = 1; move < ROW_OFFSETS.length; move++){
+                int adjacentRow = row + ROW_OFFSETS[move];
+                int adjacentColumn = column + COLUMN_OFFSETS[move];
+                if(adjacentRow < 0 || adjacentRow >= numRows || adjacentColumn < 0 || adjacentColumn >= numColumns
+                        || !aMap.isPassable(adjacentRow, adjacentColumn)){
+                    continue;
+                }
+                int adjacentCell = adjacentRow * numColumns + adjacentColumn;
+                int existingDistance = pDistances.getMovesFromStart(adjacentCell);
+                if(distance < existingDistance){
+                    int estimate = manhattan(adjacentCell, pSource);
+                    pDistances.reach(adjacentCell, distance, cell);
+                    if(existingDistance == SearchContext.UNREACHED){
+                        openList.insert(adjacentCell, OpenSet.key(distance + estimate, estimate));
+                    }else{
+                        openList.decreaseKey(adjacentCell, OpenSet.key(distance + estimate, estimate));
+                    }
+                }
+            }
+        }
+        return pDistances.getMovesFromStart(pCell);
+    }
+
+    private int manhattan(int pCell, int pOther){
+        int numColumns = aMap.getNumColumns();
+        return Math.abs(pCell / numColumns - pOther / numColumns) + Math.abs(pCell % numColumns - pOther % numColumns);
+    }
+
+    /**
+     * The reservations made for the plan of an agent.
+     */
+    private static final class Plan {
+        private final int[] aCells;
+        private final int aStartTime;
+        private final boolean aComplete;
+
+        private Plan(int[] pCells, int pStartTime, boolean pComplete){
+            aCells = pCells;
+            aStartTime = pStartTime;
+            aComplete = pComplete;
+        }
+    }
+
+    /**
+     * The nodes of one search, each a square at a time step, in flat arrays together with a hash index of the nodes by
+     * square and time step and a binary heap of the open nodes ordered by F, then by the later time step.
+     */
+    private static final class Search {
+        private int[] aCells = new int[256];
+        private int[] aTimes = new int[256];
+        private int[] aParents = new int[256];
+        private int aNumNodes;
+        private long[] aIndexKeys = new long[512];
+        private int[] aIndexNodes = new int[512];
+        private long[] aHeapKeys = new long[256];
+        private int[] aHeapNodes = new int[256];
+        private int aHeapSize;
+
+        private boolean isEmpty(){
+            return aHeapSize == 0;
+        }
+
+        private boolean contains(int pCell, int pTime){
+            long key = stateKey(pCell, pTime);
+            int mask = aIndexKeys.length - 1;
+            for(int i = hash(key) & mask; aIndexKeys[i] != 0; i = (i + 1) & mask){
+                if(aIndexKeys[i] == key){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(int pCell, int pTime, int pParent, int pF){
+            if(aNumNodes == aCells.length){
+                aCells = Arrays.copyOf(aCells, aNumNodes * 2);
+                aTimes = Arrays.copyOf(aTimes, aNumNodes * 2);
+                aParents = Arrays.copyOf(aParents, aNumNodes * 2);
+            }
+            int node = aNumNodes++;
+            aCells[node] = pCell;
+            aTimes[node] = pTime;
+            aParents[node] = pParent;
+            if(aNumNodes * 2 > aIndexKeys.length){
+                growIndex();
+            }
+            index(stateKey(pCell, pTime), node);
+            push(((long) pF << 32) | (Integer.MAX_VALUE - pTime), node);
+        }
+
+        private int poll(){
+            int node = aHeapNodes[0];
+            aHeapSize--;
+            long key = aHeapKeys[aHeapSize];
+            int last = aHeapNodes[aHeapSize];
+            int position = 0;
+            for(int child = 1; child < aHeapSize; child = 2 * position + 1){
+                if(child + 1 < aHeapSize && aHeapKeys[child + 1] < aHeapKeys[child]){
+                    child++;
+                }
+                if(key <= aHeapKeys[child]){
+                    break;
+                }
+                aHeapKeys[position] = aHeapKeys[child];
+                aHeapNodes[position] = aHeapNodes[child];
+                position = child;
+            }
+            aHeapKeys[position] = key;
+            aHeapNodes[position] = last;
+            return node;
+        }
+
+        private void push(long pKey, int pNode){
+            if(aHeapSize == aHeapKeys.length){
+                aHeapKeys = Arrays.copyOf(aHeapKeys, aHeapSize * 2);
+                aHeapNodes = Arrays.copyOf(aHeapNodes, aHeapSize * 2);
+            }
+            int position = aHeapSize++;
+            while(position > 0 && aHeapKeys[(position - 1) >>> 1] > pKey){
+                aHeapKeys[position] = aHeapKeys[(position - 1) >>> 1];
+                aHeapNodes[position] = aHeapNodes[(position - 1) >>> 1];
+                position = (position - 1) >>> 1;
+            }
+            aHeapKeys[position] = pKey;
+            aHeapNodes[position] = pNode;
+        }
+
+        private void index(long pKey, int pNode){
+            int mask = aIndexKeys.length - 1;
+            int i = hash(pKey) & mask;
+            while(aIndexKeys[i] != 0){
+                i = (i + 1) & mask;
+            }
+            aIndexKeys[i] = pKey;
+            aIndexNodes[i] = pNode;
+        }
+
+        private void growIndex(){
+            long[] keys = aIndexKeys;
+            int[] nodes = aIndexNodes;
+            aIndexKeys = new long[keys.length * 2];
+            aIndexNodes = new int[keys.length * 2];
+            for(int i = 0; i < keys.length; i++){
+                if(keys[i] != 0){
+                    index(keys[i], nodes[i]);
+                }
+            }
+        }
+
+        //Keys are never 0, which marks an empty entry of the index.
+        private static long stateKey(int pCell, int pTime){
+            return ((long) pTime << 32) | ((pCell + 1) & 0xFFFFFFFFL);
+        }
+
+        private static int hash(long pKey){
+            long hash = pKey * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
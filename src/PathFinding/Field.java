@@ -1,12 +1,25 @@
 package PathFinding;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Optional;
 
-public class Field {
+public class Field implements GridMap {
+    public static final int MAX_COST = 256;
+    private static final int NONE = -1;
     private final int aNumRows;
     private final int aNumColumns;
-    private Optional<Square> aSource;
-    private Optional<Square> aDestination;
+    //Walls are stored as one bit per cell, in row-major order, so that even very large fields fit in memory.
+    private final long[] aBlocked;
+    //Path squares are few compared to the size of the field, so they are kept in a BitSet that grows as needed.
+    private final BitSet aPath;
+    //Costs are stored as cost - 1 in one byte per cell, and only once a square costs more than 1.
+    private byte[] aCosts;
+    private int aSource;
+    private int aDestination;
+    //Bumped whenever a square changes passability or cost.
+    private long aVersion;
+    private final ArrayList<FieldListener> aListeners;
 
     /**
      * A constructor to create a field with all accessible squares and no source or destination.
@@ -14,26 +27,186 @@ public class Field {
      * @param pNumColumns The number of columns that the field has.
      */
     public Field(int pNumRows, int pNumColumns){
-        assert pNumRows > 0 && pNumColumns > 0;
+        this(pNumRows, pNumColumns, new long[wordsFor(pNumRows, pNumColumns)], null);
+    }
+
+    /**
+     * A constructor to create a field with the same walls as a map and no source or destination.
+     * @param pMap The map to copy the walls of.
+     */
+    public Field(GridMap pMap){
+        this(pMap.getNumRows(), pMap.getNumColumns());
+        for(int i = 0; i < aNumRows; i++){
+            for(int j = 0; j < aNumColumns; j++){
+                if(!pMap.isPassable(i, j)){
+                    makeInaccessible(i, j);
+                }
+                if(pMap.getCost(i, j) != 1){
+                    setCost(i, j, pMap.getCost(i, j));
+                }
+            }
+        }
+    }
+
+    /**
+     * A constructor to create a field around an existing wall bitset and costs, which the field takes ownership of.
+     * @param pNumRows The number of rows that the field has.
+     * @param pNumColumns The number of columns that the field has.
+     * @param pBlocked The walls of the field, one bit per row-major cell.
+     * @param pCosts The cost of every row-major cell minus 1, or null if every cell costs 1.
+     */
+    Field(int pNumRows, int pNumColumns, long[] pBlocked, byte[] pCosts){
+        assert pNumRows > 0 && pNumColumns > 0 && (long) pNumRows * pNumColumns <= Integer.MAX_VALUE;
+        assert pBlocked.length == wordsFor(pNumRows, pNumColumns);
+        assert pCosts == null || pCosts.length == pNumRows * pNumColumns;
         aNumRows = pNumRows;
         aNumColumns = pNumColumns;
-        aSource = Optional.empty();
-        aDestination = Optional.empty();
-        for(int i = 0; i< pNumColumns; i++){
-            for(int j = 0; j < pNumRows; j++){
-                Square.getSquare(i,j);
+        aBlocked = pBlocked;
+        aCosts = pCosts;
+        aPath = new BitSet();
+        aSource = NONE;
+        aDestination = NONE;
+        aListeners = new ArrayList<>();
+    }
+
+    /**
+     * A method to get the number of longs needed to hold one bit per cell of a field.
+     * @param pNumRows The number of rows of the field.
+     * @param pNumColumns The number of columns of the field.
+     * @return The number of longs.
+     */
+    static int wordsFor(int pNumRows, int pNumColumns){
+        return (int) (((long) pNumRows * pNumColumns + 63) >>> 6);
+    }
+
+    /**
+     * A method to get the square at a certain position of the field. Squares are lightweight views of a position
+     * whose status is stored by the field, so two squares of the same position are equal.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The square at that position.
+     */
+    public Square getSquare(int pRow, int pColumn){
+        assert pRow >= 0 && pRow < aNumRows && pColumn >= 0 && pColumn < aNumColumns;
+        return new Square(this, pColumn, pRow);
+    }
+
+    /**
+     * A method to get the status of a square of the field.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The status of the square.
+     */
+    public Status getStatus(int pRow, int pColumn){
+        int cell = cellOf(pRow, pColumn);
+        if(cell == aSource){
+            return Status.SOURCE;
+        }else if(cell == aDestination){
+            return Status.DESTINATION;
+        }else if(isBlocked(cell)){
+            return Status.INACCESSIBLE;
+        }else if(aPath.get(cell)){
+            return Status.PATH;
+        }else{
+            return Status.ACCESSIBLE;
+        }
+    }
+
+    /**
+     * A method to set the status of a square of the field, replacing whatever status it had.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @param pStatus The desired status of the square.
+     */
+    public void setStatus(int pRow, int pColumn, Status pStatus){
+        int cell = cellOf(pRow, pColumn);
+        if(aSource == cell){
+            aSource = NONE;
+        }
+        if(aDestination == cell){
+            aDestination = NONE;
+        }
+        boolean wasBlocked = isBlocked(cell);
+        aBlocked[cell >>> 6] &= ~(1L << cell);
+        aPath.clear(cell);
+        switch(pStatus){
+            case SOURCE:
+                aSource = cell;
+                break;
+            case DESTINATION:
+                aDestination = cell;
+                break;
+            case INACCESSIBLE:
+                aBlocked[cell >>> 6] |= 1L << cell;
+                break;
+            case PATH:
+                aPath.set(cell);
+                break;
+            default:
+                break;
+        }
+        if(wasBlocked != isBlocked(cell)){
+            aVersion++;
+            for(FieldListener listener : aListeners){
+                listener.squareChanged(pRow, pColumn, wasBlocked);
             }
         }
     }
 
+    /**
+     * A method to set the cost of entering a square, e.g. to make a path avoid rough terrain.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @param pCost The cost of entering the square, from 1 to MAX_COST.
+     */
+    public void setCost(int pRow, int pColumn, int pCost){
+        assert pCost >= 1 && pCost <= MAX_COST;
+        if(aCosts == null){
+            if(pCost == 1){
+                return;
+            }
+            aCosts = new byte[aNumRows * aNumColumns];
+        }
+        int cell = cellOf(pRow, pColumn);
+        if(aCosts[cell] != (byte) (pCost - 1)){
+            aCosts[cell] = (byte) (pCost - 1);
+            aVersion++;
+        }
+    }
+
+    @Override
+    public int getCost(int pRow, int pColumn){
+        return aCosts == null ? 1 : (aCosts[cellOf(pRow, pColumn)] & 0xFF) + 1;
+    }
+
+    @Override
+    public long getVersion(){
+        return aVersion;
+    }
+
+    /**
+     * A method to add a listener that is told when squares of the field become passable or impassable.
+     * @param pListener The listener to add.
+     */
+    public void addListener(FieldListener pListener){
+        aListeners.add(pListener);
+    }
+
+    /**
+     * A method to remove a listener added by addListener.
+     * @param pListener The listener to remove.
+     */
+    public void removeListener(FieldListener pListener){
+        aListeners.remove(pListener);
+    }
+
     /**
      * A method to set the source square of the field.
      * @param pRow The row value of the source.
      * @param pColumn The column value of the source.
      */
     public void setSource(int pRow, int pColumn){
-        Square.getSquare(pRow, pColumn).setStatus(Status.SOURCE);
-        aSource = Optional.of(Square.getSquare(pRow, pColumn));
+        setStatus(pRow, pColumn, Status.SOURCE);
     }
 
     /**
@@ -41,7 +214,7 @@ public class Field {
      * @return The Optional destination square.
      */
     public Optional<Square> getDestination(){
-        return aDestination;
+        return aDestination == NONE ? Optional.empty() : Optional.of(squareOf(aDestination));
     }
 
     /**
@@ -49,7 +222,7 @@ public class Field {
      * @return The Optional source square.
      */
     public Optional<Square> getSource(){
-        return aSource;
+        return aSource == NONE ? Optional.empty() : Optional.of(squareOf(aSource));
     }
 
     /**
@@ -59,7 +232,7 @@ public class Field {
      * @return The boolean corresponding to if this square is the source or not.
      */
     public boolean isSource(int pRow, int pColumn){
-        return Square.getSquare(pRow, pColumn).getStatus() == Status.SOURCE;
+        return cellOf(pRow, pColumn) == aSource;
     }
 
     /**
@@ -69,7 +242,7 @@ public class Field {
      * @return The boolean corresponding to if this squar eis the source or not.
      */
     public boolean isDestination(int pRow, int pColumn){
-        return Square.getSquare(pRow, pColumn).getStatus() == Status.DESTINATION;
+        return cellOf(pRow, pColumn) == aDestination;
     }
 
     /**
@@ -78,16 +251,15 @@ public class Field {
      * @param pColumn The column of the destination square.
      */
     public void setDestination(int pRow, int pColumn){
-        Square.getSquare(pRow, pColumn).setStatus(Status.DESTINATION);
-        aDestination = Optional.of(Square.getSquare(pRow, pColumn));
+        setStatus(pRow, pColumn, Status.DESTINATION);
     }
 
     /**
      * A method to reset the field
      */
     public void fieldReset(){
-        aDestination = Optional.empty();
-        aSource = Optional.empty();
+        aDestination = NONE;
+        aSource = NONE;
     }
 
     /**
@@ -96,7 +268,7 @@ public class Field {
      * @param pColumn the column of inaccessible square
      */
     public void makeInaccessible(int pRow, int pColumn){
-        Square.getSquare(pRow, pColumn).setStatus(Status.INACCESSIBLE);
+        setStatus(pRow, pColumn, Status.INACCESSIBLE);
     }
 
     /**
@@ -105,7 +277,7 @@ public class Field {
      * @param pColumn The column of the accessible square.
      */
     public void makeAccessible(int pRow, int pColumn){
-        Square.getSquare(pRow, pColumn).setStatus(Status.ACCESSIBLE);
+        setStatus(pRow, pColumn, Status.ACCESSIBLE);
     }
 
     /**
@@ -115,7 +287,18 @@ public class Field {
      * @return The boolean value corresponding to if the square is accessible.
      */
     public boolean isAccessible(int pRow, int pColumn){
-        return Square.getSquare(pRow, pColumn).getStatus() == Status.ACCESSIBLE;
+        return getStatus(pRow, pColumn) == Status.ACCESSIBLE;
+    }
+
+    /**
+     * A method to test if a square in the field may be part of a path, which is every square that is not inaccessible.
+     * @param pRow The row of the square to test.
+     * @param pColumn The column of the square to test.
+     * @return The boolean value corresponding to if a path may go through the square.
+     */
+    @Override
+    public boolean isPassable(int pRow, int pColumn){
+        return !isBlocked(cellOf(pRow, pColumn));
     }
 
     /**
@@ -125,13 +308,14 @@ public class Field {
      * @return The bolean value corresponding to if the square is accessible.
      */
     public boolean isPath(int pRow, int pColumn){
-        return Square.getSquare(pRow, pColumn).getStatus() == Status.PATH;
+        return getStatus(pRow, pColumn) == Status.PATH;
     }
 
     /**
      * A method to get the number of rows in the field.
      * @return the number of rows int he field.
      */
+    @Override
     public int getNumRows(){
         return aNumRows;
     }
@@ -140,7 +324,29 @@ public class Field {
      * A method to get the number of columns in the field.
      * @return The number of columns in the field.
      */
+    @Override
     public int getNumColumns(){
         return aNumColumns;
     }
+
+    /**
+     * A method to take an immutable snapshot of the walls of the field that may be searched by several threads at once.
+     * @return The snapshot of the field.
+     */
+    public MapSnapshot snapshot(){
+        return new MapSnapshot(aNumRows, aNumColumns, aBlocked.clone(), aCosts == null ? null : aCosts.clone());
+    }
+
+    private int cellOf(int pRow, int pColumn){
+        assert pRow >= 0 && pRow < aNumRows && pColumn >= 0 && pColumn < aNumColumns;
+        return pRow * aNumColumns + pColumn;
+    }
+
+    private Square squareOf(int pCell){
+        return new Square(this, pCell % aNumColumns, pCell / aNumColumns);
+    }
+
+    private boolean isBlocked(int pCell){
+        return (aBlocked[pCell >>> 6] & (1L << pCell)) != 0;
+    }
 }
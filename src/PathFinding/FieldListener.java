@@ -0,0 +1,15 @@
+package PathFinding;
+
+/**
+ * A listener that is told whenever a square of a field becomes passable or impassable,
+ * e.g. through Field.makeInaccessible and Field.makeAccessible.
+ */
+public interface FieldListener {
+    /**
+     * A method called after a square of the field has changed between passable and impassable.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @param pPassable The boolean corresponding to if the square is now passable.
+     */
+    void squareChanged(int pRow, int pColumn, boolean pPassable);
+}
@@ -0,0 +1,224 @@
+package PathFinding;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * A view of a field drawn onto a single canvas. Only the squares inside the viewport are drawn, one screen pixel at a
+ * time into an image that is reused between frames, so drawing takes time in the size of the canvas and not of the
+ * field. A frame is only drawn when something changed since the last one: call refresh after changing the field.
+ * The scroll wheel zooms around the pointer and dragging with the secondary or middle button pans the view.
+ * Squares expanded by a running search can be shown as well: any thread may hand them to addExpanded, and they are
+ * taken over at most once per frame, so the search is never held up by drawing.
+ */
+public class FieldView extends Canvas {
+    private static final int ACCESSIBLE_COLOR = 0xFFE8E8E8;
+    private static final int INACCESSIBLE_COLOR = 0xFF528B8B;
+    private static final int PATH_COLOR = 0xFF000000;
+    private static final int EXPANDED_COLOR = 0xFFF5D78E;
+    private static final int ENDPOINT_COLOR = 0xFFFFFFFF;
+    private static final int GRID_COLOR = 0xFFB0B0B0;
+    private static final int BACKGROUND_COLOR = 0xFF63B0EF;
+    private static final double MIN_CELL_SIZE = 0.05;
+    private static final double MAX_CELL_SIZE = 60;
+    private static final double ZOOM_FACTOR = 1.1;
+    //Grid lines and the letters of the source and destination are only drawn once squares are this many pixels wide.
+    private static final double MIN_DETAIL_CELL_SIZE = 12;
+
+    private final Field aField;
+    private final int aWidth;
+    private final int aHeight;
+    private final WritableImage aImage;
+    private final int[] aPixels;
+    //The size of a square in pixels and the position of the top left corner of the viewport in field pixels.
+    private double aCellSize;
+    private double aOffsetX;
+    private double aOffsetY;
+    private double aDragX;
+    private double aDragY;
+    private boolean aDirty;
+    private BiConsumer<Integer, Integer> aOnSquareClicked;
+    private final BitSet aExpanded;
+    private final ConcurrentLinkedQueue<int[]> aPendingExpanded;
+
+    /**
+     * A constructor to create a view of a field that shows the whole field at first.
+     * @param pField The field to show.
+     * @param pWidth The width of the view in pixels.
+     * @param pHeight The height of the view in pixels.
+     */
+    public FieldView(Field pField, int pWidth, int pHeight){
+        super(pWidth, pHeight);
+        aField = pField;
+        aWidth = pWidth;
+        aHeight = pHeight;
+        aImage = new WritableImage(pWidth, pHeight);
+        aPixels = new int[pWidth * pHeight];
+        aCellSize = Math.min((double) pWidth / pField.getNumColumns(), (double) pHeight / pField.getNumRows());
+        aDirty = true;
+        aExpanded = new BitSet();
+        aPendingExpanded = new ConcurrentLinkedQueue<>();
+        setOnScroll(e -> {
+            zoom(e.getDeltaY() > 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR, e.getX(), e.getY());
+            e.consume();
+        });
+        setOnMousePressed(e -> {
+            aDragX = e.getX();
+            aDragY = e.getY();
+        });
+        setOnMouseDragged(e -> {
+            if(e.isSecondaryButtonDown() || e.isMiddleButtonDown()){
+                aOffsetX -= e.getX() - aDragX;
+                aOffsetY -= e.getY() - aDragY;
+                aDragX = e.getX();
+                aDragY = e.getY();
+                aDirty = true;
+            }
+        });
+        setOnMouseClicked(e -> {
+            if(e.getButton() != MouseButton.PRIMARY || !e.isStillSincePress() || aOnSquareClicked == null){
+                return;
+            }
+            int row = (int) Math.floor((e.getY() + aOffsetY) / aCellSize);
+            int column = (int) Math.floor((e.getX() + aOffsetX) / aCellSize);
+            if(row >= 0 && row < aField.getNumRows() && column >= 0 && column < aField.getNumColumns()){
+                aOnSquareClicked.accept(row, column);
+            }
+        });
+        new AnimationTimer(){
+            @Override
+            public void handle(long pNow){
+                for(int[] cells = aPendingExpanded.poll(); cells != null; cells = aPendingExpanded.poll()){
+                    for(int cell : cells){
+                        aExpanded.set(cell);
+                    }
+                    aDirty = true;
+                }
+                if(aDirty){
+                    aDirty = false;
+                    draw();
+                }
+            }
+        }.start();
+    }
+
+    /**
+     * A method to set what happens when a square is clicked with the primary button.
+     * @param pOnSquareClicked The action, given the row and column of the square.
+     */
+    public void setOnSquareClicked(BiConsumer<Integer, Integer> pOnSquareClicked){
+        aOnSquareClicked = pOnSquareClicked;
+    }
+
+    /**
+     * A method to have the view drawn again on the next frame, after the field has changed.
+     */
+    public void refresh(){
+        aDirty = true;
+    }
+
+    /**
+     * A method to show squares as expanded by a search. May be called from any thread.
+     * @param pCells The row-major cells of the squares, which the caller may not change afterwards.
+     */
+    public void addExpanded(int[] pCells){
+        aPendingExpanded.add(pCells);
+    }
+
+    /**
+     * A method to stop showing any square as expanded.
+     */
+    public void clearExpanded(){
+        aPendingExpanded.clear();
+        aExpanded.clear();
+        aDirty = true;
+    }
+
+    /**
+     * A method to zoom in or out while keeping the square under a point of the view in place.
+     * @param pFactor The factor to multiply the size of squares by.
+     * @param pX The horizontal position of the point in the view.
+     * @param pY The vertical position of the point in the view.
+     */
+    public void zoom(double pFactor, double pX, double pY){
+        double cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, aCellSize * pFactor));
+        double scale = cellSize / aCellSize;
+        aOffsetX = (aOffsetX + pX) * scale - pX;
+        aOffsetY = (aOffsetY + pY) * scale - pY;
+        aCellSize = cellSize;
+        aDirty = true;
+    }
+
+    /**
+     * A method to get the color of a square from its status.
+     */
+    private int colorOf(int pRow, int pColumn){
+        switch(aField.getStatus(pRow, pColumn)){
+            case INACCESSIBLE:
+                return INACCESSIBLE_COLOR;
+            case PATH:
+                return PATH_COLOR;
+            case SOURCE:
+            case DESTINATION:
+                return ENDPOINT_COLOR;
+            default:
+                return aExpanded.get(pRow * aField.getNumColumns() + pColumn) ? EXPANDED_COLOR : ACCESSIBLE_COLOR;
+        }
+    }
+
+    /**
+     * A method to draw the squares inside the viewport. Every pixel is mapped to the square under it, and since the
+     * squares of a row of pixels rarely change from one pixel to the next, the color is only looked up again when the
+     * square does.
+     */
+    private void draw(){
+        boolean detailed = aCellSize >= MIN_DETAIL_CELL_SIZE;
+        for(int y = 0; y < aHeight; y++){
+            double fieldY = y + aOffsetY;
+            int row = (int) Math.floor(fieldY / aCellSize);
+            boolean rowOutside = row < 0 || row >= aField.getNumRows();
+            boolean horizontalLine = detailed && fieldY - row * aCellSize < 1;
+            int lastColumn = Integer.MIN_VALUE;
+            int color = BACKGROUND_COLOR;
+            for(int x = 0; x < aWidth; x++){
+                double fieldX = x + aOffsetX;
+                int column = (int) Math.floor(fieldX / aCellSize);
+                if(column != lastColumn){
+                    lastColumn = column;
+                    color = rowOutside || column < 0 || column >= aField.getNumColumns()
+                            ? BACKGROUND_COLOR : colorOf(row, column);
+                }
+                boolean verticalLine = detailed && fieldX - column * aCellSize < 1;
+                aPixels[y * aWidth + x] = (horizontalLine || verticalLine) && color != BACKGROUND_COLOR
+                        ? GRID_COLOR : color;
+            }
+        }
+        aImage.getPixelWriter().setPixels(0, 0, aWidth, aHeight, PixelFormat.getIntArgbInstance(), aPixels, 0, aWidth);
+        GraphicsContext graphics = getGraphicsContext2D();
+        graphics.drawImage(aImage, 0, 0);
+        if(detailed){
+            graphics.setFill(Color.RED);
+            graphics.setTextAlign(TextAlignment.CENTER);
+            graphics.setTextBaseline(VPos.CENTER);
+            aField.getSource().ifPresent(square -> drawLetter(graphics, "S", square));
+            aField.getDestination().ifPresent(square -> drawLetter(graphics, "D", square));
+        }
+    }
+
+    private void drawLetter(GraphicsContext pGraphics, String pLetter, Square pSquare){
+        double x = (pSquare.getColumn() + 0.5) * aCellSize - aOffsetX;
+        double y = (pSquare.getRow() + 0.5) * aCellSize - aOffsetY;
+        pGraphics.fillText(pLetter, x, y);
+    }
+}
@@ -0,0 +1,175 @@
+package PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * The cost of the cheapest path from every square of a map to a destination, or to the nearest of several targets,
+ * together with the direction of the first step of that path. One search (Dijkstra from the targets) serves any number
+ * of agents: each one follows the directions from wherever it stands, which takes time in the length of its path only.
+ * The distances and directions are flat arrays that are reused by every compute, so a flow field can follow a moving
+ * destination without allocating. The map must not change between compute and the queries that use its result.
+ */
+public class FlowField {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final byte NO_DIRECTION = -1;
+
+    private final GridMap aMap;
+    private final Movement aMovement;
+    private final int[] aDistances;
+    //The index in the movement offsets of the first step from every square, NO_DIRECTION at targets and unreachable ones.
+    private final byte[] aDirections;
+    private final OpenSet aOpenList;
+
+    /**
+     * A constructor to create an empty flow field for a map.
+     * @param pMap The map.
+     * @param pMovement The movement that agents follow the field with.
+     */
+    public FlowField(GridMap pMap, Movement pMovement){
+        aMap = pMap;
+        aMovement = pMovement;
+        aDistances = new int[pMap.getNumCells()];
+        aDirections = new byte[pMap.getNumCells()];
+        aOpenList = new OpenSet(pMap.getNumCells());
+        Arrays.fill(aDistances, UNREACHABLE);
+        Arrays.fill(aDirections, NO_DIRECTION);
+    }
+
+    /**
+     * A method to compute the paths from every square to a destination.
+     * @param pDestinationRow The row of the destination.
+     * @param pDestinationColumn The column of the destination.
+     */
+    public void compute(int pDestinationRow, int pDestinationColumn){
+        compute(new int[]{pDestinationRow * aMap.getNumColumns() + pDestinationColumn});
+    }
+
+    /**
+     * A method to compute the paths from every square to the nearest of several targets with one search that starts
+     * from all of them at once.
+     * @param pTargets The row-major cells of the targets.
+     */
+    public void compute(int[] pTargets){
+        int numRows = aMap.getNumRows();
+        int numColumns = aMap.getNumColumns();
+        int[] rowOffsets = aMovement.rowOffsets();
+        int[] columnOffsets = aMovement.columnOffsets();
+        Arrays.fill(aDistances, UNREACHABLE);
+        Arrays.fill(aDirections, NO_DIRECTION);
+        aOpenList.clear();
+        for(int target : pTargets){
+            if(aMap.isPassable(target / numColumns, target % numColumns) && aDistances[target] != 0){
+                aDistances[target] = 0;
+                aOpenList.insert(target, OpenSet.key(0, 0));
+            }
+        }
+        while(!aOpenList.isEmpty()){
+            int cell = aOpenList.poll();
+            int row = cell / numColumns;
+            int column = cell - row * numColumns;
+            for(int direction = 0; direction < rowOffsets.length; direction++){
+                int adjacentRow = row + rowOffsets[direction];
+                int adjacentColumn = column + columnOffsets[direction];
+                if(adjacentRow < 0 || adjacentRow >= numRows || adjacentColumn < 0 || adjacentColumn >= numColumns
+                        || !aMap.isPassable(adjacentRow, adjacentColumn)){
+                    continue;
+                }
+                boolean diagonal = direction >= 4;
+                if(diagonal && (!aMap.isPassable(row, adjacentColumn) || !aMap.isPassable(adjacentRow, column))){
+                    continue;
+                }
+                //The search walks from the targets, so a step from the adjacent square enters this one.
+                int stepCost = diagonal ? aMovement.getDiagonalCost() : aMovement.getStraightCost();
+                int distance = aDistances[cell] + stepCost * aMap.getCost(row, column);
+                int adjacentCell = adjacentRow * numColumns + adjacentColumn;
+                if(distance < aDistances[adjacentCell]){
+                    if(aDistances[adjacentCell] == UNREACHABLE){
+                        aOpenList.insert(adjacentCell, OpenSet.key(distance, 0));
+                    }else{
+                        aOpenList.decreaseKey(adjacentCell, OpenSet.key(distance, 0));
+                    }
+                    aDistances[adjacentCell] = distance;
+                    //The offsets come in opposite pairs, so the way back is the opposite of this direction.
+                    aDirections[adjacentCell] = (byte) opposite(direction);
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to get the cost of the cheapest path from a square to the nearest target.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The cost, or UNREACHABLE if no target can be reached.
+     */
+    public int getDistance(int pRow, int pColumn){
+        return aDistances[pRow * aMap.getNumColumns() + pColumn];
+    }
+
+    /**
+     * A method to get the square an agent should step to next.
+     * @param pRow The row of the square the agent is on.
+     * @param pColumn The column of the square the agent is on.
+     * @return The row-major cell of the next square, or -1 if the agent is on a target or can't reach one.
+     */
+    public int getNextCell(int pRow, int pColumn){
+        int direction = aDirections[pRow * aMap.getNumColumns() + pColumn];
+        if(direction == NO_DIRECTION){
+            return -1;
+        }
+        return (pRow + aMovement.rowOffsets()[direction]) * aMap.getNumColumns()
+                + pColumn + aMovement.columnOffsets()[direction];
+    }
+
+    /**
+     * A method to follow the field from a square to the nearest target.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The cells of the path from the square to the target inclusive, or an empty array if no target can be
+     * reached.
+     */
+    public int[] getPath(int pRow, int pColumn){
+        int numColumns = aMap.getNumColumns();
+        int cell = pRow * numColumns + pColumn;
+        if(aDistances[cell] == UNREACHABLE){
+            return new int[0];
+        }
+        int length = 1;
+        for(int current = cell; aDirections[current] != NO_DIRECTION; length++){
+            current = getNextCell(current / numColumns, current % numColumns);
+        }
+        int[] path = new int[length];
+        path[0] = cell;
+        for(int i = 1; i < length; i++){
+            path[i] = getNextCell(path[i - 1] / numColumns, path[i - 1] % numColumns);
+        }
+        return path;
+    }
+
+    /**
+     * A method to get the target nearest to a square.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The row-major cell of the target, or -1 if no target can be reached.
+     */
+    public int getNearestTarget(int pRow, int pColumn){
+        int numColumns = aMap.getNumColumns();
+        int cell = pRow * numColumns + pColumn;
+        if(aDistances[cell] == UNREACHABLE){
+            return -1;
+        }
+        while(aDirections[cell] != NO_DIRECTION){
+            cell = getNextCell(cell / numColumns, cell % numColumns);
+        }
+        return cell;
+    }
+
+    /**
+     * A method to get the direction opposite to a direction of the movement offsets, which list every direction and
+     * its opposite: up and down, left and right, and the diagonals in the order up-left, up-right, down-left,
+     * down-right.
+     */
+    private static int opposite(int pDirection){
+        return pDirection < 4 ? pDirection ^ 2 : 11 - pDirection;
+    }
+}
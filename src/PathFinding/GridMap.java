@@ -0,0 +1,55 @@
+package PathFinding;
+
+/**
+ * A read-only view of a grid of squares that a path may or may not go through.
+ * Squares are identified by their (row, column) position, or by their row-major cell index
+ * row * getNumColumns() + column.
+ */
+public interface GridMap {
+    /**
+     * A method to get the number of rows in the map.
+     * @return The number of rows in the map.
+     */
+    int getNumRows();
+
+    /**
+     * A method to get the number of columns in the map.
+     * @return The number of columns in the map.
+     */
+    int getNumColumns();
+
+    /**
+     * A method to test if a square in the map may be part of a path.
+     * @param pRow The row of the square to test.
+     * @param pColumn The column of the square to test.
+     * @return The boolean value corresponding to if a path may go through the square.
+     */
+    boolean isPassable(int pRow, int pColumn);
+
+    /**
+     * A method to get the cost of entering a passable square, which is at least 1.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The cost of entering the square.
+     */
+    default int getCost(int pRow, int pColumn){
+        return 1;
+    }
+
+    /**
+     * A method to get a number that changes whenever a square of the map changes passability or cost, so that results
+     * computed on the map can be recognized as out of date.
+     * @return The version of the map, always 0 for maps that never change.
+     */
+    default long getVersion(){
+        return 0;
+    }
+
+    /**
+     * A method to get the number of cells (rows * columns) in the map.
+     * @return The number of cells in the map.
+     */
+    default int getNumCells(){
+        return getNumRows() * getNumColumns();
+    }
+}
@@ -0,0 +1,32 @@
+package PathFinding;
+
+/**
+ * An estimate of the cost of the cheapest path between two squares. To keep AStar's paths the shortest, an estimate
+ * must never be larger than the real cost (admissible) and may not drop by more than the cost of a step when moving
+ * one step (consistent). Heuristics holds the standard estimates for each Movement.
+ */
+public interface Heuristic {
+    /**
+     * A method to estimate the cost of the cheapest path between two squares.
+     * @param pRow The row of the first square.
+     * @param pColumn The column of the first square.
+     * @param pDestinationRow The row of the second square.
+     * @param pDestinationColumn The column of the second square.
+     * @return The estimated cost.
+     */
+    int estimate(int pRow, int pColumn, int pDestinationRow, int pDestinationColumn);
+
+    /**
+     * A method to estimate the cost of the cheapest path from a source to a square, for searches that walk back from
+     * the destination. On maps where squares cost more than 1 to enter a path costs more one way than the other, so
+     * this is estimate from the source to the square and not from the square to the source.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @param pSourceRow The row of the source.
+     * @param pSourceColumn The column of the source.
+     * @return The estimated cost.
+     */
+    default int estimateFrom(int pRow, int pColumn, int pSourceRow, int pSourceColumn){
+        return estimate(pSourceRow, pSourceColumn, pRow, pColumn);
+    }
+}
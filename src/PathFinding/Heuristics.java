@@ -0,0 +1,49 @@
+package PathFinding;
+
+/**
+ * The standard admissible and consistent heuristics for grid movement. Every square costs at least 1 to enter,
+ * so the estimates are distances counted in the straight and diagonal step costs of a Movement.
+ */
+public final class Heuristics {
+    private Heuristics(){}
+
+    /**
+     * A method to get the Manhattan distance, the exact cost of an open path when moving only in four directions.
+     * @param pStraightCost The cost of a horizontal or vertical step.
+     * @return The heuristic.
+     */
+    public static Heuristic manhattan(int pStraightCost){
+        return (pRow, pColumn, pDestinationRow, pDestinationColumn) ->
+                pStraightCost * (Math.abs(pDestinationRow - pRow) + Math.abs(pDestinationColumn - pColumn));
+    }
+
+    /**
+     * A method to get the octile distance, the exact cost of an open path when diagonal steps are allowed.
+     * @param pStraightCost The cost of a horizontal or vertical step.
+     * @param pDiagonalCost The cost of a diagonal step.
+     * @return The heuristic.
+     */
+    public static Heuristic octile(int pStraightCost, int pDiagonalCost){
+        return (pRow, pColumn, pDestinationRow, pDestinationColumn) -> {
+            int rows = Math.abs(pDestinationRow - pRow);
+            int columns = Math.abs(pDestinationColumn - pColumn);
+            return pStraightCost * Math.abs(rows - columns) + pDiagonalCost * Math.min(rows, columns);
+        };
+    }
+
+    /**
+     * A method to get the straight-line distance, which is looser than the octile distance but admissible for any
+     * movement. The distance is scaled so that it never exceeds the integer diagonal cost either.
+     * @param pStraightCost The cost of a horizontal or vertical step.
+     * @param pDiagonalCost The cost of a diagonal step, or 0 if there are none.
+     * @return The heuristic.
+     */
+    public static Heuristic euclidean(int pStraightCost, int pDiagonalCost){
+        double scale = pDiagonalCost > 0 ? Math.min(pStraightCost, pDiagonalCost / Math.sqrt(2)) : pStraightCost;
+        return (pRow, pColumn, pDestinationRow, pDestinationColumn) -> {
+            int rows = pDestinationRow - pRow;
+            int columns = pDestinationColumn - pColumn;
+            return (int) (scale * Math.sqrt((double) rows * rows + (double) columns * columns));
+        };
+    }
+}
@@ -0,0 +1,448 @@
+package PathFinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A hierarchical (HPA*) pathfinder for long paths on large maps. The map is divided into square clusters. Where two
+ * neighbouring clusters are connected across their shared border, an entrance is made of one or two pairs of
+ * squares facing each other, and the distances between the entrance squares of each cluster are precomputed.
+ * A query searches this much smaller abstract graph and then fills in the squares between consecutive entrance
+ * squares with a search limited to one cluster. The paths found are close to, but not always exactly, the shortest.
+ * When created from a field the pathfinder listens to it, and a change to a square only rebuilds its cluster
+ * (and the neighbouring clusters, if the square is on a border).
+ */
+public class HierarchicalPathfinder implements FieldListener {
+    private static final int[] NO_PATH = new int[0];
+    private static final int[] ROW_OFFSETS = {-1, 0, 1, 0};
+    private static final int[] COLUMN_OFFSETS = {0, -1, 0, 1};
+    //Entrances at least this wide get a pair of squares at each end instead of a single pair in the middle.
+    private static final int WIDE_ENTRANCE = 6;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final GridMap aMap;
+    private final int aClusterSize;
+    private final int aClusterRows;
+    private final int aClusterColumns;
+    //Pairs of facing squares (as cells) on the border between cluster k and the cluster to its right / below it.
+    private final int[][] aRightBorders;
+    private final int[][] aBottomBorders;
+    //For every cluster: its entrance squares, the squares they face in other clusters and the distances between them.
+    private final int[][] aNodes;
+    private final int[][][] aPartners;
+    private final int[][] aDistances;
+
+    /**
+     * A constructor to build the abstraction of a field, which is kept up to date as squares of the field change.
+     * @param pField The field to find paths in.
+     * @param pClusterSize The number of rows and columns of a cluster.
+     */
+    public HierarchicalPathfinder(Field pField, int pClusterSize){
+        this((GridMap) pField, pClusterSize);
+        pField.addListener(this);
+    }
+
+    /**
+     * A constructor to build the abstraction of a map that doesn't change.
+     * @param pMap The map to find paths in.
+     * @param pClusterSize The number of rows and columns of a cluster.
+     */
+    public HierarchicalPathfinder(GridMap pMap, int pClusterSize){
+        assert pClusterSize > 1;
+        aMap = pMap;
+        aClusterSize = pClusterSize;
+        aClusterRows = (pMap.getNumRows() + pClusterSize - 1) / pClusterSize;
+        aClusterColumns = (pMap.getNumColumns() + pClusterSize - 1) / pClusterSize;
+        int numClusters = aClusterRows * aClusterColumns;
+        aRightBorders = new int[numClusters][];
+        aBottomBorders = new int[numClusters][];
+        aNodes = new int[numClusters][];
+        aPartners = new int[numClusters][][];
+        aDistances = new int[numClusters][];
+        for(int cluster = 0; cluster < numClusters; cluster++){
+            buildBorders(cluster);
+        }
+        for(int cluster = 0; cluster < numClusters; cluster++){
+            buildCluster(cluster);
+        }
+    }
+
+    /**
+     * A method to rebuild the part of the abstraction that a changed square belongs to.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @param pPassable The boolean corresponding to if the square is now passable.
+     */
+    @Override
+    public void squareChanged(int pRow, int pColumn, boolean pPassable){
+        int clusterRow = pRow / aClusterSize;
+        int clusterColumn = pColumn / aClusterSize;
+        int cluster = clusterRow * aClusterColumns + clusterColumn;
+        boolean onTop = pRow % aClusterSize == 0 && clusterRow > 0;
+        boolean onLeft = pColumn % aClusterSize == 0 && clusterColumn > 0;
+        boolean onBottom = pRow % aClusterSize == aClusterSize - 1 && clusterRow + 1 < aClusterRows;
+        boolean onRight = pColumn % aClusterSize == aClusterSize - 1 && clusterColumn + 1 < aClusterColumns;
+        if(onTop){
+            buildBorders(cluster - aClusterColumns);
+            buildCluster(cluster - aClusterColumns);
+        }
+        if(onLeft){
+            buildBorders(cluster - 1);
+            buildCluster(cluster - 1);
+        }
+        buildBorders(cluster);
+        if(onBottom){
+            buildCluster(cluster + aClusterColumns);
+        }
+        if(onRight){
+            buildCluster(cluster + 1);
+        }
+        buildCluster(cluster);
+    }
+
+    /**
+     * A method to find a path between two squares.
+     * @param pSourceRow The row of the source.
+     * @param pSourceColumn The column of the source.
+     * @param pDestinationRow The row of the destination.
+     * @param pDestinationColumn The column of the destination.
+     * @return The cells of the path from the source to the destination inclusive, or an empty array if there is none.
+     */
+    public int[] findPath(int pSourceRow, int pSourceColumn, int pDestinationRow, int pDestinationColumn){
+        if(!aMap.isPassable(pSourceRow, pSourceColumn) || !aMap.isPassable(pDestinationRow, pDestinationColumn)){
+            return NO_PATH;
+        }
+        int numColumns = aMap.getNumColumns();
+        int source = pSourceRow * numColumns + pSourceColumn;
+        int destination = pDestinationRow * numColumns + pDestinationColumn;
+        int sourceCluster = clusterOf(source);
+        int destinationCluster = clusterOf(destination);
+        //Distances within their clusters from the source and from the destination, which connect them to the graph.
+        int[] sourceDistances = distancesInCluster(sourceCluster, source);
+        int[] destinationDistances = distancesInCluster(destinationCluster, destination);
+
+        SearchContext context = SearchContext.forCurrentThread(aMap.getNumCells());
+        OpenSet openList = context.getOpenSet();
+        context.reach(source, 0, SearchContext.NO_PARENT);
+        openList.insert(source, OpenSet.key(estimate(source, destination), estimate(source, destination)));
+        boolean found = false;
+        while(!openList.isEmpty()){
+            int node = openList.poll();
+            if(node == destination){
+                found = true;
+                break;
+            }
+            context.close(node);
+            int distance = context.getMovesFromStart(node);
+            int cluster = clusterOf(node);
+            if(cluster == destinationCluster){
+                int toDestination = destinationDistances[localIndex(cluster, node)];
+                if(toDestination != UNREACHED){
+                    relax(context, node, destination, distance + toDestination, destination);
+                }
+            }
+            int index = indexOf(cluster, node);
+            if(node == source){
+                for(int other : aNodes[cluster]){
+                    int toOther = sourceDistances[localIndex(cluster, other)];
+                    if(toOther != UNREACHED){
+                        relax(context, node, other, distance + toOther, destination);
+                    }
+                }
+            }else if(index >= 0){
+                int numNodes = aNodes[cluster].length;
+                for(int other = 0; other < numNodes; other++){
+                    int toOther = aDistances[cluster][index * numNodes + other];
+                    if(toOther != UNREACHED){
+                        relax(context, node, aNodes[cluster][other], distance + toOther, destination);
+                    }
+                }
+            }
+            if(index >= 0){
+                for(int partner : aPartners[cluster][index]){
+                    relax(context, node, partner, distance + 1, destination);
+                }
+            }
+        }
+        if(!found){
+            return NO_PATH;
+        }
+        ArrayList<Integer> abstractPath = new ArrayList<>();
+        for(int node = destination; node != SearchContext.NO_PARENT; node = context.getParent(node)){
+            abstractPath.add(node);
+        }
+        return refine(abstractPath);
+    }
+
+    /**
+     * A method to get the number of entrance squares of the abstract graph.
+     * @return The number of entrance squares.
+     */
+    public int getNumNodes(){
+        int numNodes = 0;
+        for(int[] nodes : aNodes){
+            numNodes += nodes.length;
+        }
+        return numNodes;
+    }
+
+    private void relax(SearchContext pContext, int pFrom, int pTo, int pDistance, int pDestination){
+        if(pContext.isClosed(pTo)){
+            return;
+        }
+        int existingDistance = pContext.getMovesFromStart(pTo);
+        if(pDistance < existingDistance){
+            int predicted = estimate(pTo, pDestination);
+            long key = OpenSet.key(pDistance + predicted, predicted);
+            pContext.reach(pTo, pDistance, pFrom);
+            if(existingDistance == SearchContext.UNREACHED){
+                pContext.getOpenSet().insert(pTo, key);
+            }else{
+                pContext.getOpenSet().decreaseKey(pTo, key);
+            }
+        }
+    }
+
+    /**
+     * A method to turn a path over the abstract graph, from the destination back to the source, into every square
+     * of the path from the source to the destination.
+     */
+    private int[] refine(ArrayList<Integer> pAbstractPath){
+        ArrayList<Integer> path = new ArrayList<>();
+        path.add(pAbstractPath.get(pAbstractPath.size() - 1));
+        for(int i = pAbstractPath.size() - 1; i > 0; i--){
+            int from = pAbstractPath.get(i);
+            int to = pAbstractPath.get(i - 1);
+            if(clusterOf(from) != clusterOf(to)){
+                //Squares facing each other across a border are adjacent.
+                path.add(to);
+            }else{
+                path.addAll(pathInCluster(clusterOf(from), from, to));
+            }
+        }
+        int[] cells = new int[path.size()];
+        for(int i = 0; i < cells.length; i++){
+            cells[i] = path.get(i);
+        }
+        return cells;
+    }
+
+    /**
+     * A method to find the squares after pFrom up to and including pTo on a shortest path that stays in a cluster.
+     */
+    private ArrayList<Integer> pathInCluster(int pCluster, int pFrom, int pTo){
+        int[] distances = distancesInCluster(pCluster, pTo);
+        ArrayList<Integer> path = new ArrayList<>();
+        int numColumns = aMap.getNumColumns();
+        int current = pFrom;
+        //Walking downhill on the distances to pTo follows a shortest path to it.
+        while(current != pTo){
+            int row = current / numColumns;
+            int column = current % numColumns;
+            int distance = distances[localIndex(pCluster, current)];
+            for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+                int next = neighbourInCluster(pCluster, row + ROW_OFFSETS[direction], column + COLUMN_OFFSETS[direction]);
+                if(next >= 0 && distances[localIndex(pCluster, next)] == distance - 1){
+                    current = next;
+                    break;
+                }
+            }
+            path.add(current);
+        }
+        return path;
+    }
+
+    /**
+     * A method to find the distance of every square of a cluster from one of its squares, without leaving the cluster.
+     * @return The distances, indexed by localIndex, with UNREACHED for squares that can't be reached.
+     */
+    private int[] distancesInCluster(int pCluster, int pFrom){
+        int[] distances = new int[aClusterSize * aClusterSize];
+        Arrays.fill(distances, UNREACHED);
+        int numColumns = aMap.getNumColumns();
+        int top = (pCluster / aClusterColumns) * aClusterSize;
+        int left = (pCluster % aClusterColumns) * aClusterSize;
+        int height = Math.min(aClusterSize, aMap.getNumRows() - top);
+        int width = Math.min(aClusterSize, numColumns - left);
+        //The queue holds local indices, and every square is queued at most once.
+        int[] queue = new int[height * width];
+        int head = 0;
+        int tail = 0;
+        int start = localIndex(pCluster, pFrom);
+        distances[start] = 0;
+        queue[tail++] = start;
+        while(head < tail){
+            int local = queue[head++];
+            int row = local / aClusterSize;
+            int column = local % aClusterSize;
+            int distance = distances[local] + 1;
+            for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+                int nextRow = row + ROW_OFFSETS[direction];
+                int nextColumn = column + COLUMN_OFFSETS[direction];
+                if(nextRow < 0 || nextRow >= height || nextColumn < 0 || nextColumn >= width){
+                    continue;
+                }
+                int next = nextRow * aClusterSize + nextColumn;
+                if(distances[next] == UNREACHED && aMap.isPassable(top + nextRow, left + nextColumn)){
+                    distances[next] = distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * A method to get the cell of a square if it is passable and part of a cluster.
+     * @return The cell of the square, or -1 if it is outside the cluster or impassable.
+     */
+    private int neighbourInCluster(int pCluster, int pRow, int pColumn){
+        int top = (pCluster / aClusterColumns) * aClusterSize;
+        int left = (pCluster % aClusterColumns) * aClusterSize;
+        if(pRow < top || pRow >= Math.min(top + aClusterSize, aMap.getNumRows())
+                || pColumn < left || pColumn >= Math.min(left + aClusterSize, aMap.getNumColumns())
+                || !aMap.isPassable(pRow, pColumn)){
+            return -1;
+        }
+        return pRow * aMap.getNumColumns() + pColumn;
+    }
+
+    /**
+     * A method to find the entrances on the right and bottom borders of a cluster.
+     */
+    private void buildBorders(int pCluster){
+        int clusterRow = pCluster / aClusterColumns;
+        int clusterColumn = pCluster % aClusterColumns;
+        int top = clusterRow * aClusterSize;
+        int left = clusterColumn * aClusterSize;
+        int bottom = Math.min(top + aClusterSize, aMap.getNumRows());
+        int right = Math.min(left + aClusterSize, aMap.getNumColumns());
+        aRightBorders[pCluster] = clusterColumn + 1 < aClusterColumns
+                ? findEntrances(top, bottom, right - 1, true) : NO_PATH;
+        aBottomBorders[pCluster] = clusterRow + 1 < aClusterRows
+                ? findEntrances(left, right, bottom - 1, false) : NO_PATH;
+    }
+
+    /**
+     * A method to find the pairs of facing squares across one border. A vertical border lies between column pLine
+     * and pLine + 1 over rows pStart to pEnd, a horizontal border between row pLine and pLine + 1 over those columns.
+     * @return The cells of the pairs, the square before the border followed by the square after it.
+     */
+    private int[] findEntrances(int pStart, int pEnd, int pLine, boolean pVertical){
+        ArrayList<Integer> pairs = new ArrayList<>();
+        int runStart = -1;
+        for(int i = pStart; i <= pEnd; i++){
+            boolean open = i < pEnd && (pVertical ? aMap.isPassable(i, pLine) && aMap.isPassable(i, pLine + 1)
+                    : aMap.isPassable(pLine, i) && aMap.isPassable(pLine + 1, i));
+            if(open && runStart < 0){
+                runStart = i;
+            }else if(!open && runStart >= 0){
+                if(i - runStart >= WIDE_ENTRANCE){
+                    addPair(pairs, runStart, pLine, pVertical);
+                    addPair(pairs, i - 1, pLine, pVertical);
+                }else{
+                    addPair(pairs, (runStart + i - 1) / 2, pLine, pVertical);
+                }
+                runStart = -1;
+            }
+        }
+        int[] cells = new int[pairs.size()];
+        for(int i = 0; i < cells.length; i++){
+            cells[i] = pairs.get(i);
+        }
+        return cells;
+    }
+
+    private void addPair(ArrayList<Integer> pPairs, int pPosition, int pLine, boolean pVertical){
+        int numColumns = aMap.getNumColumns();
+        if(pVertical){
+            pPairs.add(pPosition * numColumns + pLine);
+            pPairs.add(pPosition * numColumns + pLine + 1);
+        }else{
+            pPairs.add(pLine * numColumns + pPosition);
+            pPairs.add((pLine + 1) * numColumns + pPosition);
+        }
+    }
+
+    /**
+     * A method to collect the entrance squares of a cluster from its four borders and compute the distances
+     * between them.
+     */
+    private void buildCluster(int pCluster){
+        ArrayList<Integer> nodes = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> partners = new ArrayList<>();
+        int clusterRow = pCluster / aClusterColumns;
+        int clusterColumn = pCluster % aClusterColumns;
+        addNodes(nodes, partners, aRightBorders[pCluster], 0);
+        addNodes(nodes, partners, aBottomBorders[pCluster], 0);
+        if(clusterColumn > 0){
+            addNodes(nodes, partners, aRightBorders[pCluster - 1], 1);
+        }
+        if(clusterRow > 0){
+            addNodes(nodes, partners, aBottomBorders[pCluster - aClusterColumns], 1);
+        }
+        int numNodes = nodes.size();
+        aNodes[pCluster] = new int[numNodes];
+        aPartners[pCluster] = new int[numNodes][];
+        aDistances[pCluster] = new int[numNodes * numNodes];
+        for(int i = 0; i < numNodes; i++){
+            aNodes[pCluster][i] = nodes.get(i);
+            aPartners[pCluster][i] = partners.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        for(int i = 0; i < numNodes; i++){
+            int[] distances = distancesInCluster(pCluster, aNodes[pCluster][i]);
+            for(int j = 0; j < numNodes; j++){
+                aDistances[pCluster][i * numNodes + j] = distances[localIndex(pCluster, aNodes[pCluster][j])];
+            }
+        }
+    }
+
+    /**
+     * A method to add the squares on one side of a border to the entrance squares of a cluster.
+     * @param pSide 0 to add the first square of every pair, 1 to add the second.
+     */
+    private void addNodes(ArrayList<Integer> pNodes, ArrayList<ArrayList<Integer>> pPartners, int[] pPairs, int pSide){
+        for(int i = 0; i < pPairs.length; i += 2){
+            int node = pPairs[i + pSide];
+            int partner = pPairs[i + 1 - pSide];
+            int index = pNodes.indexOf(node);
+            if(index < 0){
+                pNodes.add(node);
+                pPartners.add(new ArrayList<>());
+                index = pNodes.size() - 1;
+            }
+            pPartners.get(index).add(partner);
+        }
+    }
+
+    private int indexOf(int pCluster, int pCell){
+        int[] nodes = aNodes[pCluster];
+        for(int i = 0; i < nodes.length; i++){
+            if(nodes[i] == pCell){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int clusterOf(int pCell){
+        int numColumns = aMap.getNumColumns();
+        return (pCell / numColumns / aClusterSize) * aClusterColumns + (pCell % numColumns) / aClusterSize;
+    }
+
+    /**
+     * A method to get the index of a square within the distances of its cluster.
+     */
+    private int localIndex(int pCluster, int pCell){
+        int numColumns = aMap.getNumColumns();
+        int row = pCell / numColumns - (pCluster / aClusterColumns) * aClusterSize;
+        int column = pCell % numColumns - (pCluster % aClusterColumns) * aClusterSize;
+        return row * aClusterSize + column;
+    }
+
+    private int estimate(int pCell, int pDestination){
+        int numColumns = aMap.getNumColumns();
+        return Math.abs(pCell / numColumns - pDestination / numColumns)
+                + Math.abs(pCell % numColumns - pDestination % numColumns);
+    }
+}
@@ -0,0 +1,203 @@
+package PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * A planner that keeps the shortest path between a fixed source and destination up to date as squares of the map
+ * become passable or impassable, using Lifelong Planning A* (LPA*). The planner remembers the distance of every
+ * square it has searched, so after a change only the squares whose distance from the source actually changed are
+ * searched again, instead of repeating the whole search.
+ * When created from a field the planner listens to it; otherwise the owner of the map calls squareChanged after
+ * changing a square.
+ */
+public class IncrementalPlanner implements FieldListener {
+    private static final int[] NO_PATH = new int[0];
+    private static final int[] ROW_OFFSETS = {-1, 0, 1, 0};
+    private static final int[] COLUMN_OFFSETS = {0, -1, 0, 1};
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final GridMap aMap;
+    private final int aSource;
+    private final int aDestination;
+    private final int aDestinationRow;
+    private final int aDestinationColumn;
+    //The distance from the source as of the last search, and the one-step lookahead on it.
+    private final int[] aDistances;
+    private final int[] aLookaheads;
+    //Holds exactly the squares whose distance and lookahead disagree.
+    private final OpenSet aInconsistent;
+    private int aNumExpanded;
+
+    /**
+     * A constructor to create a planner that follows the changes made to a field.
+     * @param pField The field to plan in.
+     * @param pSource The source of the path.
+     * @param pDestination The destination of the path.
+     */
+    public IncrementalPlanner(Field pField, Square pSource, Square pDestination){
+        this(pField, pSource.getRow(), pSource.getColumn(), pDestination.getRow(), pDestination.getColumn());
+        pField.addListener(this);
+    }
+
+    /**
+     * A constructor to create a planner on a map whose owner reports its changes through squareChanged.
+     * @param pMap The map to plan in.
+     * @param pSourceRow The row of the source.
+     * @param pSourceColumn The column of the source.
+     * @param pDestinationRow The row of the destination.
+     * @param pDestinationColumn The column of the destination.
+     */
+    public IncrementalPlanner(GridMap pMap, int pSourceRow, int pSourceColumn, int pDestinationRow, int pDestinationColumn){
+        aMap = pMap;
+        aSource = pSourceRow * pMap.getNumColumns() + pSourceColumn;
+        aDestination = pDestinationRow * pMap.getNumColumns() + pDestinationColumn;
+        aDestinationRow = pDestinationRow;
+        aDestinationColumn = pDestinationColumn;
+        aDistances = new int[pMap.getNumCells()];
+        aLookaheads = new int[pMap.getNumCells()];
+        Arrays.fill(aDistances, INFINITY);
+        Arrays.fill(aLookaheads, INFINITY);
+        aInconsistent = new OpenSet(pMap.getNumCells());
+        aLookaheads[aSource] = 0;
+        aInconsistent.insert(aSource, keyOf(aSource));
+    }
+
+    /**
+     * A method to record that a square has become passable or impassable. The path is repaired by the next replan.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @param pPassable The boolean corresponding to if the square is now passable.
+     */
+    @Override
+    public void squareChanged(int pRow, int pColumn, boolean pPassable){
+        int numColumns = aMap.getNumColumns();
+        //The steps into and out of the square changed, so the square and all its neighbours need a new lookahead.
+        updateSquare(pRow * numColumns + pColumn);
+        for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+            int row = pRow + ROW_OFFSETS[direction];
+            int column = pColumn + COLUMN_OFFSETS[direction];
+            if(row >= 0 && row < aMap.getNumRows() && column >= 0 && column < numColumns){
+                updateSquare(row * numColumns + column);
+            }
+        }
+    }
+
+    /**
+     * A method to repair the search after the changes recorded since the last call and get the shortest path.
+     * @return The cells of the path from the source to the destination inclusive, or an empty array if there is none.
+     */
+    public int[] replan(){
+        computeShortestPath();
+        if(aDistances[aDestination] == INFINITY){
+            return NO_PATH;
+        }
+        int numColumns = aMap.getNumColumns();
+        int[] path = new int[aDistances[aDestination] + 1];
+        int current = aDestination;
+        path[path.length - 1] = current;
+        //Walk back from the destination, always to a neighbour one step closer to the source.
+        for(int i = path.length - 2; i >= 0; i--){
+            int row = current / numColumns;
+            int column = current % numColumns;
+            for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+                int previous = neighbourOf(row + ROW_OFFSETS[direction], column + COLUMN_OFFSETS[direction]);
+                if(previous >= 0 && aDistances[previous] == aDistances[current] - 1){
+                    current = previous;
+                    break;
+                }
+            }
+            path[i] = current;
+        }
+        return path;
+    }
+
+    /**
+     * A method to get the number of squares that the last replan expanded.
+     * @return The number of expanded squares.
+     */
+    public int getNumExpanded(){
+        return aNumExpanded;
+    }
+
+    private void computeShortestPath(){
+        aNumExpanded = 0;
+        int numColumns = aMap.getNumColumns();
+        while(!aInconsistent.isEmpty() && (aInconsistent.peekKey() < keyOf(aDestination)
+                || aLookaheads[aDestination] != aDistances[aDestination])){
+            int cell = aInconsistent.poll();
+            aNumExpanded++;
+            if(aDistances[cell] > aLookaheads[cell]){
+                aDistances[cell] = aLookaheads[cell];
+            }else{
+                aDistances[cell] = INFINITY;
+                updateSquare(cell);
+            }
+            int row = cell / numColumns;
+            int column = cell % numColumns;
+            for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+                int row2 = row + ROW_OFFSETS[direction];
+                int column2 = column + COLUMN_OFFSETS[direction];
+                if(row2 >= 0 && row2 < aMap.getNumRows() && column2 >= 0 && column2 < numColumns){
+                    updateSquare(row2 * numColumns + column2);
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to recompute the lookahead of a square and put it in or take it out of the inconsistent squares.
+     */
+    private void updateSquare(int pCell){
+        int numColumns = aMap.getNumColumns();
+        int row = pCell / numColumns;
+        int column = pCell % numColumns;
+        if(pCell != aSource){
+            int lookahead = INFINITY;
+            if(aMap.isPassable(row, column)){
+                for(int direction = 0; direction < ROW_OFFSETS.length; direction++){
+                    int neighbour = neighbourOf(row + ROW_OFFSETS[direction], column + COLUMN_OFFSETS[direction]);
+                    if(neighbour >= 0 && aDistances[neighbour] != INFINITY){
+                        lookahead = Math.min(lookahead, aDistances[neighbour] + 1);
+                    }
+                }
+            }
+            aLookaheads[pCell] = lookahead;
+        }
+        boolean consistent = aDistances[pCell] == aLookaheads[pCell];
+        if(aInconsistent.contains(pCell)){
+            if(consistent){
+                aInconsistent.remove(pCell);
+            }else{
+                aInconsistent.update(pCell, keyOf(pCell));
+            }
+        }else if(!consistent){
+            aInconsistent.insert(pCell, keyOf(pCell));
+        }
+    }
+
+    /**
+     * A method to get the cell of a square if it is inside the map and passable.
+     * @return The cell of the square, or -1.
+     */
+    private int neighbourOf(int pRow, int pColumn){
+        if(pRow < 0 || pRow >= aMap.getNumRows() || pColumn < 0 || pColumn >= aMap.getNumColumns()
+                || !aMap.isPassable(pRow, pColumn)){
+            return -1;
+        }
+        return pRow * aMap.getNumColumns() + pColumn;
+    }
+
+    /**
+     * A method to get the priority of a square: the smaller of its distance and lookahead plus the Manhattan estimate,
+     * with ties broken by the smaller of its distance and lookahead.
+     */
+    private long keyOf(int pCell){
+        int distance = Math.min(aDistances[pCell], aLookaheads[pCell]);
+        if(distance == INFINITY){
+            return OpenSet.key(INFINITY, INFINITY);
+        }
+        int numColumns = aMap.getNumColumns();
+        int estimate = Math.abs(aDestinationRow - pCell / numColumns) + Math.abs(aDestinationColumn - pCell % numColumns);
+        return OpenSet.key(distance + estimate, distance);
+    }
+}
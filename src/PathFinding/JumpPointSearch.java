@@ -0,0 +1,297 @@
+package PathFinding;
+
+import java.util.ArrayList;
+
+/**
+ * A Jump Point Search for the shortest path on a four-connected grid where every step costs the same.
+ * Instead of adding every adjacent square to the open list, the search jumps in a straight line until it reaches a
+ * square where a shortest path may have to turn (a jump point) and only adds that square. Horizontal jumps test 64
+ * squares at a time on a RowBitGrid. The paths found are as short as those found by AStar.
+ */
+public class JumpPointSearch implements PathSolver {
+    private static final int[] NO_PATH = new int[0];
+    private static final int NONE = -1;
+
+    RowBitGrid aGrid;
+    //The field is only known when the search was created from one, and is used to trace back squares.
+    Field aField;
+    int aSource;
+    int aDestination;
+    int aDestinationRow;
+    int aDestinationColumn;
+    SearchContext aContext;
+    boolean aPathFound;
+    int aNumExpanded;
+
+    /**
+     * A method to create a search that will be capable of solving for the shortest path in a field.
+     * @param pField The field that the path will be found in.
+     * @param pSource The source of the field.
+     * @param pDestination The destination of the field.
+     */
+    public JumpPointSearch(Field pField, Square pSource, Square pDestination){
+        this(RowBitGrid.of(pField), pSource.getRow(), pSource.getColumn(), pDestination.getRow(),
+                pDestination.getColumn(), new SearchContext(pField.getNumCells()));
+        aField = pField;
+    }
+
+    /**
+     * A method to create a search on a grid that may be shared with other searches.
+     * @param pGrid The grid that the path will be found in.
+     * @param pSourceRow The row of the source.
+     * @param pSourceColumn The column of the source.
+     * @param pDestinationRow The row of the destination.
+     * @param pDestinationColumn The column of the destination.
+     * @param pContext The context to keep the search state in, which may not be used by another search at the same time.
+     */
+    public JumpPointSearch(RowBitGrid pGrid, int pSourceRow, int pSourceColumn, int pDestinationRow,
+                           int pDestinationColumn, SearchContext pContext){
+        assert pContext.getNumCells() >= pGrid.getNumCells();
+        aGrid = pGrid;
+        aSource = pSourceRow * pGrid.getNumColumns() + pSourceColumn;
+        aDestination = pDestinationRow * pGrid.getNumColumns() + pDestinationColumn;
+        aDestinationRow = pDestinationRow;
+        aDestinationColumn = pDestinationColumn;
+        aContext = pContext;
+    }
+
+    /**
+     * A method to solve for the shortest path.
+     * This method will alter the parents in the search context so that getPath will be able to identify the path.
+     */
+    @Override
+    public void solve(){
+        int numColumns = aGrid.getNumColumns();
+        aPathFound = false;
+        aNumExpanded = 0;
+        aContext.reset();
+        OpenSet openList = aContext.getOpenSet();
+        aContext.reach(aSource, 0, SearchContext.NO_PARENT);
+        int sourceEstimate = getPredictedDistanceFromDestination(aSource / numColumns, aSource % numColumns);
+        openList.insert(aSource, OpenSet.key(sourceEstimate, sourceEstimate));
+        while(!openList.isEmpty()){
+            int closestCell = openList.poll();
+            if(closestCell == aDestination){
+                aPathFound = true;
+                return;
+            }
+            aContext.close(closestCell);
+            aNumExpanded++;
+            int row = closestCell / numColumns;
+            int column = closestCell - row * numColumns;
+            int parent = aContext.getParent(closestCell);
+            if(parent == SearchContext.NO_PARENT){
+                jumpFrom(closestCell, row, column, 0, 1);
+                jumpFrom(closestCell, row, column, 0, -1);
+                jumpFrom(closestCell, row, column, 1, 0);
+                jumpFrom(closestCell, row, column, -1, 0);
+            }else{
+                int rowDirection = Integer.signum(row - parent / numColumns);
+                int columnDirection = Integer.signum(column - parent % numColumns);
+                //Only the way back is pruned: every other direction may start a shortest path from a jump point.
+                if(columnDirection != 0){
+                    jumpFrom(closestCell, row, column, 0, columnDirection);
+                    jumpFrom(closestCell, row, column, 1, 0);
+                    jumpFrom(closestCell, row, column, -1, 0);
+                }else{
+                    jumpFrom(closestCell, row, column, rowDirection, 0);
+                    jumpFrom(closestCell, row, column, 0, 1);
+                    jumpFrom(closestCell, row, column, 0, -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to get the path found by solve, with the squares between consecutive jump points filled in.
+     * @return The cells of the path from the source to the destination inclusive, or an empty array if there is none.
+     */
+    @Override
+    public int[] getPath(){
+        if(!aPathFound){
+            return NO_PATH;
+        }
+        int numColumns = aGrid.getNumColumns();
+        int[] path = new int[aContext.getMovesFromStart(aDestination) + 1];
+        int index = path.length - 1;
+        int current = aDestination;
+        path[index] = current;
+        while(current != aSource){
+            int parent = aContext.getParent(current);
+            //Consecutive jump points are always on the same row or column.
+            int step = parent / numColumns == current / numColumns ? Integer.signum(parent - current)
+                    : Integer.signum(parent - current) * numColumns;
+            while(current != parent){
+                current += step;
+                path[--index] = current;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * A method to solve for the solution in the same form as AStar.traceBackSolution, without the source and
+     * destination. Only available when the search was created from a field.
+     * @return An arraylist containing the path solution.
+     */
+    public ArrayList<Square> traceBackSolution(){
+        assert aField != null;
+        ArrayList<Square> shortestPath = new ArrayList<>();
+        int[] path = getPath();
+        int numColumns = aGrid.getNumColumns();
+        for(int i = path.length - 2; i > 0; i--){
+            shortestPath.add(aField.getSquare(path[i] / numColumns, path[i] % numColumns));
+        }
+        return shortestPath;
+    }
+
+    @Override
+    public int getNumExpanded(){
+        return aNumExpanded;
+    }
+
+    /**
+     * A method to jump from an expanded square in one direction and add the jump point found, if any, to the open list.
+     */
+    private void jumpFrom(int pCell, int pRow, int pColumn, int pRowDirection, int pColumnDirection){
+        int jumpRow = pRow;
+        int jumpColumn = pColumn;
+        if(pRowDirection == 0){
+            jumpColumn = jumpHorizontally(pRow, pColumn, pColumnDirection);
+            if(jumpColumn == NONE){
+                return;
+            }
+        }else{
+            jumpRow = jumpVertically(pRow, pColumn, pRowDirection);
+            if(jumpRow == NONE){
+                return;
+            }
+        }
+        int jumpCell = jumpRow * aGrid.getNumColumns() + jumpColumn;
+        if(aContext.isClosed(jumpCell)){
+            return;
+        }
+        int distanceFromStart = aContext.getMovesFromStart(pCell) + Math.abs(jumpRow - pRow) + Math.abs(jumpColumn - pColumn);
+        int existingDistanceFromStart = aContext.getMovesFromStart(jumpCell);
+        if(distanceFromStart < existingDistanceFromStart){
+            int predictedDistanceToDestination = getPredictedDistanceFromDestination(jumpRow, jumpColumn);
+            long key = OpenSet.key(distanceFromStart + predictedDistanceToDestination, predictedDistanceToDestination);
+            aContext.reach(jumpCell, distanceFromStart, pCell);
+            if(existingDistanceFromStart == SearchContext.UNREACHED){
+                aContext.getOpenSet().insert(jumpCell, key);
+            }else{
+                aContext.getOpenSet().decreaseKey(jumpCell, key);
+            }
+        }
+    }
+
+    /**
+     * A method to jump along a row from a square. The jump stops at the destination, or at a square that has a
+     * passable square above or below it whose previous square along the row is impassable, since a shortest path
+     * may have to turn there. The jump scans 64 squares of the row at a time.
+     * @param pRow The row to jump along.
+     * @param pColumn The column to jump from.
+     * @param pDirection 1 to jump towards larger columns, -1 to jump towards smaller columns.
+     * @return The column of the jump point, or NONE if the jump runs into a wall or the edge of the grid.
+     */
+    private int jumpHorizontally(int pRow, int pColumn, int pDirection){
+        int start = pColumn + pDirection;
+        if(start < 0 || start >= aGrid.getNumColumns()){
+            return NONE;
+        }
+        int wordsPerRow = aGrid.getWordsPerRow();
+        int destinationWord = pRow == aDestinationRow ? aDestinationColumn >>> 6 : NONE;
+        if(pDirection > 0){
+            for(int word = start >>> 6; word < wordsPerRow; word++){
+                long open = aGrid.getWord(pRow, word);
+                long stops = ~open | forcedRight(pRow - 1, word) | forcedRight(pRow + 1, word);
+                if(word == destinationWord){
+                    stops |= 1L << aDestinationColumn;
+                }
+                if(word == start >>> 6){
+                    stops &= -1L << start;
+                }
+                if(stops != 0){
+                    int column = (word << 6) + Long.numberOfTrailingZeros(stops);
+                    return (open & (1L << column)) != 0 ? column : NONE;
+                }
+            }
+        }else{
+            for(int word = start >>> 6; word >= 0; word--){
+                long open = aGrid.getWord(pRow, word);
+                long stops = ~open | forcedLeft(pRow - 1, word) | forcedLeft(pRow + 1, word);
+                if(word == destinationWord){
+                    stops |= 1L << aDestinationColumn;
+                }
+                if(word == start >>> 6){
+                    stops &= -1L >>> (63 - (start & 63));
+                }
+                if(stops != 0){
+                    int column = (word << 6) + 63 - Long.numberOfLeadingZeros(stops);
+                    return (open & (1L << column)) != 0 ? column : NONE;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * A method to get the squares of a neighbouring row that are passable while the square before them (towards
+     * smaller columns) is not.
+     */
+    private long forcedRight(int pRow, int pWord){
+        long open = aGrid.getWord(pRow, pWord);
+        long previous = (open << 1) | (aGrid.getWord(pRow, pWord - 1) >>> 63);
+        return open & ~previous;
+    }
+
+    /**
+     * A method to get the squares of a neighbouring row that are passable while the square after them (towards
+     * larger columns) is not.
+     */
+    private long forcedLeft(int pRow, int pWord){
+        long open = aGrid.getWord(pRow, pWord);
+        long next = (open >>> 1) | (aGrid.getWord(pRow, pWord + 1) << 63);
+        return open & ~next;
+    }
+
+    /**
+     * A method to jump along a column from a square. The jump stops at the destination, at a square that has a
+     * passable square beside it whose previous square along the column is impassable, or at a square from which a
+     * horizontal jump finds a jump point.
+     * @param pRow The row to jump from.
+     * @param pColumn The column to jump along.
+     * @param pDirection 1 to jump towards larger rows, -1 to jump towards smaller rows.
+     * @return The row of the jump point, or NONE if the jump runs into a wall or the edge of the grid.
+     */
+    private int jumpVertically(int pRow, int pColumn, int pDirection){
+        int numRows = aGrid.getNumRows();
+        int numColumns = aGrid.getNumColumns();
+        for(int row = pRow + pDirection; row >= 0 && row < numRows; row += pDirection){
+            if(!aGrid.isPassable(row, pColumn)){
+                return NONE;
+            }
+            if(row == aDestinationRow && pColumn == aDestinationColumn){
+                return row;
+            }
+            int previousRow = row - pDirection;
+            if((pColumn > 0 && aGrid.isPassable(row, pColumn - 1) && !aGrid.isPassable(previousRow, pColumn - 1))
+                    || (pColumn + 1 < numColumns && aGrid.isPassable(row, pColumn + 1)
+                    && !aGrid.isPassable(previousRow, pColumn + 1))){
+                return row;
+            }
+            if(jumpHorizontally(row, pColumn, 1) != NONE || jumpHorizontally(row, pColumn, -1) != NONE){
+                return row;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * A method to calculate the predicted distance from the destination of a square
+     * as calculated by the manhattan method.
+     */
+    private int getPredictedDistanceFromDestination(int pRow, int pColumn){
+        return Math.abs(aDestinationColumn - pColumn) + Math.abs(aDestinationRow - pRow);
+    }
+}
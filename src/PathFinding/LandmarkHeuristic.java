@@ -0,0 +1,413 @@
+package PathFinding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A heuristic using the exact distances from a few landmark squares (ALT). Because the path from a landmark to the
+ * destination can't be shorter than the path from the landmark to a square plus the path on to the destination,
+ * dist(L, destination) - dist(L, square) is a lower bound of the remaining cost, and on maps full of walls it is
+ * usually much tighter than the Manhattan or octile distance. The estimate is the largest of these bounds over all
+ * landmarks and the default heuristic of the movement, which keeps it admissible and consistent.
+ * The distance tables take one int per square and landmark, so they are built once per map by build, in parallel,
+ * and can be saved next to the map file with save and read back with load. The heuristic is only valid while the
+ * map keeps the walls and costs it was built for, and for AStar searches using the same movement.
+ */
+public class LandmarkHeuristic implements Heuristic {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int MAGIC = 0x53544C41; //"ALTS" in little-endian byte order
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int INTS_PER_WRITE = 1 << 14;
+
+    private final int aNumRows;
+    private final int aNumColumns;
+    private final Movement aMovement;
+    private final Heuristic aDefaultHeuristic;
+    private final int[] aLandmarks;
+    //The distances from every landmark to every square, with the distances of a square's landmarks next to each other.
+    private final int[] aFromLandmarks;
+    //The distances from every square to every landmark, the same array as aFromLandmarks if the map has no costs.
+    private final int[] aToLandmarks;
+
+    private LandmarkHeuristic(int pNumRows, int pNumColumns, Movement pMovement, int[] pLandmarks,
+                              int[] pFromLandmarks, int[] pToLandmarks){
+        aNumRows = pNumRows;
+        aNumColumns = pNumColumns;
+        aMovement = pMovement;
+        aDefaultHeuristic = pMovement.defaultHeuristic();
+        aLandmarks = pLandmarks;
+        aFromLandmarks = pFromLandmarks;
+        aToLandmarks = pToLandmarks;
+    }
+
+    /**
+     * A method to pick landmarks on a map and compute their distance tables, using one thread per processor.
+     * @param pMap The map, which may not change while the tables are built.
+     * @param pMovement The movement of the searches that will use the heuristic.
+     * @param pNumLandmarks The number of landmarks to pick.
+     * @return The heuristic.
+     */
+    public static LandmarkHeuristic build(GridMap pMap, Movement pMovement, int pNumLandmarks){
+        return build(pMap, pMovement, pNumLandmarks, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * A method to pick landmarks on a map and compute their distance tables. Landmarks are the squares farthest from
+     * the middle of the map, by path cost, in as many equal angular sectors around the middle as there are landmarks,
+     * so that they surround the map like the corners of a polygon. Sectors are searched and tables are built in
+     * parallel. A sector without any square reachable from the middle gets no landmark.
+     * @param pMap The map, which may not change while the tables are built.
+     * @param pMovement The movement of the searches that will use the heuristic.
+     * @param pNumLandmarks The number of landmarks to pick.
+     * @param pNumThreads The number of threads to build the tables on.
+     * @return The heuristic.
+     */
+    public static LandmarkHeuristic build(GridMap pMap, Movement pMovement, int pNumLandmarks, int pNumThreads){
+        assert pNumLandmarks > 0 && pNumThreads > 0;
+        assert (long) pMap.getNumCells() * pNumLandmarks <= Integer.MAX_VALUE;
+        ForkJoinPool pool = new ForkJoinPool(pNumThreads);
+        try{
+            int numCells = pMap.getNumCells();
+            int middle = middleOf(pMap);
+            int[] fromMiddle = distances(pMap, pMovement, middle, false, new int[numCells]);
+            int[] landmarks = pickLandmarks(pool, pMap, middle, fromMiddle, pNumLandmarks);
+            boolean hasCosts = hasCosts(pMap);
+            List<Callable<int[]>> tasks = new ArrayList<>();
+            for(int landmark : landmarks){
+                tasks.add(() -> distances(pMap, pMovement, landmark, false, new int[numCells]));
+                if(hasCosts){
+                    tasks.add(() -> distances(pMap, pMovement, landmark, true, new int[numCells]));
+                }
+            }
+            List<int[]> tables = invokeAll(pool, tasks);
+            int step = hasCosts ? 2 : 1;
+            int[] fromLandmarks = interleave(pool, tables, 0, step, numCells);
+            int[] toLandmarks = hasCosts ? interleave(pool, tables, 1, step, numCells) : fromLandmarks;
+            return new LandmarkHeuristic(pMap.getNumRows(), pMap.getNumColumns(), pMovement, landmarks,
+                    fromLandmarks, toLandmarks);
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public int estimate(int pRow, int pColumn, int pDestinationRow, int pDestinationColumn){
+        int estimate = aDefaultHeuristic.estimate(pRow, pColumn, pDestinationRow, pDestinationColumn);
+        int numLandmarks = aLandmarks.length;
+        int square = (pRow * aNumColumns + pColumn) * numLandmarks;
+        int destination = (pDestinationRow * aNumColumns + pDestinationColumn) * numLandmarks;
+        for(int i = 0; i < numLandmarks; i++){
+            int fromSquare = aFromLandmarks[square + i];
+            int fromDestination = aFromLandmarks[destination + i];
+            //A landmark that can't reach both squares tells nothing about them.
+            if(fromSquare == UNREACHABLE || fromDestination == UNREACHABLE){
+                continue;
+            }
+            estimate = Math.max(estimate, fromDestination - fromSquare);
+            estimate = Math.max(estimate, aToLandmarks[square + i] - aToLandmarks[destination + i]);
+        }
+        return estimate;
+    }
+
+    //Getter for the movement the distances were computed for
+    public Movement getMovement(){
+        return aMovement;
+    }
+
+    /**
+     * A method to get the landmarks of the heuristic.
+     * @return The row-major cells of the landmarks.
+     */
+    public int[] getLandmarks(){
+        return aLandmarks.clone();
+    }
+
+    /**
+     * A method to get the cost of the cheapest path from a landmark to a square.
+     * @param pLandmark The index of the landmark in getLandmarks.
+     * @param pRow The row of the square.
+     * @param pColumn The column of the square.
+     * @return The cost, or UNREACHABLE.
+     */
+    public int getDistance(int pLandmark, int pRow, int pColumn){
+        return aFromLandmarks[(pRow * aNumColumns + pColumn) * aLandmarks.length + pLandmark];
+    }
+
+    /**
+     * A method to write the landmarks and distance tables to a file, replacing the file if it exists. The file starts
+     * with a 32 byte little-endian header (magic number, format version, rows, columns, movement, number of landmarks
+     * and whether separate tables to the landmarks follow), followed by the landmark cells and the tables as
+     * little-endian ints.
+     * @param pPath The file to write to, e.g. the map file with the extension ".alt".
+     * @throws IOException If the file can't be written.
+     */
+    public void save(Path pPath) throws IOException {
+        boolean separateTables = aToLandmarks != aFromLandmarks;
+        try(FileChannel channel = FileChannel.open(pPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(aNumRows).putInt(aNumColumns).putInt(aMovement.ordinal())
+                    .putInt(aLandmarks.length).putInt(separateTables ? 1 : 0).putInt(0).flip();
+            writeFully(channel, header);
+            ByteBuffer buffer = ByteBuffer.allocate(INTS_PER_WRITE * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            writeInts(channel, buffer, aLandmarks);
+            writeInts(channel, buffer, aFromLandmarks);
+            if(separateTables){
+                writeInts(channel, buffer, aToLandmarks);
+            }
+        }
+    }
+
+    /**
+     * A method to read a heuristic written by save.
+     * @param pPath The file to read.
+     * @param pMap The map the heuristic was built for, whose size must match the file.
+     * @return The heuristic.
+     * @throws IOException If the file can't be read, is not a landmark file or was built for a map of another size.
+     */
+    public static LandmarkHeuristic load(Path pPath, GridMap pMap) throws IOException {
+        try(FileChannel channel = FileChannel.open(pPath, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if(channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC){
+                throw new IOException("Not a landmark file");
+            }
+            if(buffer.getInt(4) != VERSION){
+                throw new IOException("Unsupported landmark file version " + buffer.getInt(4));
+            }
+            int numRows = buffer.getInt(8);
+            int numColumns = buffer.getInt(12);
+            int movement = buffer.getInt(16);
+            int numLandmarks = buffer.getInt(20);
+            boolean separateTables = buffer.getInt(24) != 0;
+            if(numRows != pMap.getNumRows() || numColumns != pMap.getNumColumns()){
+                throw new IOException("Landmark file is for a " + numRows + "x" + numColumns + " map");
+            }
+            if(movement < 0 || movement >= Movement.values().length || numLandmarks <= 0
+                    || (long) pMap.getNumCells() * numLandmarks > Integer.MAX_VALUE){
+                throw new IOException("Invalid landmark file header");
+            }
+            int tableSize = pMap.getNumCells() * numLandmarks;
+            long expectedSize = HEADER_BYTES + ((long) numLandmarks + (separateTables ? 2L : 1L) * tableSize) * Integer.BYTES;
+            if(channel.size() < expectedSize){
+                throw new IOException("Truncated landmark file");
+            }
+            IntBuffer ints = buffer.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            int[] landmarks = new int[numLandmarks];
+            ints.get(landmarks);
+            int[] fromLandmarks = new int[tableSize];
+            ints.get(fromLandmarks);
+            int[] toLandmarks = fromLandmarks;
+            if(separateTables){
+                toLandmarks = new int[tableSize];
+                ints.get(toLandmarks);
+            }
+            return new LandmarkHeuristic(numRows, numColumns, Movement.values()[movement], landmarks, fromLandmarks,
+                    toLandmarks);
+        }
+    }
+
+    /**
+     * A method to compute the cost of the cheapest path between one square and every square of a map (Dijkstra).
+     * @param pMap The map.
+     * @param pMovement The movement to step with.
+     * @param pCell The square to start from.
+     * @param pReverse The boolean corresponding to if the costs are of the paths to pCell instead of from it, which
+     *                 only differs when squares cost more than 1.
+     * @param pDistances The array to write the costs to, UNREACHABLE for squares without a path.
+     * @return The array of the costs.
+     */
+    static int[] distances(GridMap pMap, Movement pMovement, int pCell, boolean pReverse, int[] pDistances){
+        int numRows = pMap.getNumRows();
+        int numColumns = pMap.getNumColumns();
+        int[] rowOffsets = pMovement.rowOffsets();
+        int[] columnOffsets = pMovement.columnOffsets();
+        Arrays.fill(pDistances, UNREACHABLE);
+        OpenSet openList = new OpenSet(pMap.getNumCells());
+        pDistances[pCell] = 0;
+        openList.insert(pCell, OpenSet.key(0, 0));
+        while(!openList.isEmpty()){
+            int cell = openList.poll();
+            int row = cell / numColumns;
+            int column = cell - row * numColumns;
+            for(int direction = 0; direction < rowOffsets.length; direction++){
+                int adjacentRow = row + rowOffsets[direction];
+                int adjacentColumn = column + columnOffsets[direction];
+                if(adjacentRow < 0 || adjacentRow >= numRows || adjacentColumn < 0 || adjacentColumn >= numColumns
+                        || !pMap.isPassable(adjacentRow, adjacentColumn)){
+                    continue;
+                }
+                boolean diagonal = direction >= 4;
+                if(diagonal && (!pMap.isPassable(row, adjacentColumn) || !pMap.isPassable(adjacentRow, column))){
+                    continue;
+                }
+                int stepCost = diagonal ? pMovement.getDiagonalCost() : pMovement.getStraightCost();
+                //Walking the steps backwards pays for the square stepped out of instead of the one stepped into.
+                int enteredCost = pReverse ? pMap.getCost(row, column) : pMap.getCost(adjacentRow, adjacentColumn);
+                int distance = pDistances[cell] + stepCost * enteredCost;
+                int adjacentCell = adjacentRow * numColumns + adjacentColumn;
+                if(distance < pDistances[adjacentCell]){
+                    if(pDistances[adjacentCell] == UNREACHABLE){
+                        openList.insert(adjacentCell, OpenSet.key(distance, 0));
+                    }else{
+                        openList.decreaseKey(adjacentCell, OpenSet.key(distance, 0));
+                    }
+                    pDistances[adjacentCell] = distance;
+                }
+            }
+        }
+        return pDistances;
+    }
+
+    /**
+     * A method to find the passable square closest to the middle of a map, scanning rings of growing size.
+     */
+    private static int middleOf(GridMap pMap){
+        int middleRow = pMap.getNumRows() / 2;
+        int middleColumn = pMap.getNumColumns() / 2;
+        int maxRadius = Math.max(pMap.getNumRows(), pMap.getNumColumns());
+        for(int radius = 0; radius <= maxRadius; radius++){
+            for(int i = middleRow - radius; i <= middleRow + radius; i++){
+                for(int j = middleColumn - radius; j <= middleColumn + radius; j++){
+                    boolean onRing = Math.abs(i - middleRow) == radius || Math.abs(j - middleColumn) == radius;
+                    if(onRing && i >= 0 && i < pMap.getNumRows() && j >= 0 && j < pMap.getNumColumns()
+                            && pMap.isPassable(i, j)){
+                        return i * pMap.getNumColumns() + j;
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("The map has no passable square");
+    }
+
+    /**
+     * A method to pick the square farthest from the middle in every sector, each thread scanning a range of rows.
+     */
+    private static int[] pickLandmarks(ForkJoinPool pPool, GridMap pMap, int pMiddle, int[] pFromMiddle,
+                                       int pNumSectors){
+        int numRows = pMap.getNumRows();
+        int numColumns = pMap.getNumColumns();
+        int middleRow = pMiddle / numColumns;
+        int middleColumn = pMiddle % numColumns;
+        int numTasks = Math.min(numRows, pPool.getParallelism() * 4);
+        List<Callable<int[]>> tasks = new ArrayList<>();
+        for(int task = 0; task < numTasks; task++){
+            int startRow = (int) ((long) numRows * task / numTasks);
+            int endRow = (int) ((long) numRows * (task + 1) / numTasks);
+            tasks.add(() -> {
+                int[] farthest = new int[pNumSectors];
+                Arrays.fill(farthest, -1);
+                for(int i = startRow; i < endRow; i++){
+                    for(int j = 0; j < numColumns; j++){
+                        int cell = i * numColumns + j;
+                        if(pFromMiddle[cell] == UNREACHABLE){
+                            continue;
+                        }
+                        double angle = Math.atan2(i - middleRow, j - middleColumn) + Math.PI;
+                        int sector = Math.min(pNumSectors - 1, (int) (angle / (2 * Math.PI) * pNumSectors));
+                        if(farthest[sector] < 0 || pFromMiddle[cell] > pFromMiddle[farthest[sector]]){
+                            farthest[sector] = cell;
+                        }
+                    }
+                }
+                return farthest;
+            });
+        }
+        int[] farthest = new int[pNumSectors];
+        Arrays.fill(farthest, -1);
+        for(int[] partial : invokeAll(pPool, tasks)){
+            for(int sector = 0; sector < pNumSectors; sector++){
+                int cell = partial[sector];
+                if(cell >= 0 && (farthest[sector] < 0 || pFromMiddle[cell] > pFromMiddle[farthest[sector]])){
+                    farthest[sector] = cell;
+                }
+            }
+        }
+        return Arrays.stream(farthest).filter(cell -> cell >= 0).toArray();
+    }
+
+    /**
+     * A method to merge one table per landmark into one table holding the landmarks of a square next to each other.
+     */
+    private static int[] interleave(ForkJoinPool pPool, List<int[]> pTables, int pFirst, int pStep, int pNumCells){
+        int numLandmarks = pTables.size() / pStep;
+        int[] merged = new int[pNumCells * numLandmarks];
+        int numTasks = pPool.getParallelism() * 4;
+        List<Callable<int[]>> tasks = new ArrayList<>();
+        for(int task = 0; task < numTasks; task++){
+            int startCell = (int) ((long) pNumCells * task / numTasks);
+            int endCell = (int) ((long) pNumCells * (task + 1) / numTasks);
+            tasks.add(() -> {
+                for(int i = 0; i < numLandmarks; i++){
+                    int[] table = pTables.get(pFirst + i * pStep);
+                    for(int cell = startCell; cell < endCell; cell++){
+                        merged[cell * numLandmarks + i] = table[cell];
+                    }
+                }
+                return null;
+            });
+        }
+        invokeAll(pPool, tasks);
+        return merged;
+    }
+
+    private static boolean hasCosts(GridMap pMap){
+        for(int i = 0; i < pMap.getNumRows(); i++){
+            for(int j = 0; j < pMap.getNumColumns(); j++){
+                if(pMap.getCost(i, j) != 1){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static <T> List<T> invokeAll(ForkJoinPool pPool, List<Callable<T>> pTasks){
+        List<T> results = new ArrayList<>();
+        try{
+            for(Future<T> future : pPool.invokeAll(pTasks)){
+                results.add(future.get());
+            }
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building landmark tables", e);
+        }catch(ExecutionException e){
+            throw new IllegalStateException("Failed to build landmark tables", e.getCause());
+        }
+        return results;
+    }
+
+    private static void writeInts(FileChannel pChannel, ByteBuffer pBuffer, int[] pInts) throws IOException {
+        for(int value : pInts){
+            pBuffer.putInt(value);
+            if(!pBuffer.hasRemaining()){
+                pBuffer.flip();
+                writeFully(pChannel, pBuffer);
+                pBuffer.clear();
+            }
+        }
+        pBuffer.flip();
+        writeFully(pChannel, pBuffer);
+        pBuffer.clear();
+    }
+
+    private static void writeFully(FileChannel pChannel, ByteBuffer pBuffer) throws IOException {
+        while(pBuffer.hasRemaining()){
+            pChannel.write(pBuffer);
+        }
+    }
+}
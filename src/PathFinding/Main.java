@@ -1,32 +1,27 @@
 package PathFinding;
 
 import javafx.application.Application;
-import javafx.geometry.Pos;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
-import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Main extends Application {
     int PADDING = 2;
     int NUM_ROWS = 25;
     int NUM_COLUMNS = 25;
-
-    String ACCESSIBLE_BUTTON_STYLE = "-fx-background-radius: 0; -fx-pref-width: 30px; -fx-pref-height: 30px;" +
-            "-fx-focus-color: transparent; -fx-faint-focus-color: transparent; -fx-font-size: 12; " +
-            "-fx-text-fill: red; -fx-font-weight: bold";
-
-    String INACCESSIBLE_BUTTON_STYLE = "-fx-background-radius: 0; -fx-pref-width: 30px; -fx-pref-height: 30px;" +
-            "-fx-focus-color: transparent; -fx-faint-focus-color: transparent; -fx-font-size: 12; " +
-            "-fx-text-fill: red; -fx-font-weight: bold; -fx-background-color: #528B8B";
-
-    String PATH_BUTTON_STYLE = "-fx-background-radius: 0; -fx-pref-width: 30px; -fx-pref-height: 30px;" +
-            "-fx-focus-color: transparent; -fx-faint-focus-color: transparent; -fx-font-size: 12; " +
-            "-fx-font-weight: bold; -fx-background-color: black";
+    int VIEW_SIZE = 800;
 
     String TOP_BUTTON_STYLE = "-fx-pref-width: 100px; -fx-pref-height: 30px; -fx-focus-color: transparent;" +
             "-fx-faint-focus-color: transparent; -fx-font-size: 12; -fx-background-radius: 0; -fx-font-weight: bold;"+
@@ -34,7 +29,22 @@ public class Main extends Application {
 
 
     Field aField;
-    GridPane aGrid;
+    FieldView aView;
+    Button aFindPathButton;
+    Button aResetButton;
+    Button aCancelButton;
+    CheckBox aAnimateBox;
+    Label aStatusLabel;
+    //Searches run on this thread so the window stays responsive; the field may not be edited while one runs.
+    ExecutorService aSolver = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    CancellationToken aCancellation;
+    boolean aSolving;
+    //Set while a progress update waits to be shown, so that a fast search doesn't flood the FX thread with them.
+    AtomicBoolean aProgressPending = new AtomicBoolean();
 
     public Main(){}
 
@@ -42,98 +52,43 @@ public class Main extends Application {
     public void start(Stage primaryStage) throws Exception{
         primaryStage.setTitle("Pathfinding");
         primaryStage.setResizable(false);
-        primaryStage.setScene(CreateScene());
         initializeField();
+        primaryStage.setScene(CreateScene());
         render();
         primaryStage.show();
-        aGrid.requestFocus();
+        aView.requestFocus();
     }
 
     /**
-     * Method to update the buttons in the grid based on their current statuses
+     * Method to redraw the squares in the view based on their current statuses
      */
     private void render(){
-        aGrid.getChildren().clear();
-        aGrid.requestFocus();
-        for(int i = 0; i < aField.getNumColumns(); i++){
-            for(int j = 0; j < aField.getNumRows(); j++){
-                aGrid.add(createNode(j, i), i, j);
-            }
-        }
+        aView.refresh();
     }
 
     /**
-     * A method to determine the status of a square and delegate its creation to the appropriate method.
-     * @param pRow The row of the square to be created.
-     * @param pColumn The column of the square to be created
-     * @return The button that will be added to the GridPane
+     * A method to change a square that has been clicked. The first accessible square pressed will become the source,
+     * the second will be the destination, and all subsequent will be inaccessible. Inaccessible squares become
+     * accessible again.
+     * @param pRow The row of the square clicked.
+     * @param pColumn The column of the square clicked.
      */
-    private Node createNode(int pRow, int pColumn){
-        if(aField.isAccessible(pRow, pColumn)){
-            return createAccessibleButton(pRow, pColumn);
-        }else if(aField.isSource(pRow, pColumn)){
-            return createSourceButton();
-        }else if(aField.isDestination(pRow, pColumn)){
-            return createDestinationButton();
-        }else if(aField.isPath(pRow, pColumn)){
-            return createPathButton();
-        }else{
-            return createInaccessibleButton(pRow, pColumn);
+    private void squareClicked(int pRow, int pColumn){
+        if(aSolving){
+            return;
         }
-    }
-
-    /**
-     * A method to create a button representing the source of the path to be created.
-     * @return The source button that has been created for this square position.
-     */
-    private Button createSourceButton(){
-        Button button = new Button();
-        button.setText("S");
-        button.setMinHeight(0);
-        button.setMinWidth(0);
-        button.setStyle(ACCESSIBLE_BUTTON_STYLE);
-        return button;
-    }
-
-    /**
-     * A method to create a button representing a square that is in the solution path.
-     * @return The button representing part of the path.
-     */
-    private Button createPathButton(){
-        Button button = new Button();
-        button.setMinHeight(0);
-        button.setMinWidth(0);
-        button.setStyle(PATH_BUTTON_STYLE);
-        return button;
-    }
-
-    /**
-     * A method to create a button representing the destination of the path to be created.
-     * @return The button representing the destination of the path.
-     */
-    private Button createDestinationButton(){
-        Button button = new Button();
-        button.setText("D");
-        button.setMinHeight(0);
-        button.setMinWidth(0);
-        button.setStyle(ACCESSIBLE_BUTTON_STYLE);
-        return button;
-    }
-
-    /**
-     * A method to create a button representing a square that may not be part of the final path.
-     * @return The button representing a square that may not be part of the final path.
-     */
-    private Button createInaccessibleButton(int pRow, int pColumn){
-        Button button = new Button();
-        button.setMinHeight(0);
-        button.setMinWidth(0);
-        button.setStyle(INACCESSIBLE_BUTTON_STYLE);
-        button.setOnMouseClicked(e ->{
+        if(aField.isAccessible(pRow, pColumn)){
+            if(aField.getSource().isEmpty()){
+                aField.setSource(pRow, pColumn);
+            }else if(aField.getDestination().isEmpty()){
+                aField.setDestination(pRow, pColumn);
+            }else{
+                aField.makeInaccessible(pRow, pColumn);
+            }
+        }else if(!aField.isPassable(pRow, pColumn)){
             aField.makeAccessible(pRow, pColumn);
-            render();
-        });
-        return button;
+        }
+        render();
     }
 
     /**
@@ -142,42 +97,25 @@ public class Main extends Application {
     private void reset(){
         for(int i = 0; i < aField.getNumColumns(); i++){
             for(int j = 0; j < aField.getNumRows(); j++){
-                Square.getSquare(i, j).resetSquare();
+                aField.getSquare(j, i).resetSquare();
             }
         }
         aField.fieldReset();
+        aView.clearExpanded();
+        aStatusLabel.setText("");
         render();
     }
 
-    /**
-     * A method to create an accessible button that may be changed into a source, destination, or inaccessible later on.
-     * @param pRow The row of the button to be created.
-     * @param pColumn The column of the button to be created.
-     * @return The Accessible button created.
-     */
-    private Button createAccessibleButton(int pRow, int pColumn){
-        Button button = new Button();
-        button.setMinHeight(0);
-        button.setMinWidth(0);
-        button.setStyle(ACCESSIBLE_BUTTON_STYLE);
-        //The first accessible button pressed will become the source, the second will be the destination, and all subsequent will be inaccessible.
-        button.setOnMouseClicked( e ->{
-            if(aField.getSource().isEmpty()){
-                aField.setSource(pRow, pColumn);
-            }else if(aField.getDestination().isEmpty()){
-                aField.setDestination(pRow, pColumn);
-            }else{
-                aField.makeInaccessible(pRow, pColumn);
-            }
-            render();
-        });
-        return button;
-    }
-
     /**
      * A method to initialize the field instance that this program will model.
      */
     private void initializeField(){
+        //The size of the field may be given as the arguments "rows columns".
+        List<String> arguments = getParameters().getRaw();
+        if(arguments.size() == 2){
+            NUM_ROWS = Integer.parseInt(arguments.get(0));
+            NUM_COLUMNS = Integer.parseInt(arguments.get(1));
+        }
         aField = new Field(NUM_ROWS, NUM_COLUMNS);
     }
 
@@ -187,46 +125,112 @@ public class Main extends Application {
      */
     private Scene CreateScene(){
         final BorderPane root = new BorderPane();
-        Button findPathButton = new Button();
-        findPathButton.setOnMouseClicked(e -> createPath());
-        findPathButton.setStyle(TOP_BUTTON_STYLE);
-        findPathButton.setText("Find Path");
-        Button resetButton = new Button();
-        resetButton.setOnMouseClicked(e -> reset());
-        resetButton.setStyle(TOP_BUTTON_STYLE);
-        resetButton.setText("Reset Grid");
+        aFindPathButton = new Button();
+        aFindPathButton.setOnMouseClicked(e -> createPath());
+        aFindPathButton.setStyle(TOP_BUTTON_STYLE);
+        aFindPathButton.setText("Find Path");
+        aResetButton = new Button();
+        aResetButton.setOnMouseClicked(e -> reset());
+        aResetButton.setStyle(TOP_BUTTON_STYLE);
+        aResetButton.setText("Reset Grid");
+        aCancelButton = new Button();
+        aCancelButton.setOnMouseClicked(e -> aCancellation.cancel());
+        aCancelButton.setStyle(TOP_BUTTON_STYLE);
+        aCancelButton.setText("Cancel");
+        aCancelButton.setDisable(true);
+        aAnimateBox = new CheckBox("Animate search");
+        aStatusLabel = new Label();
 
         HBox topButtons = new HBox();
         topButtons.setPadding(new Insets(12, 12, 12, 12));
         topButtons.setSpacing(10);
         topButtons.setStyle("-fx-background-color: #63B0EF");
-        topButtons.getChildren().addAll(findPathButton, resetButton);
+        topButtons.getChildren().addAll(aFindPathButton, aResetButton, aCancelButton, aAnimateBox, aStatusLabel);
         root.setTop(topButtons);
 
-        aGrid = new GridPane();
-        root.setCenter(aGrid);
-        aGrid.setHgap(1.5);
-        aGrid.setVgap(1.5);
-        aGrid.setAlignment(Pos.CENTER);
-        aGrid.setPadding(new Insets(PADDING));
+        int cellSize = Math.max(1, Math.min(30, VIEW_SIZE / Math.max(NUM_ROWS, NUM_COLUMNS)));
+        aView = new FieldView(aField, Math.min(VIEW_SIZE, NUM_COLUMNS * cellSize),
+                Math.min(VIEW_SIZE, NUM_ROWS * cellSize));
+        aView.setOnSquareClicked(this::squareClicked);
+        root.setCenter(aView);
+        BorderPane.setMargin(aView, new Insets(PADDING));
         return new Scene(root);
     }
 
     /**
-     * A method that will generate the shortest path as calculated by the AStar algorithm
+     * A method that will generate the shortest path as calculated by the AStar algorithm. The search runs on the solver
+     * thread and reports its progress to the status label, and to the view if the search is animated.
      */
     private void createPath(){
-        assert aField.getSource().isPresent() && aField.getDestination().isPresent();
-        AStar fieldAStar = new AStar(aField.getSource().get(), aField.getDestination().get(), aField.getNumColumns(), aField.getNumRows());
-        fieldAStar.solve();
-        for(Square square : fieldAStar.traceBackSolution()){
-            square.setStatus(Status.PATH);
+        if(aField.getSource().isEmpty() || aField.getDestination().isEmpty()){
+            aStatusLabel.setText("Select a source and a destination first");
+            return;
         }
-        render();
+        AStar fieldAStar = new AStar(aField, aField.getSource().get(), aField.getDestination().get());
+        aCancellation = new CancellationToken();
+        fieldAStar.setCancellationToken(aCancellation);
+        boolean animate = aAnimateBox.isSelected();
+        fieldAStar.setProgressListener((numExpanded, bestF, expandedCells, numExpandedCells) -> {
+            if(animate){
+                aView.addExpanded(Arrays.copyOf(expandedCells, numExpandedCells));
+            }
+            if(aProgressPending.compareAndSet(false, true)){
+                Platform.runLater(() -> {
+                    aProgressPending.set(false);
+                    if(aSolving){
+                        aStatusLabel.setText("Expanded " + numExpanded + " squares, best f " + bestF);
+                    }
+                });
+            }
+        });
+        aView.clearExpanded();
+        setSolving(true);
+        aSolver.submit(() -> {
+            fieldAStar.solve();
+            List<Square> path = fieldAStar.traceBackSolution();
+            Platform.runLater(() -> showPath(fieldAStar, path));
+        });
     }
 
+    /**
+     * A method to show the result of a search once it has finished.
+     * @param pAStar The search.
+     * @param pPath The squares of the path between the source and the destination.
+     */
+    private void showPath(AStar pAStar, List<Square> pPath){
+        setSolving(false);
+        if(pAStar.isCancelled()){
+            aStatusLabel.setText("Search cancelled after " + pAStar.getNumExpanded() + " squares");
+        }else if(!pAStar.isPathFound()){
+            aStatusLabel.setText("No path");
+        }else{
+            for(Square square : pPath){
+                square.setStatus(Status.PATH);
+            }
+            aStatusLabel.setText("Path of cost " + pAStar.getPathCost() + ", expanded " + pAStar.getNumExpanded()
+                    + " squares");
+        }
+        render();
+    }
 
+    /**
+     * A method to enable the buttons that may be used while a search runs and disable the others.
+     * @param pSolving The boolean corresponding to if a search is running.
+     */
+    private void setSolving(boolean pSolving){
+        aSolving = pSolving;
+        aFindPathButton.setDisable(pSolving);
+        aResetButton.setDisable(pSolving);
+        aCancelButton.setDisable(!pSolving);
+    }
 
+    @Override
+    public void stop(){
+        if(aCancellation != null){
+            aCancellation.cancel();
+        }
+        aSolver.shutdown();
+    }
 
     public static void main(String[] args) {
         launch(args);
@@ -0,0 +1,169 @@
+package PathFinding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The binary map format. A file starts with a 24 byte little-endian header (magic number, format version, number of
+ * rows, number of columns, flags and 4 unused bytes) followed by the walls of the map as little-endian longs, one bit
+ * per row-major cell, in the same layout as Field and MapSnapshot. If the COSTS flag is set, the walls are followed by
+ * the cost of every row-major cell minus 1 in one byte, like the costs of a Field; without it every square costs 1.
+ * Because neither needs decoding the file can be memory-mapped, which makes loading a map nearly free and lets every
+ * JVM on a machine share the same pages of the file. Files of version 1, which had a 16 byte header with no flags and
+ * no costs, are still read.
+ */
+public final class MapFile {
+    private static final int MAGIC = 0x504D5341; //"ASMP" in little-endian byte order
+    private static final int VERSION = 2;
+    //The header is a multiple of 8 bytes so that the walls stay aligned to longs.
+    private static final int HEADER_BYTES = 24;
+    private static final int VERSION_1_HEADER_BYTES = 16;
+    private static final int COSTS = 1;
+    private static final int WORDS_PER_WRITE = 1 << 13;
+
+    private MapFile(){}
+
+    /**
+     * A method to write the walls and costs of a map to a file, replacing the file if it exists.
+     * @param pMap The map to write.
+     * @param pPath The file to write to.
+     * @throws IOException If the file can't be written.
+     */
+    public static void write(GridMap pMap, Path pPath) throws IOException {
+        int numRows = pMap.getNumRows();
+        int numColumns = pMap.getNumColumns();
+        try(FileChannel channel = FileChannel.open(pPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)){
+            //The header is written last, once it is known if any square costs more than 1.
+            channel.position(HEADER_BYTES);
+            ByteBuffer buffer = ByteBuffer.allocate(WORDS_PER_WRITE * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            boolean hasCosts = false;
+            long word = 0;
+            int cell = 0;
+            for(int i = 0; i < numRows; i++){
+                for(int j = 0; j < numColumns; j++, cell++){
+                    if(!pMap.isPassable(i, j)){
+                        word |= 1L << cell;
+                    }
+                    hasCosts |= pMap.getCost(i, j) != 1;
+                    if((cell & 63) == 63){
+                        buffer.putLong(word);
+                        word = 0;
+                        if(!buffer.hasRemaining()){
+                            buffer.flip();
+                            writeFully(channel, buffer);
+                            buffer.clear();
+                        }
+                    }
+                }
+            }
+            if((cell & 63) != 0){
+                buffer.putLong(word);
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+            if(hasCosts){
+                buffer.clear();
+                for(int i = 0; i < numRows; i++){
+                    for(int j = 0; j < numColumns; j++){
+                        buffer.put((byte) (pMap.getCost(i, j) - 1));
+                        if(!buffer.hasRemaining()){
+                            buffer.flip();
+                            writeFully(channel, buffer);
+                            buffer.clear();
+                        }
+                    }
+                }
+                buffer.flip();
+                writeFully(channel, buffer);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(numRows).putInt(numColumns).putInt(hasCosts ? COSTS : 0).flip();
+            channel.position(0);
+            writeFully(channel, header);
+        }
+    }
+
+    /**
+     * A method to memory-map a map file as a read-only map. The walls and costs are read straight from the file's
+     * pages.
+     * @param pPath The file to map.
+     * @return The map backed by the file.
+     * @throws IOException If the file can't be read or is not a map file.
+     */
+    public static MappedMap map(Path pPath) throws IOException {
+        try(FileChannel channel = FileChannel.open(pPath, StandardOpenOption.READ)){
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int[] header = readHeader(buffer, channel.size());
+            int numRows = header[0];
+            int numColumns = header[1];
+            int wallsStart = header[2];
+            int costsStart = wallsStart + Field.wordsFor(numRows, numColumns) * Long.BYTES;
+            LongBuffer words = buffer.position(wallsStart).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            ByteBuffer costs = (header[3] & COSTS) == 0 ? null : buffer.position(costsStart).slice();
+            return new MappedMap(numRows, numColumns, words, costs);
+        }
+    }
+
+    /**
+     * A method to load a map file into a new field that can be edited.
+     * @param pPath The file to load.
+     * @return The field with the walls and costs of the file.
+     * @throws IOException If the file can't be read or is not a map file.
+     */
+    public static Field load(Path pPath) throws IOException {
+        MappedMap map = map(pPath);
+        long[] blocked = new long[Field.wordsFor(map.getNumRows(), map.getNumColumns())];
+        map.copyWords(blocked);
+        return new Field(map.getNumRows(), map.getNumColumns(), blocked, map.copyCosts());
+    }
+
+    /**
+     * A method to check the header of a map file against its size.
+     * @return The number of rows, the number of columns, the offset of the walls and the flags of the file.
+     * @throws IOException If the file is not a map file, is of an unsupported version or is too short.
+     */
+    private static int[] readHeader(ByteBuffer pBuffer, long pFileSize) throws IOException {
+        if(pFileSize < VERSION_1_HEADER_BYTES || pBuffer.getInt(0) != MAGIC){
+            throw new IOException("Not a map file");
+        }
+        int version = pBuffer.getInt(4);
+        if(version != 1 && version != VERSION){
+            throw new IOException("Unsupported map file version " + version);
+        }
+        int headerBytes = version == 1 ? VERSION_1_HEADER_BYTES : HEADER_BYTES;
+        if(pFileSize < headerBytes){
+            throw new IOException("Truncated map file");
+        }
+        int numRows = pBuffer.getInt(8);
+        int numColumns = pBuffer.getInt(12);
+        int flags = version == 1 ? 0 : pBuffer.getInt(16);
+        if(numRows <= 0 || numColumns <= 0 || (long) numRows * numColumns > Integer.MAX_VALUE){
+            throw new IOException("Invalid map size " + numRows + "x" + numColumns);
+        }
+        if((flags & ~COSTS) != 0){
+            throw new IOException("Unsupported map file flags " + flags);
+        }
+        long size = headerBytes + (long) Field.wordsFor(numRows, numColumns) * Long.BYTES;
+        if((flags & COSTS) != 0){
+            size += (long) numRows * numColumns;
+        }
+        if(pFileSize < size){
+            throw new IOException("Truncated map file");
+        }
+        return new int[]{numRows, numColumns, headerBytes, flags};
+    }
+
+    private static void writeFully(FileChannel pChannel, ByteBuffer pBuffer) throws IOException {
+        while(pBuffer.hasRemaining()){
+            pChannel.write(pBuffer);
+        }
+    }
+}
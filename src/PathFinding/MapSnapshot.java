@@ -0,0 +1,78 @@
+package PathFinding;
+
+/**
+ * An immutable copy of which squares of a map are passable and what they cost. Unlike a Field, a snapshot can be shared
+ * by any number of threads searching it at the same time. Walls are stored as one bit per cell in row-major order,
+ * and costs, if any square costs more than 1, as one byte per cell.
+ */
+public final class MapSnapshot implements GridMap {
+    private final int aNumRows;
+    private final int aNumColumns;
+    private final long[] aBlocked;
+    //The cost of every cell minus 1, or null if every cell costs 1.
+    private final byte[] aCosts;
+
+    /**
+     * A constructor to create a snapshot around a wall bitset that no one else may modify.
+     * @param pNumRows The number of rows of the map.
+     * @param pNumColumns The number of columns of the map.
+     * @param pBlocked The walls of the map, one bit per row-major cell.
+     * @param pCosts The cost of every row-major cell minus 1, or null if every cell costs 1.
+     */
+    MapSnapshot(int pNumRows, int pNumColumns, long[] pBlocked, byte[] pCosts){
+        aNumRows = pNumRows;
+        aNumColumns = pNumColumns;
+        aBlocked = pBlocked;
+        aCosts = pCosts;
+    }
+
+    /**
+     * A method to take a snapshot of the passable squares of a map.
+     * @param pMap The map to copy.
+     * @return The snapshot of the map.
+     */
+    public static MapSnapshot of(GridMap pMap){
+        int numRows = pMap.getNumRows();
+        int numColumns = pMap.getNumColumns();
+        long[] blocked = new long[Field.wordsFor(numRows, numColumns)];
+        byte[] costs = null;
+        for(int i = 0; i < numRows; i++){
+            for(int j = 0; j < numColumns; j++){
+                int cell = i * numColumns + j;
+                if(!pMap.isPassable(i, j)){
+                    blocked[cell >>> 6] |= 1L << cell;
+                }
+                int cost = pMap.getCost(i, j);
+                if(cost != 1){
+                    if(costs == null){
+                        costs = new byte[numRows * numColumns];
+                    }
+                    costs[cell] = (byte) (cost - 1);
+                }
+            }
+        }
+        return new MapSnapshot(numRows, numColumns, blocked, costs);
+    }
+
+    @Override
+    public int getNumRows(){
+        return aNumRows;
+    }
+
+    @Override
+    public int getNumColumns(){
+        return aNumColumns;
+    }
+
+    @Override
+    public boolean isPassable(int pRow, int pColumn){
+        assert pRow >= 0 && pRow < aNumRows && pColumn >= 0 && pColumn < aNumColumns;
+        int cell = pRow * aNumColumns + pColumn;
+        return (aBlocked[cell >>> 6] & (1L << cell)) == 0;
+    }
+
+    @Override
+    public int getCost(int pRow, int pColumn){
+        return aCosts == null ? 1 : (aCosts[pRow * aNumColumns + pColumn] & 0xFF) + 1;
+    }
+}
@@ -0,0 +1,74 @@
+package PathFinding;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A read-only map whose walls and costs are read from a memory-mapped map file (see MapFile.map). Like a MapSnapshot
+ * it never changes, so any number of threads may search it at the same time.
+ */
+public final class MappedMap implements GridMap {
+    private final int aNumRows;
+    private final int aNumColumns;
+    private final LongBuffer aBlocked;
+    //The cost of every cell minus 1, or null if every cell costs 1.
+    private final ByteBuffer aCosts;
+
+    /**
+     * A constructor to create a map around the mapped walls and costs of a map file.
+     * @param pNumRows The number of rows of the map.
+     * @param pNumColumns The number of columns of the map.
+     * @param pBlocked The walls of the map, one bit per row-major cell.
+     * @param pCosts The cost of every row-major cell minus 1 in one byte, or null if every cell costs 1.
+     */
+    MappedMap(int pNumRows, int pNumColumns, LongBuffer pBlocked, ByteBuffer pCosts){
+        aNumRows = pNumRows;
+        aNumColumns = pNumColumns;
+        aBlocked = pBlocked;
+        aCosts = pCosts;
+    }
+
+    @Override
+    public int getNumRows(){
+        return aNumRows;
+    }
+
+    @Override
+    public int getNumColumns(){
+        return aNumColumns;
+    }
+
+    @Override
+    public boolean isPassable(int pRow, int pColumn){
+        assert pRow >= 0 && pRow < aNumRows && pColumn >= 0 && pColumn < aNumColumns;
+        int cell = pRow * aNumColumns + pColumn;
+        return (aBlocked.get(cell >>> 6) & (1L << cell)) == 0;
+    }
+
+    @Override
+    public int getCost(int pRow, int pColumn){
+        assert pRow >= 0 && pRow < aNumRows && pColumn >= 0 && pColumn < aNumColumns;
+        return aCosts == null ? 1 : (aCosts.get(pRow * aNumColumns + pColumn) & 0xFF) + 1;
+    }
+
+    /**
+     * A method to copy the walls of the map into an array.
+     * @param pBlocked The array to copy into, which must hold one bit per cell.
+     */
+    void copyWords(long[] pBlocked){
+        aBlocked.get(0, pBlocked, 0, pBlocked.length);
+    }
+
+    /**
+     * A method to copy the costs of the map into a new array.
+     * @return The cost of every row-major cell minus 1, or null if every cell costs 1.
+     */
+    byte[] copyCosts(){
+        if(aCosts == null){
+            return null;
+        }
+        byte[] costs = new byte[aNumRows * aNumColumns];
+        aCosts.get(0, costs);
+        return costs;
+    }
+}
@@ -0,0 +1,58 @@
+package PathFinding;
+
+/**
+ * The ways of moving from a square to its neighbours. The cost of a step is the straight or diagonal cost of the
+ * movement times the cost of the square that is entered (see GridMap.getCost).
+ */
+public enum Movement {
+    //Horizontal and vertical steps only, each costing 1.
+    CARDINAL(new int[]{-1, 0, 1, 0}, new int[]{0, -1, 0, 1}, 1, 0),
+    //Diagonal steps as well, costing 14 against 10 for a straight step. A diagonal step may not cut the corner of
+    //an impassable square, so both squares beside it must be passable.
+    OCTILE(new int[]{-1, 0, 1, 0, -1, -1, 1, 1}, new int[]{0, -1, 0, 1, -1, 1, -1, 1}, 10, 14);
+
+    private final int[] aRowOffsets;
+    private final int[] aColumnOffsets;
+    private final int aStraightCost;
+    private final int aDiagonalCost;
+
+    Movement(int[] pRowOffsets, int[] pColumnOffsets, int pStraightCost, int pDiagonalCost){
+        aRowOffsets = pRowOffsets;
+        aColumnOffsets = pColumnOffsets;
+        aStraightCost = pStraightCost;
+        aDiagonalCost = pDiagonalCost;
+    }
+
+    /**
+     * A method to get the row offsets of the neighbours of a square. The first four are the straight neighbours.
+     * @return The row offsets, which may not be modified.
+     */
+    int[] rowOffsets(){
+        return aRowOffsets;
+    }
+
+    /**
+     * A method to get the column offsets of the neighbours of a square, in the same order as rowOffsets.
+     * @return The column offsets, which may not be modified.
+     */
+    int[] columnOffsets(){
+        return aColumnOffsets;
+    }
+
+    //Getter for the cost of a horizontal or vertical step
+    public int getStraightCost(){
+        return aStraightCost;
+    }
+    //Getter for the cost of a diagonal step
+    public int getDiagonalCost(){
+        return aDiagonalCost;
+    }
+
+    /**
+     * A method to get the tightest standard heuristic for the movement: Manhattan or octile distance.
+     * @return The heuristic.
+     */
+    public Heuristic defaultHeuristic(){
+        return this == CARDINAL ? Heuristics.manhattan(aStraightCost) : Heuristics.octile(aStraightCost, aDiagonalCost);
+    }
+}
@@ -0,0 +1,98 @@
+package PathFinding;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reader for the standard grid pathfinding benchmark files: ".map" files, a header ("type", "height", "width")
+ * followed by "map" and one line per row, and ".scen" files, a "version" line followed by one query per line
+ * (bucket, map, width, height, start x, start y, goal x, goal y, optimal length). In these files x is the column
+ * and y the row. Map characters are read like AsciiMapImporter: '@', 'O', 'T' and 'W' are walls, everything else
+ * ('.', 'G', 'S') is passable.
+ */
+public final class MovingAiFormat {
+    private MovingAiFormat(){}
+
+    /**
+     * A method to read a ".map" file into a new field.
+     * @param pReader The text of the map file.
+     * @return The field with the walls of the map.
+     * @throws IOException If the text can't be read or is not a map file.
+     */
+    public static Field readMap(Reader pReader) throws IOException {
+        BufferedReader reader = new BufferedReader(pReader);
+        int numRows = -1;
+        int numColumns = -1;
+        String line;
+        while((line = reader.readLine()) != null && !line.trim().equals("map")){
+            String[] parts = line.trim().split("\\s+");
+            if(parts.length == 2 && parts[0].equals("height")){
+                numRows = Integer.parseInt(parts[1]);
+            }else if(parts.length == 2 && parts[0].equals("width")){
+                numColumns = Integer.parseInt(parts[1]);
+            }
+        }
+        if(line == null || numRows <= 0 || numColumns <= 0){
+            throw new IOException("Missing map header");
+        }
+        Field field = new Field(numRows, numColumns);
+        for(int i = 0; i < numRows; i++){
+            line = reader.readLine();
+            if(line == null || line.length() < numColumns){
+                throw new IOException("Row " + i + " is missing or too short");
+            }
+            for(int j = 0; j < numColumns; j++){
+                if(AsciiMapImporter.isWall(line.charAt(j))){
+                    field.makeInaccessible(i, j);
+                }
+            }
+        }
+        return field;
+    }
+
+    /**
+     * A method to read the queries of a ".scen" file.
+     * @param pReader The text of the scenario file.
+     * @return The scenarios in the order of the file.
+     * @throws IOException If the text can't be read or a line is malformed.
+     */
+    public static List<Scenario> readScenarios(Reader pReader) throws IOException {
+        BufferedReader reader = new BufferedReader(pReader);
+        List<Scenario> scenarios = new ArrayList<>();
+        String line;
+        while((line = reader.readLine()) != null){
+            Scenario scenario = parseScenario(line);
+            if(scenario != null){
+                scenarios.add(scenario);
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * A method to read one line of a ".scen" file, for callers that stream the queries instead of reading them all.
+     * @param pLine The line.
+     * @return The scenario of the line, or null if the line is blank or the "version" line.
+     * @throws IOException If the line is malformed.
+     */
+    public static Scenario parseScenario(String pLine) throws IOException {
+        String line = pLine.trim();
+        if(line.isEmpty() || line.startsWith("version")){
+            return null;
+        }
+        String[] parts = line.split("\\s+");
+        if(parts.length < 9){
+            throw new IOException("Malformed scenario: " + line);
+        }
+        try{
+            PathQuery query = new PathQuery(Integer.parseInt(parts[5]), Integer.parseInt(parts[4]),
+                    Integer.parseInt(parts[7]), Integer.parseInt(parts[6]));
+            return new Scenario(Integer.parseInt(parts[0]), parts[1], query, Double.parseDouble(parts[8]));
+        }catch(NumberFormatException e){
+            throw new IOException("Malformed scenario: " + line, e);
+        }
+    }
+}
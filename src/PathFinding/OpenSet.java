@@ -0,0 +1,226 @@
+package PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary min-heap of cell ids used as the open list of a search.
+ * Every cell is in the set at most once and its position in the heap is tracked so that
+ * membership tests are O(1) and decreasing its key is O(log n).
+ */
+public class OpenSet {
+    private static final int INITIAL_CAPACITY = 64;
+    private int[] aHeap;
+    private long[] aKeys;
+    private final int[] aPositions;
+    private int aSize;
+
+    /**
+     * A constructor to create an empty open set for a field with a certain number of cells.
+     * @param pNumCells The number of cells (rows * columns) that may be put in the set.
+     */
+    public OpenSet(int pNumCells){
+        assert pNumCells > 0;
+        aHeap = new int[INITIAL_CAPACITY];
+        aKeys = new long[INITIAL_CAPACITY];
+        aPositions = new int[pNumCells];
+        Arrays.fill(aPositions, -1);
+        aSize = 0;
+    }
+
+    /**
+     * A method to build the key of a cell so that cells are ordered by F and ties are broken by the
+     * smaller predicted distance to the destination, which keeps the resulting paths stable.
+     * @param pF The distance from the start plus the predicted distance to the destination.
+     * @param pH The predicted distance to the destination.
+     * @return The key to order the cell by.
+     */
+    public static long key(int pF, int pH){
+        return ((long) pF << 32) | (pH & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A method to get the F value stored in a key.
+     * @param pKey The key created by key.
+     * @return The F value of the key.
+     */
+    public static int fOf(long pKey){
+        return (int) (pKey >> 32);
+    }
+
+    /**
+     * A method to add a cell that is not yet in the set.
+     * @param pCell The cell to add.
+     * @param pKey The key of the cell.
+     */
+    public void insert(int pCell, long pKey){
+        assert !contains(pCell);
+        if(aSize == aHeap.length){
+            aHeap = Arrays.copyOf(aHeap, aSize * 2);
+            aKeys = Arrays.copyOf(aKeys, aSize * 2);
+        }
+        aHeap[aSize] = pCell;
+        aKeys[aSize] = pKey;
+        aPositions[pCell] = aSize;
+        aSize++;
+        siftUp(aSize - 1);
+    }
+
+    /**
+     * A method to lower the key of a cell that is already in the set.
+     * @param pCell The cell to update.
+     * @param pKey The new key, which may not be larger than the current one.
+     */
+    public void decreaseKey(int pCell, long pKey){
+        assert contains(pCell);
+        int position = aPositions[pCell];
+        assert pKey <= aKeys[position];
+        aKeys[position] = pKey;
+        siftUp(position);
+    }
+
+    /**
+     * A method to change the key of a cell that is already in the set to any value.
+     * @param pCell The cell to update.
+     * @param pKey The new key of the cell.
+     */
+    public void update(int pCell, long pKey){
+        assert contains(pCell);
+        int position = aPositions[pCell];
+        long oldKey = aKeys[position];
+        aKeys[position] = pKey;
+        if(pKey < oldKey){
+            siftUp(position);
+        }else{
+            siftDown(position);
+        }
+    }
+
+    /**
+     * A method to remove a cell from the set.
+     * @param pCell The cell to remove, which must be in the set.
+     */
+    public void remove(int pCell){
+        assert contains(pCell);
+        int position = aPositions[pCell];
+        aPositions[pCell] = -1;
+        aSize--;
+        if(position == aSize){
+            return;
+        }
+        long oldKey = aKeys[position];
+        aHeap[position] = aHeap[aSize];
+        aKeys[position] = aKeys[aSize];
+        aPositions[aHeap[position]] = position;
+        if(aKeys[position] < oldKey){
+            siftUp(position);
+        }else{
+            siftDown(position);
+        }
+    }
+
+    /**
+     * A method to remove the cell with the smallest key from the set.
+     * @return The cell with the smallest key.
+     */
+    public int poll(){
+        assert aSize > 0;
+        int smallest = aHeap[0];
+        aPositions[smallest] = -1;
+        aSize--;
+        if(aSize > 0){
+            aHeap[0] = aHeap[aSize];
+            aKeys[0] = aKeys[aSize];
+            aPositions[aHeap[0]] = 0;
+            siftDown(0);
+        }
+        return smallest;
+    }
+
+    /**
+     * A method to get the smallest key in the set without removing its cell.
+     * @return The smallest key.
+     */
+    public long peekKey(){
+        assert aSize > 0;
+        return aKeys[0];
+    }
+
+    /**
+     * A method to test if a cell is in the set.
+     * @param pCell The cell to test.
+     * @return The boolean corresponding to if the cell is in the set.
+     */
+    public boolean contains(int pCell){
+        return aPositions[pCell] >= 0;
+    }
+
+    /**
+     * A method to test if the set is empty.
+     * @return The boolean corresponding to if the set is empty.
+     */
+    public boolean isEmpty(){
+        return aSize == 0;
+    }
+
+    /**
+     * A method to get the number of cells in the set.
+     * @return The number of cells in the set.
+     */
+    public int size(){
+        return aSize;
+    }
+
+    /**
+     * A method to remove every cell from the set. Only the cells still in the set are touched.
+     */
+    public void clear(){
+        for(int i = 0; i < aSize; i++){
+            aPositions[aHeap[i]] = -1;
+        }
+        aSize = 0;
+    }
+
+    private void siftUp(int pPosition){
+        int cell = aHeap[pPosition];
+        long key = aKeys[pPosition];
+        while(pPosition > 0){
+            int parent = (pPosition - 1) >>> 1;
+            if(aKeys[parent] <= key){
+                break;
+            }
+            move(parent, pPosition);
+            pPosition = parent;
+        }
+        place(cell, key, pPosition);
+    }
+
+    private void siftDown(int pPosition){
+        int cell = aHeap[pPosition];
+        long key = aKeys[pPosition];
+        int half = aSize >>> 1;
+        while(pPosition < half){
+            int child = 2 * pPosition + 1;
+            if(child + 1 < aSize && aKeys[child + 1] < aKeys[child]){
+                child++;
+            }
+            if(key <= aKeys[child]){
+                break;
+            }
+            move(child, pPosition);
+            pPosition = child;
+        }
+        place(cell, key, pPosition);
+    }
+
+    private void move(int pFrom, int pTo){
+        aHeap[pTo] = aHeap[pFrom];
+        aKeys[pTo] = aKeys[pFrom];
+        aPositions[aHeap[pTo]] = pTo;
+    }
+
+    private void place(int pCell, long pKey, int pPosition){
+        aHeap[pPosition] = pCell;
+        aKeys[pPosition] = pKey;
+        aPositions[pCell] = pPosition;
+    }
+}
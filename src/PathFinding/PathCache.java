@@ -0,0 +1,215 @@
+package PathFinding;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of shortest paths in front of AStar, for maps that are asked for the same paths again and again.
+ * Paths are keyed by their source and destination and remember the version of the map they were found on (see
+ * GridMap.getVersion), so that any change to the map makes every cached path a miss. The cache is split into segments,
+ * each a small least-recently-used map with its own lock, so that threads looking up different paths rarely wait for
+ * each other.
+ * With sub-path reuse on, the latest path to every destination is also remembered, and a query whose source lies on
+ * that path is answered with the rest of it, which is a shortest path as well.
+ * The map must not change while a query is being solved.
+ */
+public class PathCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final GridMap aMap;
+    private final Movement aMovement;
+    private final Segment[] aSegments;
+    //The latest cached path to every destination, only filled when sub-paths are reused.
+    private final ConcurrentHashMap<Integer, CachedPath> aPathsByDestination;
+    private volatile boolean aReuseSubPaths;
+    private final LongAdder aHits = new LongAdder();
+    private final LongAdder aSubPathHits = new LongAdder();
+    private final LongAdder aMisses = new LongAdder();
+    private final LongAdder aEvictions = new LongAdder();
+
+    /**
+     * A constructor to create an empty cache of paths found with horizontal and vertical steps.
+     * @param pMap The map to find paths in.
+     * @param pCapacity The largest number of paths to keep.
+     */
+    public PathCache(GridMap pMap, int pCapacity){
+        this(pMap, Movement.CARDINAL, pCapacity);
+    }
+
+    /**
+     * A constructor to create an empty cache.
+     * @param pMap The map to find paths in.
+     * @param pMovement The movement to find paths with.
+     * @param pCapacity The largest number of paths to keep.
+     */
+    public PathCache(GridMap pMap, Movement pMovement, int pCapacity){
+        assert pCapacity > 0;
+        aMap = pMap;
+        aMovement = pMovement;
+        //The capacity is split exactly, so a small cache has fewer segments rather than more room than it was given.
+        int numSegments = Math.min(MAX_SEGMENTS, pCapacity);
+        aSegments = new Segment[numSegments];
+        for(int i = 0; i < numSegments; i++){
+            aSegments[i] = new Segment(pCapacity / numSegments + (i < pCapacity % numSegments ? 1 : 0));
+        }
+        aPathsByDestination = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * A method to set if queries may be answered with the end of a cached path to the same destination.
+     * @param pReuseSubPaths The boolean corresponding to if sub-paths are reused, false unless set.
+     */
+    public void setReuseSubPaths(boolean pReuseSubPaths){
+        aReuseSubPaths = pReuseSubPaths;
+        if(!pReuseSubPaths){
+            aPathsByDestination.clear();
+        }
+    }
+
+    /**
+     * A method to get the shortest path of a query, from the cache if possible.
+     * @param pQuery The query.
+     * @return The cells of the path from the source to the destination inclusive, or an empty array if there is none.
+     * The array may be shared with other callers and must not be modified.
+     */
+    public int[] findPath(PathQuery pQuery){
+        int numColumns = aMap.getNumColumns();
+        int source = pQuery.getSourceRow() * numColumns + pQuery.getSourceColumn();
+        int destination = pQuery.getDestinationRow() * numColumns + pQuery.getDestinationColumn();
+        long key = ((long) source << 32) | (destination & 0xFFFFFFFFL);
+        long version = aMap.getVersion();
+        Segment segment = aSegments[segmentOf(key)];
+        CachedPath cached = segment.get(key);
+        if(cached != null && cached.aVersion == version){
+            aHits.increment();
+            return cached.aCells;
+        }
+        if(aReuseSubPaths){
+            int[] subPath = findSubPath(source, destination, version);
+            if(subPath != null){
+                aSubPathHits.increment();
+                return subPath;
+            }
+        }
+        aMisses.increment();
+        AStar aStar = new AStar(aMap, pQuery.getSourceRow(), pQuery.getSourceColumn(), pQuery.getDestinationRow(),
+                pQuery.getDestinationColumn(), SearchContext.forCurrentThread(aMap.getNumCells()));
+        aStar.setMovement(aMovement);
+        aStar.solve();
+        CachedPath path = new CachedPath(key, version, aStar.getPath());
+        segment.put(key, path);
+        if(aReuseSubPaths && path.aCells.length > 0){
+            aPathsByDestination.put(destination, path);
+        }
+        return path.aCells;
+    }
+
+    /**
+     * A method to forget every cached path, e.g. to free memory. Changes to the map don't need it.
+     */
+    public void clear(){
+        for(Segment segment : aSegments){
+            segment.clear();
+        }
+        aPathsByDestination.clear();
+    }
+
+    //Getter for the number of queries answered with a cached path
+    public long getNumHits(){
+        return aHits.sum();
+    }
+    //Getter for the number of queries answered with the end of a cached path
+    public long getNumSubPathHits(){
+        return aSubPathHits.sum();
+    }
+    //Getter for the number of queries that had to be solved
+    public long getNumMisses(){
+        return aMisses.sum();
+    }
+    //Getter for the number of paths dropped to make room for newer ones
+    public long getNumEvictions(){
+        return aEvictions.sum();
+    }
+
+    /**
+     * A method to get the share of queries that were answered from the cache.
+     * @return The hit rate from 0 to 1, or 0 before the first query.
+     */
+    public double getHitRate(){
+        long hits = getNumHits() + getNumSubPathHits();
+        long total = hits + getNumMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * A method to look for the source on the latest path to the destination.
+     * @return The rest of that path from the source, or null.
+     */
+    private int[] findSubPath(int pSource, int pDestination, long pVersion){
+        CachedPath path = aPathsByDestination.get(pDestination);
+        if(path == null || path.aVersion != pVersion){
+            return null;
+        }
+        int[] cells = path.aCells;
+        for(int i = 0; i < cells.length; i++){
+            if(cells[i] == pSource){
+                return Arrays.copyOfRange(cells, i, cells.length);
+            }
+        }
+        return null;
+    }
+
+    private int segmentOf(long pKey){
+        long hash = pKey * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 32) % aSegments.length);
+    }
+
+    private static final class CachedPath {
+        private final long aKey;
+        private final long aVersion;
+        private final int[] aCells;
+
+        private CachedPath(long pKey, long pVersion, int[] pCells){
+            aKey = pKey;
+            aVersion = pVersion;
+            aCells = pCells;
+        }
+    }
+
+    /**
+     * A least-recently-used map of part of the cached paths.
+     */
+    private final class Segment {
+        private final LinkedHashMap<Long, CachedPath> aPaths;
+
+        private Segment(int pCapacity){
+            aPaths = new LinkedHashMap<Long, CachedPath>(pCapacity * 2, 0.75f, true){
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CachedPath> pEldest){
+                    if(size() <= pCapacity){
+                        return false;
+                    }
+                    aEvictions.increment();
+                    int destination = (int) pEldest.getValue().aKey;
+                    aPathsByDestination.remove(destination, pEldest.getValue());
+                    return true;
+                }
+            };
+        }
+
+        private synchronized CachedPath get(long pKey){
+            return aPaths.get(pKey);
+        }
+
+        private synchronized void put(long pKey, CachedPath pPath){
+            aPaths.put(pKey, pPath);
+        }
+
+        private synchronized void clear(){
+            aPaths.clear();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package PathFinding;
+
+/**
+ * An immutable request for the shortest path between two squares of a map.
+ */
+public final class PathQuery {
+    private final int aSourceRow;
+    private final int aSourceColumn;
+    private final int aDestinationRow;
+    private final int aDestinationColumn;
+
+    /**
+     * A constructor to create a query between two squares.
+     * @param pSourceRow The row of the source.
+     * @param pSourceColumn The column of the source.
+     * @param pDestinationRow The row of the destination.
+     * @param pDestinationColumn The column of the destination.
+     */
+    public PathQuery(int pSourceRow, int pSourceColumn, int pDestinationRow, int pDestinationColumn){
+        aSourceRow = pSourceRow;
+        aSourceColumn = pSourceColumn;
+        aDestinationRow = pDestinationRow;
+        aDestinationColumn = pDestinationColumn;
+    }
+
+    //Getter for the row of the source
+    public int getSourceRow(){
+        return aSourceRow;
+    }
+    //Getter for the column of the source
+    public int getSourceColumn(){
+        return aSourceColumn;
+    }
+    //Getter for the row of the destination
+    public int getDestinationRow(){
+        return aDestinationRow;
+    }
+    //Getter for the column of the destination
+    public int getDestinationColumn(){
+        return aDestinationColumn;
+    }
+}
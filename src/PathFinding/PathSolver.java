@@ -0,0 +1,23 @@
+package PathFinding;
+
+/**
+ * A search for the shortest path between a source and a destination of a map.
+ */
+public interface PathSolver {
+    /**
+     * A method to solve for the shortest path.
+     */
+    void solve();
+
+    /**
+     * A method to get the path found by solve as row-major cell indices, from the source to the destination inclusive.
+     * @return The cells of the path, or an empty array if solve found no path.
+     */
+    int[] getPath();
+
+    /**
+     * A method to get the number of squares that solve took out of its open list and expanded.
+     * @return The number of expanded squares.
+     */
+    int getNumExpanded();
+}
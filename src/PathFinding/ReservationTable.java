@@ -0,0 +1,238 @@
+package PathFinding;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The squares that agents have reserved at every time step of a window of time, so that cooperative planners can
+ * route agents around each other (see CooperativePlanner). Time steps are kept in a ring of slots, one per step of the
+ * window: when time advances, the slots of the steps that have passed are emptied and reused for the steps that enter
+ * the window, so the table never grows. A slot is a fixed-size open-addressing table of longs, each holding a square
+ * and the agent that reserved it, which any number of threads can read and release in without locking; reservations
+ * of the same time step take turns. A released square keeps its entry, with no agent, until another square reserved
+ * at that time step takes it over, so lookups never have to move entries and replanning doesn't fill up the slots.
+ * Agents that reached their destination are parked there from some time on, which holds beyond the window.
+ */
+public class ReservationTable {
+    public static final int NO_AGENT = -1;
+    private static final long EMPTY = 0;
+
+    private final int aHorizon;
+    private final int aSlotCapacity;
+    private final AtomicLongArray[] aSlots;
+    private volatile int aNow;
+    //The agent parked on a square and the time it has been parked there from, packed into a long.
+    private final ConcurrentHashMap<Integer, Long> aParked;
+
+    /**
+     * A constructor to create an empty table whose window starts at time step 0.
+     * @param pHorizon The number of time steps that can be reserved ahead of the current one.
+     * @param pMaxAgents The largest number of agents that reserve squares at the same time step.
+     */
+    public ReservationTable(int pHorizon, int pMaxAgents){
+        assert pHorizon > 0 && pMaxAgents > 0;
+        aHorizon = pHorizon;
+        //A slot may hold released squares as well, so it is sized well above the number of agents.
+        aSlotCapacity = Integer.highestOneBit(Math.max(16, pMaxAgents * 4) - 1) << 1;
+        aSlots = new AtomicLongArray[pHorizon];
+        for(int i = 0; i < pHorizon; i++){
+            aSlots[i] = new AtomicLongArray(aSlotCapacity);
+        }
+        aParked = new ConcurrentHashMap<>();
+    }
+
+    //Getter for the number of time steps that can be reserved ahead of the current one
+    public int getHorizon(){
+        return aHorizon;
+    }
+    //Getter for the current time step, the first one that can be reserved
+    public int getNow(){
+        return aNow;
+    }
+
+    /**
+     * A method to test if a time step lies in the window of time that can be reserved.
+     * @param pTime The time step.
+     * @return The boolean corresponding to if the time step can be reserved.
+     */
+    public boolean isInWindow(int pTime){
+        int now = aNow;
+        return pTime >= now && pTime < now + aHorizon;
+    }
+
+    /**
+     * A method to get the agent that is on a square at a time step.
+     * @param pCell The row-major cell of the square.
+     * @param pTime The time step.
+     * @return The agent that reserved the square at that time or is parked on it, or NO_AGENT.
+     */
+    public int getAgent(int pCell, int pTime){
+        if(isInWindow(pTime)){
+            AtomicLongArray slot = aSlots[pTime % aHorizon];
+            int index = find(slot, pCell);
+            if(index >= 0 && agentOf(slot.get(index)) != NO_AGENT){
+                return agentOf(slot.get(index));
+            }
+        }
+        Long parked = aParked.get(pCell);
+        return parked != null && (int) (parked >> 32) <= pTime ? (int) (long) parked : NO_AGENT;
+    }
+
+    /**
+     * A method to reserve a square at a time step for an agent, unless another agent has it.
+     * @param pCell The row-major cell of the square.
+     * @param pTime The time step, which must be in the window.
+     * @param pAgent The agent, at least 0.
+     * @return The boolean corresponding to if the square is now reserved for the agent, false if another agent has it
+     * or the time step has no room for another square.
+     */
+    public boolean reserve(int pCell, int pTime, int pAgent){
+        assert isInWindow(pTime) && pAgent >= 0;
+        Long parked = aParked.get(pCell);
+        if(parked != null && (int) (parked >> 32) <= pTime && (int) (long) parked != pAgent){
+            return false;
+        }
+        AtomicLongArray slot = aSlots[pTime % aHorizon];
+        //Reservations of a time step are made one at a time, so that a released entry can be given to another square
+        //without two entries of the same square ending up in the slot.
+        synchronized(slot){
+            int released = -1;
+            int i = indexOf(pCell);
+            for(int probes = 0; probes < aSlotCapacity; probes++){
+                long entry = slot.get(i);
+                if(entry == EMPTY){
+                    break;
+                }
+                if(cellOf(entry) == pCell){
+                    if(agentOf(entry) == pAgent){
+                        return true;
+                    }
+                    return agentOf(entry) == NO_AGENT && slot.compareAndSet(i, entry, entry(pCell, pAgent));
+                }
+                if(released < 0 && agentOf(entry) == NO_AGENT){
+                    released = i;
+                }
+                i = (i + 1) & (aSlotCapacity - 1);
+            }
+            //The square has no entry; the first released entry on its way is reused, so the slot only fills up with
+            //squares that are actually reserved.
+            if(released >= 0){
+                long entry = slot.get(released);
+                return agentOf(entry) == NO_AGENT && slot.compareAndSet(released, entry, entry(pCell, pAgent));
+            }
+            return slot.get(i) == EMPTY && slot.compareAndSet(i, EMPTY, entry(pCell, pAgent));
+        }
+    }
+
+    /**
+     * A method to release a square that an agent reserved at a time step. Time steps outside the window are ignored.
+     * @param pCell The row-major cell of the square.
+     * @param pTime The time step.
+     * @param pAgent The agent.
+     */
+    public void release(int pCell, int pTime, int pAgent){
+        if(!isInWindow(pTime)){
+            return;
+        }
+        AtomicLongArray slot = aSlots[pTime % aHorizon];
+        int index = find(slot, pCell);
+        if(index >= 0){
+            slot.compareAndSet(index, entry(pCell, pAgent), entry(pCell, NO_AGENT));
+        }
+    }
+
+    /**
+     * A method to park an agent on a square from a time step on, unless another agent is parked there.
+     * @param pCell The row-major cell of the square.
+     * @param pTime The first time step of the agent on the square.
+     * @param pAgent The agent.
+     * @return The boolean corresponding to if the agent is now parked on the square.
+     */
+    public boolean park(int pCell, int pTime, int pAgent){
+        long parked = ((long) pTime << 32) | (pAgent & 0xFFFFFFFFL);
+        Long previous = aParked.putIfAbsent(pCell, parked);
+        return previous == null || (int) (long) previous == pAgent && aParked.replace(pCell, previous, parked);
+    }
+
+    /**
+     * A method to stop parking an agent on a square.
+     * @param pCell The row-major cell of the square.
+     * @param pAgent The agent.
+     */
+    public void unpark(int pCell, int pAgent){
+        aParked.computeIfPresent(pCell, (cell, parked) -> (int) (long) parked == pAgent ? null : parked);
+    }
+
+    /**
+     * A method to test if no other agent has a square at any time step from a time step to the end of the window.
+     * @param pCell The row-major cell of the square.
+     * @param pTime The first time step.
+     * @param pAgent The agent that may have the square.
+     * @return The boolean corresponding to if the agent could stay on the square from then on.
+     */
+    public boolean isFreeFrom(int pCell, int pTime, int pAgent){
+        Long parked = aParked.get(pCell);
+        if(parked != null && (int) (long) parked != pAgent){
+            return false;
+        }
+        int end = aNow + aHorizon;
+        for(int time = Math.max(pTime, aNow); time < end; time++){
+            int agent = getAgent(pCell, time);
+            if(agent != NO_AGENT && agent != pAgent){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A method to move the window of time forward, forgetting every reservation before the new current time step.
+     * @param pTime The new current time step, which may not be earlier than the current one.
+     */
+    public synchronized void advanceTo(int pTime){
+        assert pTime >= aNow;
+        //Time step t is kept in slot t % horizon, so the slots of the steps that passed are the ones that enter.
+        for(int time = aNow; time < Math.min(pTime, aNow + aHorizon); time++){
+            AtomicLongArray slot = aSlots[time % aHorizon];
+            for(int i = 0; i < aSlotCapacity; i++){
+                slot.set(i, EMPTY);
+            }
+        }
+        aNow = pTime;
+    }
+
+    /**
+     * A method to find the entry of a square in a slot.
+     * @return The index of the entry, or -1 if the square was never reserved at the time step of the slot.
+     */
+    private int find(AtomicLongArray pSlot, int pCell){
+        int i = indexOf(pCell);
+        for(int probes = 0; probes < aSlotCapacity; probes++){
+            long entry = pSlot.get(i);
+            if(entry == EMPTY){
+                return -1;
+            }
+            if(cellOf(entry) == pCell){
+                return i;
+            }
+            i = (i + 1) & (aSlotCapacity - 1);
+        }
+        return -1;
+    }
+
+    private int indexOf(int pCell){
+        return (pCell * 0x9E3779B9 >>> 8) & (aSlotCapacity - 1);
+    }
+
+    private static long entry(int pCell, int pAgent){
+        return ((long) (pCell + 1) << 32) | (pAgent & 0xFFFFFFFFL);
+    }
+
+    private static int cellOf(long pEntry){
+        return (int) (pEntry >>> 32) - 1;
+    }
+
+    private static int agentOf(long pEntry){
+        return (int) pEntry;
+    }
+}
@@ -0,0 +1,81 @@
+package PathFinding;
+
+/**
+ * An immutable copy of which squares of a map are passable, stored as one bit per cell with every row starting on a
+ * new long. Keeping rows word-aligned lets searches test 64 squares of a row (or of the rows above and below it) with
+ * a few shifts and masks instead of one square at a time. Bits past the last column of a row are always 0.
+ */
+public final class RowBitGrid implements GridMap {
+    private final int aNumRows;
+    private final int aNumColumns;
+    private final int aWordsPerRow;
+    private final long[] aOpen;
+
+    private RowBitGrid(int pNumRows, int pNumColumns, long[] pOpen){
+        aNumRows = pNumRows;
+        aNumColumns = pNumColumns;
+        aWordsPerRow = (pNumColumns + 63) >>> 6;
+        aOpen = pOpen;
+    }
+
+    /**
+     * A method to copy the passable squares of a map into a row-aligned grid.
+     * @param pMap The map to copy.
+     * @return The grid of the map.
+     */
+    public static RowBitGrid of(GridMap pMap){
+        if(pMap instanceof RowBitGrid){
+            return (RowBitGrid) pMap;
+        }
+        int numRows = pMap.getNumRows();
+        int numColumns = pMap.getNumColumns();
+        int wordsPerRow = (numColumns + 63) >>> 6;
+        long[] open = new long[numRows * wordsPerRow];
+        for(int i = 0; i < numRows; i++){
+            for(int j = 0; j < numColumns; j++){
+                if(pMap.isPassable(i, j)){
+                    open[i * wordsPerRow + (j >>> 6)] |= 1L << j;
+                }
+            }
+        }
+        return new RowBitGrid(numRows, numColumns, open);
+    }
+
+    @Override
+    public int getNumRows(){
+        return aNumRows;
+    }
+
+    @Override
+    public int getNumColumns(){
+        return aNumColumns;
+    }
+
+    @Override
+    public boolean isPassable(int pRow, int pColumn){
+        assert pRow >= 0 && pRow < aNumRows && pColumn >= 0 && pColumn < aNumColumns;
+        return (aOpen[pRow * aWordsPerRow + (pColumn >>> 6)] & (1L << pColumn)) != 0;
+    }
+
+    /**
+     * A method to get the number of longs that hold a row.
+     * @return The number of longs per row.
+     */
+    public int getWordsPerRow(){
+        return aWordsPerRow;
+    }
+
+    /**
+     * A method to get 64 squares of a row, where bit i is set if column 64 * pWord + i is passable.
+     * Rows outside the grid are reported as entirely impassable.
+     * @param pRow The row of the squares, which may be -1 or getNumRows().
+     * @param pWord The index of the long within the row.
+     * @return The passable squares of that part of the row.
+     */
+    public long getWord(int pRow, int pWord){
+        if(pRow < 0 || pRow >= aNumRows || pWord < 0 || pWord >= aWordsPerRow){
+            return 0;
+        }
+        return aOpen[pRow * aWordsPerRow + pWord];
+    }
+}
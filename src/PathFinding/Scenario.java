@@ -0,0 +1,43 @@
+package PathFinding;
+
+/**
+ * One query of a scenario file (see MovingAiFormat): a path query together with the map it is meant for and the
+ * length of its shortest path as given by the file.
+ */
+public final class Scenario {
+    private final int aBucket;
+    private final String aMapName;
+    private final PathQuery aQuery;
+    private final double aOptimalLength;
+
+    /**
+     * A constructor to create a scenario.
+     * @param pBucket The difficulty bucket of the scenario, which groups scenarios of similar length.
+     * @param pMapName The name of the map file the scenario is meant for.
+     * @param pQuery The query of the scenario.
+     * @param pOptimalLength The length of the shortest path as given by the scenario file.
+     */
+    public Scenario(int pBucket, String pMapName, PathQuery pQuery, double pOptimalLength){
+        aBucket = pBucket;
+        aMapName = pMapName;
+        aQuery = pQuery;
+        aOptimalLength = pOptimalLength;
+    }
+
+    //Getter for the difficulty bucket
+    public int getBucket(){
+        return aBucket;
+    }
+    //Getter for the name of the map file
+    public String getMapName(){
+        return aMapName;
+    }
+    //Getter for the query
+    public PathQuery getQuery(){
+        return aQuery;
+    }
+    //Getter for the length of the shortest path given by the file
+    public double getOptimalLength(){
+        return aOptimalLength;
+    }
+}
@@ -0,0 +1,138 @@
+package PathFinding;
+
+import java.util.Arrays;
+
+/**
+ * The per-cell scratch state of a search (distance from the start, parent and closed flag) together with its open list.
+ * A context can be reused for any number of searches: every cell is stamped with the generation that last wrote it,
+ * so resetting the context is a matter of starting a new generation instead of clearing every cell.
+ * A context is not thread safe; forCurrentThread hands out one context per thread.
+ */
+public class SearchContext {
+    public static final int UNREACHED = Integer.MAX_VALUE;
+    public static final int NO_PARENT = -1;
+    //Stamps hold the generation shifted left by one, with the lowest bit marking the cell as closed.
+    private static final int MAX_GENERATION = Integer.MAX_VALUE >>> 1;
+    private static final ThreadLocal<SearchContext> THREAD_CONTEXTS = new ThreadLocal<>();
+
+    private final int aNumCells;
+    private final int[] aMovesFromStart;
+    private final int[] aParents;
+    private final int[] aStamps;
+    private final OpenSet aOpenSet;
+    private int aGeneration;
+
+    /**
+     * A constructor to create a context for fields of up to a certain number of cells.
+     * @param pNumCells The number of cells (rows * columns) that the context can hold.
+     */
+    public SearchContext(int pNumCells){
+        assert pNumCells > 0;
+        aNumCells = pNumCells;
+        aMovesFromStart = new int[pNumCells];
+        aParents = new int[pNumCells];
+        aStamps = new int[pNumCells];
+        aOpenSet = new OpenSet(pNumCells);
+        aGeneration = 1;
+    }
+
+    /**
+     * A method to get the context of the calling thread, creating it if the thread has none that is large enough.
+     * The context is reset before it is returned.
+     * @param pNumCells The number of cells (rows * columns) that the context must be able to hold.
+     * @return The context of the calling thread.
+     */
+    public static SearchContext forCurrentThread(int pNumCells){
+        SearchContext context = THREAD_CONTEXTS.get();
+        if(context == null || context.getNumCells() < pNumCells){
+            context = new SearchContext(pNumCells);
+            THREAD_CONTEXTS.set(context);
+        }else{
+            context.reset();
+        }
+        return context;
+    }
+
+    /**
+     * A method to forget the state of the previous search in constant time (apart from emptying the open list).
+     */
+    public void reset(){
+        aOpenSet.clear();
+        aGeneration++;
+        if(aGeneration > MAX_GENERATION){
+            //Once every billion or so searches the stamps have to be cleared so old generations can't come back to life.
+            Arrays.fill(aStamps, 0);
+            aGeneration = 1;
+        }
+    }
+
+    /**
+     * A method to get the number of cells that the context can hold.
+     * @return The number of cells of the context.
+     */
+    public int getNumCells(){
+        return aNumCells;
+    }
+
+    /**
+     * A method to get the open list of the context.
+     * @return The open list.
+     */
+    public OpenSet getOpenSet(){
+        return aOpenSet;
+    }
+
+    /**
+     * A method to get the distance of a cell from the start in the current search.
+     * @param pCell The cell to get the distance of.
+     * @return The distance, or UNREACHED if the cell has not been reached yet.
+     */
+    public int getMovesFromStart(int pCell){
+        return isCurrent(pCell) ? aMovesFromStart[pCell] : UNREACHED;
+    }
+
+    /**
+     * A method to get the parent of a cell in the current search.
+     * @param pCell The cell to get the parent of.
+     * @return The parent cell, or NO_PARENT if the cell has none.
+     */
+    public int getParent(int pCell){
+        return isCurrent(pCell) ? aParents[pCell] : NO_PARENT;
+    }
+
+    /**
+     * A method to record a new distance from the start and parent for a cell.
+     * @param pCell The cell that has been reached.
+     * @param pMovesFromStart The distance of the cell from the start.
+     * @param pParent The cell it was reached from, or NO_PARENT.
+     */
+    public void reach(int pCell, int pMovesFromStart, int pParent){
+        if(!isCurrent(pCell)){
+            aStamps[pCell] = aGeneration << 1;
+        }
+        aMovesFromStart[pCell] = pMovesFromStart;
+        aParents[pCell] = pParent;
+    }
+
+    /**
+     * A method to test if a cell has been closed in the current search.
+     * @param pCell The cell to test.
+     * @return The boolean corresponding to if the cell is closed.
+     */
+    public boolean isClosed(int pCell){
+        return aStamps[pCell] == ((aGeneration << 1) | 1);
+    }
+
+    /**
+     * A method to close a cell that has been reached in the current search.
+     * @param pCell The cell to close.
+     */
+    public void close(int pCell){
+        assert isCurrent(pCell);
+        aStamps[pCell] |= 1;
+    }
+
+    private boolean isCurrent(int pCell){
+        return (aStamps[pCell] >>> 1) == aGeneration;
+    }
+}
@@ -0,0 +1,13 @@
+package PathFinding;
+
+/**
+ * A listener that is told the statistics of every search a solver finishes, e.g. a SearchMetrics that sums them up
+ * for a dashboard.
+ */
+public interface SearchListener {
+    /**
+     * A method called by the thread that ran a search after it finished.
+     * @param pStats The statistics of the search.
+     */
+    void searchFinished(SearchStats pStats);
+}
@@ -0,0 +1,136 @@
+package PathFinding;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A listener that sums up the statistics of searches, which may run on any number of threads at once, and exports
+ * the totals as JSON or in the Prometheus text format. Search times are also counted in a histogram so that a
+ * dashboard can derive latency percentiles.
+ */
+public class SearchMetrics implements SearchListener {
+    //The upper bounds of the search time histogram in seconds; the last bucket holds every search.
+    private static final double[] BUCKETS = {0.0001, 0.001, 0.01, 0.1, 1, Double.POSITIVE_INFINITY};
+
+    private final LongAdder aNumSearches = new LongAdder();
+    private final LongAdder aNumPathsFound = new LongAdder();
+    private final LongAdder aNumExpanded = new LongAdder();
+    private final LongAdder aNumPushes = new LongAdder();
+    private final LongAdder aNumReparented = new LongAdder();
+    private final LongAdder aPathLength = new LongAdder();
+    private final LongAdder aWallNanos = new LongAdder();
+    private final AtomicLong aPeakOpenSize = new AtomicLong();
+    private final LongAdder[] aBucketCounts;
+
+    /**
+     * A constructor to create metrics without any search.
+     */
+    public SearchMetrics(){
+        aBucketCounts = new LongAdder[BUCKETS.length];
+        for(int i = 0; i < BUCKETS.length; i++){
+            aBucketCounts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void searchFinished(SearchStats pStats){
+        aNumSearches.increment();
+        if(pStats.isPathFound()){
+            aNumPathsFound.increment();
+        }
+        aNumExpanded.add(pStats.getNumExpanded());
+        aNumPushes.add(pStats.getNumPushes());
+        aNumReparented.add(pStats.getNumReparented());
+        aPathLength.add(pStats.getPathLength());
+        aWallNanos.add(pStats.getWallNanos());
+        aPeakOpenSize.accumulateAndGet(pStats.getPeakOpenSize(), Math::max);
+        double seconds = pStats.getWallNanos() / 1e9;
+        for(int i = 0; i < BUCKETS.length; i++){
+            if(seconds <= BUCKETS[i]){
+                aBucketCounts[i].increment();
+            }
+        }
+    }
+
+    //Getter for the number of finished searches
+    public long getNumSearches(){
+        return aNumSearches.sum();
+    }
+    //Getter for the number of searches that found a path
+    public long getNumPathsFound(){
+        return aNumPathsFound.sum();
+    }
+    //Getter for the total number of expanded squares
+    public long getNumExpanded(){
+        return aNumExpanded.sum();
+    }
+    //Getter for the total number of squares added to open lists
+    public long getNumPushes(){
+        return aNumPushes.sum();
+    }
+    //Getter for the total number of squares reached again by a shorter path
+    public long getNumReparented(){
+        return aNumReparented.sum();
+    }
+    //Getter for the largest open list of any search
+    public long getPeakOpenSize(){
+        return aPeakOpenSize.get();
+    }
+    //Getter for the total number of squares of the paths found
+    public long getPathLength(){
+        return aPathLength.sum();
+    }
+    //Getter for the total time of the searches in nanoseconds
+    public long getWallNanos(){
+        return aWallNanos.sum();
+    }
+
+    /**
+     * A method to export the totals as a JSON object.
+     * @return The JSON text.
+     */
+    public String toJson(){
+        return String.format(Locale.ROOT, "{\"searches\":%d,\"pathsFound\":%d,\"expanded\":%d,\"pushes\":%d,"
+                        + "\"reparented\":%d,\"peakOpenSize\":%d,\"pathLength\":%d,\"wallSeconds\":%.9f}",
+                getNumSearches(), getNumPathsFound(), getNumExpanded(), getNumPushes(), getNumReparented(),
+                getPeakOpenSize(), getPathLength(), getWallNanos() / 1e9);
+    }
+
+    /**
+     * A method to export the totals in the Prometheus text exposition format.
+     * @param pPrefix The prefix of the metric names, e.g. "pathfinding".
+     * @return The text of the metrics.
+     */
+    public String toPrometheus(String pPrefix){
+        StringBuilder text = new StringBuilder();
+        counter(text, pPrefix + "_searches_total", "Finished searches.", getNumSearches());
+        counter(text, pPrefix + "_paths_found_total", "Searches that found a path.", getNumPathsFound());
+        counter(text, pPrefix + "_expanded_total", "Squares expanded.", getNumExpanded());
+        counter(text, pPrefix + "_pushes_total", "Squares added to the open list.", getNumPushes());
+        counter(text, pPrefix + "_reparented_total", "Squares reached again by a shorter path.", getNumReparented());
+        counter(text, pPrefix + "_path_length_total", "Squares of the paths found.", getPathLength());
+        String peak = pPrefix + "_peak_open_size";
+        text.append("# HELP ").append(peak).append(" Largest open list of any search.\n");
+        text.append("# TYPE ").append(peak).append(" gauge\n");
+        text.append(peak).append(' ').append(getPeakOpenSize()).append('\n');
+        String seconds = pPrefix + "_search_seconds";
+        text.append("# HELP ").append(seconds).append(" Time of the searches.\n");
+        text.append("# TYPE ").append(seconds).append(" histogram\n");
+        for(int i = 0; i < BUCKETS.length; i++){
+            String bound = Double.isInfinite(BUCKETS[i]) ? "+Inf" : String.valueOf(BUCKETS[i]);
+            text.append(seconds).append("_bucket{le=\"").append(bound).append("\"} ")
+                    .append(aBucketCounts[i].sum()).append('\n');
+        }
+        text.append(seconds).append("_sum ").append(String.format(Locale.ROOT, "%.9f", getWallNanos() / 1e9))
+                .append('\n');
+        text.append(seconds).append("_count ").append(getNumSearches()).append('\n');
+        return text.toString();
+    }
+
+    private static void counter(StringBuilder pText, String pName, String pHelp, long pValue){
+        pText.append("# HELP ").append(pName).append(' ').append(pHelp).append('\n');
+        pText.append("# TYPE ").append(pName).append(" counter\n");
+        pText.append(pName).append(' ').append(pValue).append('\n');
+    }
+}
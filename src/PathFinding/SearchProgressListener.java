@@ -0,0 +1,18 @@
+package PathFinding;
+
+/**
+ * A listener that is told how a running search is doing, every AStar.PROGRESS_INTERVAL expansions, e.g. to show its
+ * progress or to animate the squares it expands. It is called on the thread running the search, which waits for it,
+ * so it should hand the work off to another thread quickly.
+ */
+public interface SearchProgressListener {
+    /**
+     * A method called while a search is running.
+     * @param pNumExpanded The number of squares expanded so far.
+     * @param pBestF The smallest F in the open list, a lower bound of the cost of the path.
+     * @param pExpandedCells The cells expanded since the last call in its first pNumExpandedCells entries. The array
+     *                       is reused by the search and must be copied to be kept.
+     * @param pNumExpandedCells The number of cells in pExpandedCells.
+     */
+    void searchProgressed(int pNumExpanded, int pBestF, int[] pExpandedCells, int pNumExpandedCells);
+}
@@ -0,0 +1,79 @@
+package PathFinding;
+
+/**
+ * The statistics of one search: how much work it did and what it found. A search only collects them while a
+ * SearchListener is set, and hands them to the listener when it finishes.
+ */
+public final class SearchStats {
+    private final int aNumExpanded;
+    private final int aNumPushes;
+    private final int aNumReparented;
+    private final int aPeakOpenSize;
+    private final int aPathLength;
+    private final int aPathCost;
+    private final long aWallNanos;
+
+    /**
+     * A constructor to create the statistics of a finished search.
+     * @param pNumExpanded The number of squares taken out of the open list and expanded.
+     * @param pNumPushes The number of squares added to the open list.
+     * @param pNumReparented The number of times a square in the open list was reached by a shorter path.
+     * @param pPeakOpenSize The largest number of squares in the open list at once.
+     * @param pPathLength The number of squares of the path including both ends, or 0 if there is none.
+     * @param pPathCost The cost of the path, or SearchContext.UNREACHED if there is none.
+     * @param pWallNanos The time the search took in nanoseconds.
+     */
+    public SearchStats(int pNumExpanded, int pNumPushes, int pNumReparented, int pPeakOpenSize, int pPathLength,
+                       int pPathCost, long pWallNanos){
+        aNumExpanded = pNumExpanded;
+        aNumPushes = pNumPushes;
+        aNumReparented = pNumReparented;
+        aPeakOpenSize = pPeakOpenSize;
+        aPathLength = pPathLength;
+        aPathCost = pPathCost;
+        aWallNanos = pWallNanos;
+    }
+
+    //Getter for the number of expanded squares
+    public int getNumExpanded(){
+        return aNumExpanded;
+    }
+    //Getter for the number of squares added to the open list
+    public int getNumPushes(){
+        return aNumPushes;
+    }
+    //Getter for the number of squares reached again by a shorter path while in the open list
+    public int getNumReparented(){
+        return aNumReparented;
+    }
+    //Getter for the largest size of the open list
+    public int getPeakOpenSize(){
+        return aPeakOpenSize;
+    }
+    //Getter for the number of squares of the path, 0 if there is none
+    public int getPathLength(){
+        return aPathLength;
+    }
+    //Getter for the cost of the path, SearchContext.UNREACHED if there is none
+    public int getPathCost(){
+        return aPathCost;
+    }
+    //Getter for the time the search took in nanoseconds
+    public long getWallNanos(){
+        return aWallNanos;
+    }
+
+    /**
+     * A method to test if the search found a path.
+     * @return The boolean corresponding to if there is a path.
+     */
+    public boolean isPathFound(){
+        return aPathLength > 0;
+    }
+
+    @Override
+    public String toString(){
+        return "expanded=" + aNumExpanded + " pushes=" + aNumPushes + " reparented=" + aNumReparented
+                + " peakOpen=" + aPeakOpenSize + " pathLength=" + aPathLength + " wallNanos=" + aWallNanos;
+    }
+}
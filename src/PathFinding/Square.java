@@ -1,84 +1,30 @@
 package PathFinding;
 
-import java.util.ArrayList;
-import java.util.Optional;
+import java.util.Objects;
 
 public class Square {
-    private Status aStatus;
+    private final Field aField;
     private final int aColumn;
     private final int aRow;
-    private Optional<Integer> movesFromStart = Optional.empty();
-    private Optional<Integer> estimatedCostToFinish = Optional.empty();
-    private final static ArrayList<Square> aSquares = new ArrayList<>();
 
     /**
-     * A constructor that creates a square. Note that squares follow the flyweight design pattern.
+     * A constructor that creates a square. Squares are lightweight views of a position of a field, which stores their
+     * statuses, so any number of squares may be created for the same position (see Field.getSquare).
+     * @param pField The field that the square is part of.
      * @param pColumn The column of the square to be created.
      * @param pRow the row of the square to be created.
      */
-    private Square(int pColumn, int pRow){
+    Square(Field pField, int pColumn, int pRow){
+        aField = pField;
         aColumn = pColumn;
         aRow = pRow;
-        aStatus = Status.ACCESSIBLE;
     }
 
     /**
-     * A method to get the square at a certain position. Creates a square at that position if one does not exist.
-     * @param pRow The row of the square.
-     * @param pColumn The column of the square.
-     * @return Teh square that has either been retrieved of created.
-     */
-    public static Square getSquare(int pRow, int pColumn){
-        for(Square square : aSquares){
-            if(square.getRow() == pRow && square.getColumn() == pColumn){
-                return square;
-            }
-        }
-        Square newSquare = new Square(pColumn, pRow);
-        aSquares.add(newSquare);
-        return newSquare;
-    }
-
-    /**
-     * A method to get the distance of th square from the start.
-     * @return The Optional value of the distance.
-     */
-    public Optional<Integer> getMovesFromStart(){
-        return movesFromStart;
-    }
-
-    /**
-     * A method to get hte distance of the square from the finish.
-     * @return The Optional value of the distance.
-     */
-    public Optional<Integer> getEstimatedCostToFinish(){
-        return estimatedCostToFinish;
-    }
-
-    /**
-     * A method to set the number of moves from the start.
-     * @param pMoves The number of moves from the source square.
-     */
-    public void setMovesFromStart(int pMoves){
-        movesFromStart = Optional.of(pMoves);
-    }
-
-    /**
-     * A method to reset the square to an accessible square with empty movesFromStart and
-     * estimatedCostToFinish.
+     * A method to reset the square to an accessible square.
      */
     public void resetSquare(){
         this.setStatus(Status.ACCESSIBLE);
-        movesFromStart = Optional.empty();
-        estimatedCostToFinish = Optional.empty();
-    }
-
-    /**
-     * A method to set the number of moves from the finish.
-     * @param pCost The number of moves from the destination square.
-     */
-    public void setEstimatedCostToFinish(int pCost){
-        estimatedCostToFinish = Optional.of(pCost);
     }
 
     /**
@@ -86,7 +32,7 @@ public class Square {
      * @param pStatus The desired status to update the square to.
      */
     public void setStatus(Status pStatus){
-        aStatus = pStatus;
+        aField.setStatus(aRow, aColumn, pStatus);
     }
 
     /**
@@ -94,7 +40,7 @@ public class Square {
      * @return The status of the implicit square.
      */
     public Status getStatus(){
-        return aStatus;
+        return aField.getStatus(aRow, aColumn);
     }
     //Getter for the row value
     public int getRow(){
@@ -104,4 +50,21 @@ public class Square {
     public int getColumn(){
         return aColumn;
     }
+
+    @Override
+    public boolean equals(Object pObject){
+        if(this == pObject){
+            return true;
+        }
+        if(!(pObject instanceof Square)){
+            return false;
+        }
+        Square square = (Square) pObject;
+        return aField == square.aField && aRow == square.aRow && aColumn == square.aColumn;
+    }
+
+    @Override
+    public int hashCode(){
+        return Objects.hash(System.identityHashCode(aField), aRow, aColumn);
+    }
 }
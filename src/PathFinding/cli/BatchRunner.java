@@ -0,0 +1,327 @@
+package PathFinding.cli;
+
+import PathFinding.AStar;
+import PathFinding.CompactPath;
+import PathFinding.ConnectedComponents;
+import PathFinding.GridMap;
+import PathFinding.MapFile;
+import PathFinding.MapSnapshot;
+import PathFinding.Movement;
+import PathFinding.MovingAiFormat;
+import PathFinding.PathQuery;
+import PathFinding.Scenario;
+import PathFinding.SearchContext;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The headless entry point of the pathfinder, which solves a stream of queries on one map without any display
+ * toolkit. The map is a ".map" file or a binary map file written by MapFile (memory-mapped). Queries are read one line
+ * at a time from a file or from standard input, either as "sourceRow sourceColumn destinationRow destinationColumn"
+ * or as the lines of a ".scen" file, and solved on a pool of threads. Only a bounded number of queries is in flight
+ * at any time and every result is written as soon as it is solved, so memory doesn't grow with the number of queries.
+ * Results are tab-separated lines: the index of the query in the input, the source and destination, "found", "none"
+ * or "invalid", the cost, the number of expanded squares, the time to solve in microseconds and, with --paths, the
+ * squares of the path as row,column pairs (with --waypoints, only the source, the turns and the destination).
+ * A malformed line is answered "invalid" with "-" for its source and destination, and a query whose search fails
+ * with an exception is answered "error" followed by the exception, so every query of the input gets one line.
+ * Since queries are solved in parallel, results are not in input order.
+ * A summary is written to standard error at the end.
+ * Usage: BatchRunner --map file.map|file.bin [--queries file|-] [--out file] [--threads 8]
+ * [--movement cardinal|octile] [--bidirectional] [--paths [--waypoints]]
+ */
+public class BatchRunner {
+    //The number of queries read ahead of the slowest one per thread.
+    private static final int QUERIES_IN_FLIGHT_PER_THREAD = 256;
+
+    private final GridMap aMap;
+    private final ConnectedComponents aComponents;
+    private final Movement aMovement;
+    private final boolean aBidirectional;
+    private final boolean aWritePaths;
+    private boolean aWaypointsOnly;
+    private final ThreadLocal<SearchContext> aBackwardContexts;
+    private final AtomicLong aNumQueries = new AtomicLong();
+    private final AtomicLong aNumFound = new AtomicLong();
+    private final AtomicLong aNumFailed = new AtomicLong();
+    //The wall time of the whole run, and the time spent solving summed over all queries.
+    private final AtomicLong aTotalNanos = new AtomicLong();
+    private final AtomicLong aSolveNanos = new AtomicLong();
+    private final AtomicLong aMaxNanos = new AtomicLong();
+
+    /**
+     * A constructor to create a runner for a map that doesn't change while it runs.
+     * @param pMap The map.
+     * @param pMovement The movement to find paths with.
+     * @param pBidirectional The boolean corresponding to if queries are searched from both ends.
+     * @param pWritePaths The boolean corresponding to if the squares of every path are written.
+     */
+    public BatchRunner(GridMap pMap, Movement pMovement, boolean pBidirectional, boolean pWritePaths){
+        aMap = pMap;
+        aComponents = new ConnectedComponents(pMap);
+        aMovement = pMovement;
+        aBidirectional = pBidirectional;
+        aWritePaths = pWritePaths;
+        aBackwardContexts = ThreadLocal.withInitial(() -> new SearchContext(pMap.getNumCells()));
+    }
+
+    /**
+     * A method to set if only the waypoints of paths are written instead of all of their squares.
+     * @param pWaypointsOnly The boolean corresponding to if only waypoints are written, false unless set.
+     */
+    public void setWaypointsOnly(boolean pWaypointsOnly){
+        aWaypointsOnly = pWaypointsOnly;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String mapFile = null;
+        String queryFile = "-";
+        String outFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Movement movement = Movement.CARDINAL;
+        boolean bidirectional = false;
+        boolean paths = false;
+        boolean waypoints = false;
+        for(int i = 0; i < args.length; i++){
+            switch(args[i]){
+                case "--map":
+                    mapFile = args[++i];
+                    break;
+                case "--queries":
+                    queryFile = args[++i];
+                    break;
+                case "--out":
+                    outFile = args[++i];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--movement":
+                    movement = Movement.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--bidirectional":
+                    bidirectional = true;
+                    break;
+                case "--paths":
+                    paths = true;
+                    break;
+                case "--waypoints":
+                    waypoints = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if(mapFile == null){
+            throw new IllegalArgumentException("Missing --map");
+        }
+        long start = System.nanoTime();
+        BatchRunner runner = new BatchRunner(loadMap(mapFile), movement, bidirectional, paths);
+        runner.setWaypointsOnly(waypoints);
+        System.err.printf("Loaded %s in %.1f ms%n", mapFile, (System.nanoTime() - start) / 1e6);
+        try(Reader input = queryFile.equals("-")
+                    ? new InputStreamReader(System.in, StandardCharsets.UTF_8) : new FileReader(queryFile);
+            Writer output = outFile == null
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8) : new FileWriter(outFile)){
+            runner.run(input, output, threads);
+        }
+        System.err.println(runner.summary());
+    }
+
+    /**
+     * A method to load a map, reading ".map" files as text and memory-mapping any other file as a binary map file.
+     * @param pFile The name of the file.
+     * @return The map, which doesn't change.
+     * @throws IOException If the file can't be read.
+     */
+    public static GridMap loadMap(String pFile) throws IOException {
+        if(pFile.endsWith(".map")){
+            try(Reader reader = new FileReader(pFile)){
+                return MapSnapshot.of(MovingAiFormat.readMap(reader));
+            }
+        }
+        return MapFile.map(Paths.get(pFile));
+    }
+
+    /**
+     * A method to solve every query of an input and write the results as they are solved.
+     * @param pInput The queries, one per line.
+     * @param pOutput The writer of the results, which is flushed but not closed, also if the run fails.
+     * @param pNumThreads The number of threads to solve queries on.
+     * @throws IOException If the input can't be read or a result can't be written.
+     * @throws InterruptedException If the thread is interrupted while waiting for queries to be solved.
+     */
+    public void run(Reader pInput, Writer pOutput, int pNumThreads) throws IOException, InterruptedException {
+        assert pNumThreads > 0;
+        BufferedReader reader = new BufferedReader(pInput);
+        BufferedWriter writer = new BufferedWriter(pOutput, 1 << 16);
+        ExecutorService pool = Executors.newFixedThreadPool(pNumThreads);
+        Semaphore inFlight = new Semaphore(pNumThreads * QUERIES_IN_FLIGHT_PER_THREAD);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+        try{
+            String line;
+            long index = 0;
+            while((line = reader.readLine()) != null && failure.get() == null){
+                PathQuery query;
+                try{
+                    query = parseQuery(line);
+                }catch(IOException e){
+                    aNumQueries.incrementAndGet();
+                    synchronized(writer){
+                        writer.write(index++ + "\t-\t-\t-\t-\tinvalid\n");
+                    }
+                    continue;
+                }
+                if(query == null){
+                    continue;
+                }
+                long queryIndex = index++;
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try{
+                        String result;
+                        try{
+                            result = solve(queryIndex, query);
+                        }catch(RuntimeException e){
+                            //Like the workers of PathServer, a failed search only fails its own query.
+                            aNumQueries.incrementAndGet();
+                            aNumFailed.incrementAndGet();
+                            result = endpoints(queryIndex, query).append("error\t").append(e).append('\n').toString();
+                        }
+                        synchronized(writer){
+                            writer.write(result);
+                        }
+                    }catch(IOException e){
+                        failure.compareAndSet(null, e);
+                    }finally{
+                        inFlight.release();
+                    }
+                });
+            }
+        }finally{
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            //The results solved so far are written out even if the input can't be read to the end.
+            synchronized(writer){
+                writer.flush();
+            }
+        }
+        if(failure.get() != null){
+            throw failure.get();
+        }
+        aTotalNanos.set(System.nanoTime() - start);
+    }
+
+    /**
+     * A method to get a line that sums up the queries solved so far.
+     * @return The number of queries, found paths and failed searches, the throughput and the mean and maximum time to
+     * solve a query.
+     */
+    public String summary(){
+        long numQueries = aNumQueries.get();
+        return String.format("%d queries, %d paths found, %d failed in %.3f s: %.0f queries/s, mean %.1f us, "
+                        + "max %.1f us", numQueries, aNumFound.get(), aNumFailed.get(), aTotalNanos.get() / 1e9,
+                numQueries / Math.max(1e-9, aTotalNanos.get() / 1e9),
+                numQueries == 0 ? 0 : aSolveNanos.get() / 1e3 / numQueries, aMaxNanos.get() / 1e3);
+    }
+
+    /**
+     * A method to read a query from a line, either four numbers or a line of a ".scen" file.
+     * @return The query, or null if the line holds none.
+     * @throws IOException If the line is malformed.
+     */
+    static PathQuery parseQuery(String pLine) throws IOException {
+        String[] parts = pLine.trim().split("\\s+");
+        if(parts.length != 4){
+            Scenario scenario = MovingAiFormat.parseScenario(pLine);
+            return scenario == null ? null : scenario.getQuery();
+        }
+        try{
+            return new PathQuery(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]));
+        }catch(NumberFormatException e){
+            throw new IOException("Malformed query: " + pLine, e);
+        }
+    }
+
+    /**
+     * A method to solve a query on the calling thread.
+     * @return The line of the result.
+     */
+    private String solve(long pIndex, PathQuery pQuery){
+        StringBuilder result = endpoints(pIndex, pQuery);
+        if(!isInside(pQuery.getSourceRow(), pQuery.getSourceColumn())
+                || !isInside(pQuery.getDestinationRow(), pQuery.getDestinationColumn())){
+            aNumQueries.incrementAndGet();
+            return result.append("invalid\n").toString();
+        }
+        long start = System.nanoTime();
+        AStar aStar = new AStar(aMap, pQuery.getSourceRow(), pQuery.getSourceColumn(), pQuery.getDestinationRow(),
+                pQuery.getDestinationColumn(), SearchContext.forCurrentThread(aMap.getNumCells()));
+        aStar.setMovement(aMovement);
+        aStar.setComponents(aComponents);
+        if(aBidirectional){
+            aStar.setBidirectional(aBackwardContexts.get());
+        }
+        aStar.solve();
+        long nanos = System.nanoTime() - start;
+        aNumQueries.incrementAndGet();
+        aSolveNanos.addAndGet(nanos);
+        aMaxNanos.accumulateAndGet(nanos, Math::max);
+        if(aStar.isPathFound()){
+            aNumFound.incrementAndGet();
+        }
+        result.append(aStar.isPathFound() ? "found" : "none").append('\t')
+                .append(aStar.isPathFound() ? aStar.getPathCost() : -1).append('\t')
+                .append(aStar.getNumExpanded()).append('\t').append(nanos / 1000);
+        if(aWritePaths){
+            int numColumns = aMap.getNumColumns();
+            result.append('\t');
+            //The path is walked straight from its runs, without building the list of its squares.
+            CompactPath compactPath = aStar.getCompactPath();
+            PrimitiveIterator.OfInt cells = aWaypointsOnly
+                    ? Arrays.stream(compactPath.getWaypoints()).iterator() : compactPath.cells();
+            for(boolean first = true; cells.hasNext(); first = false){
+                int cell = cells.nextInt();
+                if(!first){
+                    result.append(' ');
+                }
+                result.append(cell / numColumns).append(',').append(cell % numColumns);
+            }
+        }
+        return result.append('\n').toString();
+    }
+
+    /**
+     * A method to start the line of a result with the index of its query and the source and destination.
+     */
+    private static StringBuilder endpoints(long pIndex, PathQuery pQuery){
+        StringBuilder result = new StringBuilder(64);
+        return result.append(pIndex).append('\t').append(pQuery.getSourceRow()).append('\t')
+                .append(pQuery.getSourceColumn()).append('\t').append(pQuery.getDestinationRow()).append('\t')
+                .append(pQuery.getDestinationColumn()).append('\t');
+    }
+
+    private boolean isInside(int pRow, int pColumn){
+        return pRow >= 0 && pRow < aMap.getNumRows() && pColumn >= 0 && pColumn < aMap.getNumColumns();
+    }
+}
@@ -0,0 +1,270 @@
+package PathFinding.cli;
+
+import PathFinding.GridMap;
+import PathFinding.Movement;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A load generator for PathServer on the local machine. Every client thread sends its share of the requests one
+ * after the other, each of one query (GET /path) or of a batch of queries (POST /paths) between random passable
+ * squares of the map, and measures the time until the answer arrives. Requests rejected because the queue of the
+ * server was full are counted but not retried, so that the latencies are those of the requests that were solved.
+ * With --updates, another thread meanwhile turns random squares into walls and back at that rate.
+ * Without --port, a server is started in this process on a free port with the given --threads, --queue and --batch.
+ * At the end it prints the number of requests, the throughput and the 50th, 99th and largest latency.
+ * Usage: LoadGenerator --map file.map|file.bin [--port 8080] [--clients 32] [--requests 20000] [--per-request 1]
+ * [--updates 0] [--threads 8] [--queue 4096] [--batch 32] [--movement cardinal|octile] [--seed 1]
+ */
+public class LoadGenerator {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String mapFile = null;
+        int port = 0;
+        int clients = 32;
+        int requests = 20000;
+        int perRequest = 1;
+        int updatesPerSecond = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = 4096;
+        int batch = 32;
+        Movement movement = Movement.CARDINAL;
+        long seed = 1;
+        for(int i = 0; i < args.length; i++){
+            switch(args[i]){
+                case "--map":
+                    mapFile = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--requests":
+                    requests = Integer.parseInt(args[++i]);
+                    break;
+                case "--per-request":
+                    perRequest = Integer.parseInt(args[++i]);
+                    break;
+                case "--updates":
+                    updatesPerSecond = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--queue":
+                    queue = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch":
+                    batch = Integer.parseInt(args[++i]);
+                    break;
+                case "--movement":
+                    movement = Movement.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if(mapFile == null){
+            throw new IllegalArgumentException("Missing --map");
+        }
+        GridMap map = BatchRunner.loadMap(mapFile);
+        PathServer server = null;
+        if(port == 0){
+            server = new PathServer(map, movement, threads, queue, batch);
+            port = server.start(0);
+        }
+        try{
+            run(map, URI.create("http://localhost:" + port + "/"), clients, requests, perRequest, updatesPerSecond,
+                    seed);
+        }finally{
+            if(server != null){
+                server.stop();
+            }
+        }
+    }
+
+    /**
+     * A method to send the requests of every client, wait for them all to be answered and print the results.
+     * @param pMap The map the server holds, to pick passable squares from.
+     * @param pServer The address of the server.
+     * @param pNumClients The number of clients sending requests at the same time.
+     * @param pNumRequests The number of requests sent by all the clients together.
+     * @param pQueriesPerRequest The number of queries in a request.
+     * @param pUpdatesPerSecond The number of map updates sent per second while the clients run.
+     * @param pSeed The seed of the random squares.
+     * @throws InterruptedException If the thread is interrupted while waiting for the clients.
+     */
+    public static void run(GridMap pMap, URI pServer, int pNumClients, int pNumRequests, int pQueriesPerRequest,
+                           int pUpdatesPerSecond, long pSeed) throws InterruptedException {
+        assert pNumClients > 0 && pNumRequests > 0 && pQueriesPerRequest > 0;
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[][] latencies = new long[pNumClients][];
+        AtomicLong numRejected = new AtomicLong();
+        AtomicLong numFailed = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] clients = new Thread[pNumClients];
+        for(int i = 0; i < pNumClients; i++){
+            int clientIndex = i;
+            int numRequests = pNumRequests / pNumClients + (i < pNumRequests % pNumClients ? 1 : 0);
+            clients[i] = new Thread(() -> latencies[clientIndex] = sendRequests(client, pServer, pMap, numRequests,
+                    pQueriesPerRequest, new Random(pSeed + clientIndex), numRejected, numFailed), "client-" + i);
+        }
+        Thread updater = new Thread(() -> sendUpdates(client, pServer, pMap, pUpdatesPerSecond,
+                new Random(pSeed - 1), done, numFailed), "updater");
+        long start = System.nanoTime();
+        for(Thread thread : clients){
+            thread.start();
+        }
+        if(pUpdatesPerSecond > 0){
+            updater.start();
+        }
+        for(Thread thread : clients){
+            thread.join();
+        }
+        long nanos = System.nanoTime() - start;
+        done.set(true);
+        if(pUpdatesPerSecond > 0){
+            updater.join();
+        }
+        int numSolved = 0;
+        for(long[] clientLatencies : latencies){
+            numSolved += clientLatencies.length;
+        }
+        long[] all = new long[numSolved];
+        int next = 0;
+        for(long[] clientLatencies : latencies){
+            System.arraycopy(clientLatencies, 0, all, next, clientLatencies.length);
+            next += clientLatencies.length;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d requests of %d queries from %d clients in %.3f s: %d solved, %d rejected, %d failed%n",
+                pNumRequests, pQueriesPerRequest, pNumClients, nanos / 1e9, numSolved, numRejected.get(),
+                numFailed.get());
+        System.out.printf("%.0f requests/s, %.0f queries/s%n", numSolved / (nanos / 1e9),
+                (double) numSolved * pQueriesPerRequest / (nanos / 1e9));
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n", percentile(all, 50) / 1e6,
+                percentile(all, 99) / 1e6, all.length == 0 ? 0 : all[all.length - 1] / 1e6);
+    }
+
+    /**
+     * A method to send the requests of one client, one after the other.
+     * @return The latency of every request that was solved, in nanoseconds.
+     */
+    private static long[] sendRequests(HttpClient pClient, URI pServer, GridMap pMap, int pNumRequests,
+                                       int pQueriesPerRequest, Random pRandom, AtomicLong pNumRejected,
+                                       AtomicLong pNumFailed){
+        long[] latencies = new long[pNumRequests];
+        int numSolved = 0;
+        for(int i = 0; i < pNumRequests; i++){
+            HttpRequest request;
+            if(pQueriesPerRequest == 1){
+                int[] source = randomSquare(pMap, pRandom);
+                int[] destination = randomSquare(pMap, pRandom);
+                request = HttpRequest.newBuilder(pServer.resolve("path?from=" + source[0] + ',' + source[1]
+                        + "&to=" + destination[0] + ',' + destination[1])).GET().build();
+            }else{
+                StringBuilder body = new StringBuilder();
+                for(int j = 0; j < pQueriesPerRequest; j++){
+                    int[] source = randomSquare(pMap, pRandom);
+                    int[] destination = randomSquare(pMap, pRandom);
+                    body.append(source[0]).append(' ').append(source[1]).append(' ').append(destination[0])
+                            .append(' ').append(destination[1]).append('\n');
+                }
+                request = HttpRequest.newBuilder(pServer.resolve("paths"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+            }
+            long start = System.nanoTime();
+            try{
+                int status = pClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                long nanos = System.nanoTime() - start;
+                if(status == 200){
+                    latencies[numSolved++] = nanos;
+                }else if(status == 503){
+                    pNumRejected.incrementAndGet();
+                }else{
+                    pNumFailed.incrementAndGet();
+                }
+            }catch(IOException | InterruptedException e){
+                pNumFailed.incrementAndGet();
+            }
+        }
+        return Arrays.copyOf(latencies, numSolved);
+    }
+
+    /**
+     * A method to turn random squares into walls and back at a steady rate until the clients are done.
+     */
+    private static void sendUpdates(HttpClient pClient, URI pServer, GridMap pMap, int pUpdatesPerSecond,
+                                    Random pRandom, AtomicBoolean pDone, AtomicLong pNumFailed){
+        long interval = 1_000_000_000L / pUpdatesPerSecond;
+        long next = System.nanoTime();
+        int[] wall = null;
+        while(!pDone.get()){
+            //Every other update opens the wall of the previous one again, so the map stays close to the original.
+            String change;
+            if(wall == null){
+                wall = randomSquare(pMap, pRandom);
+                change = wall[0] + " " + wall[1] + " wall\n";
+            }else{
+                change = wall[0] + " " + wall[1] + " open\n";
+                wall = null;
+            }
+            try{
+                HttpRequest request = HttpRequest.newBuilder(pServer.resolve("update"))
+                        .POST(HttpRequest.BodyPublishers.ofString(change)).build();
+                if(pClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200){
+                    pNumFailed.incrementAndGet();
+                }
+            }catch(IOException | InterruptedException e){
+                pNumFailed.incrementAndGet();
+            }
+            next += interval;
+            long sleep = next - System.nanoTime();
+            if(sleep > 0){
+                try{
+                    Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                }catch(InterruptedException e){
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to pick a random passable square of a map.
+     * @return The row and column of the square.
+     */
+    private static int[] randomSquare(GridMap pMap, Random pRandom){
+        while(true){
+            int row = pRandom.nextInt(pMap.getNumRows());
+            int column = pRandom.nextInt(pMap.getNumColumns());
+            if(pMap.isPassable(row, column)){
+                return new int[]{row, column};
+            }
+        }
+    }
+
+    /**
+     * A method to get a percentile of sorted values, i.e. the smallest value that is at least as large as that
+     * percentage of the values.
+     */
+    private static long percentile(long[] pSorted, int pPercentile){
+        if(pSorted.length == 0){
+            return 0;
+        }
+        int index = (int) Math.ceil(pSorted.length * pPercentile / 100.0) - 1;
+        return pSorted[Math.max(0, index)];
+    }
+}
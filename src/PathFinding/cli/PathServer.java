@@ -0,0 +1,498 @@
+package PathFinding.cli;
+
+import PathFinding.AStar;
+import PathFinding.CompactPath;
+import PathFinding.ConnectedComponents;
+import PathFinding.Field;
+import PathFinding.GridMap;
+import PathFinding.MapSnapshot;
+import PathFinding.Movement;
+import PathFinding.PathQuery;
+import PathFinding.SearchContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local pathfinding server, so that several processes can query one copy of a map instead of each loading their
+ * own. It listens for HTTP on the loopback address with the server built into the JDK:
+ * GET /path?from=row,column&amp;to=row,column solves one query, POST /paths solves a query per line of the body (in
+ * the formats BatchRunner reads) and answers a line per query in the same order, POST /update changes squares of the
+ * map and GET /info describes the map and the load of the server.
+ * A result line is "found", "none" or "invalid", the cost, the number of expanded squares, the version of the map it
+ * was solved on and the waypoints of the path as row,column pairs (every square with "full=1" in the query string).
+ * Queries wait in one queue for a fixed pool of workers. A worker takes every query waiting, up to a batch, in one go
+ * and solves them all on the same version of the map, so the queue is locked once per batch rather than once per
+ * query. The queue is bounded: a request whose queries don't all fit is answered 503 at once instead of waiting, and
+ * callers should retry later. Requests are answered by the worker that solves their last query, so no thread waits.
+ * A query that fails with an exception has its request answered 500 at once, and the rest of its queries are skipped.
+ * Updates are lines "row column wall|open|cost" and are applied all together: they change a private Field, which is
+ * then copied into a new MapSnapshot with its own ConnectedComponents and published in place of the old one, so a
+ * query sees either none or all of the changes of an update.
+ * Usage: PathServer --map file.map|file.bin [--port 8080] [--threads 8] [--queue 4096] [--batch 32]
+ * [--movement cardinal|octile]
+ */
+public class PathServer {
+    private static final int HTTP_THREADS = 4;
+
+    private final Movement aMovement;
+    private final int aMaxBatch;
+    //Holds one permit per free place in the queue, so that every query of a request is admitted or none is.
+    private final Semaphore aFreeSlots;
+    private final LinkedBlockingQueue<Task> aQueue;
+    private final ExecutorService aWorkers;
+    private final int aNumWorkers;
+    private ExecutorService aHttpThreads;
+    private HttpServer aServer;
+    //The map that updates are applied to, which is only read or changed while holding the lock of the server.
+    private final Field aField;
+    private volatile MapVersion aMap;
+    private final AtomicLong aNumSolved = new AtomicLong();
+    private final AtomicLong aNumRejected = new AtomicLong();
+    private final AtomicLong aNumBatches = new AtomicLong();
+
+    /**
+     * A constructor to create a server for a map, which doesn't listen until it is started.
+     * @param pMap The map, which is copied.
+     * @param pMovement The movement to find paths with.
+     * @param pNumWorkers The number of threads that solve queries.
+     * @param pQueueCapacity The largest number of queries waiting to be solved before requests are rejected.
+     * @param pMaxBatch The largest number of queries a worker takes from the queue at once.
+     */
+    public PathServer(GridMap pMap, Movement pMovement, int pNumWorkers, int pQueueCapacity, int pMaxBatch){
+        assert pNumWorkers > 0 && pQueueCapacity > 0 && pMaxBatch > 0;
+        aMovement = pMovement;
+        aMaxBatch = pMaxBatch;
+        aFreeSlots = new Semaphore(pQueueCapacity);
+        aQueue = new LinkedBlockingQueue<>();
+        aNumWorkers = pNumWorkers;
+        aWorkers = Executors.newFixedThreadPool(pNumWorkers);
+        aField = new Field(pMap);
+        MapSnapshot snapshot = aField.snapshot();
+        aMap = new MapVersion(snapshot, new ConnectedComponents(snapshot), 0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String mapFile = null;
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = 4096;
+        int batch = 32;
+        Movement movement = Movement.CARDINAL;
+        for(int i = 0; i < args.length; i++){
+            switch(args[i]){
+                case "--map":
+                    mapFile = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--queue":
+                    queue = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch":
+                    batch = Integer.parseInt(args[++i]);
+                    break;
+                case "--movement":
+                    movement = Movement.valueOf(args[++i].toUpperCase());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if(mapFile == null){
+            throw new IllegalArgumentException("Missing --map");
+        }
+        PathServer server = new PathServer(BatchRunner.loadMap(mapFile), movement, threads, queue, batch);
+        System.err.printf("Serving %s on http://localhost:%d/%n", mapFile, server.start(port));
+    }
+
+    /**
+     * A method to start listening on the loopback address and solving queries.
+     * @param pPort The port to listen on, or 0 for any free port.
+     * @return The port the server listens on.
+     * @throws IOException If the server can't listen on the port.
+     */
+    public int start(int pPort) throws IOException {
+        //Without it the built-in server waits for acknowledgements between the headers and the body of small answers.
+        if(System.getProperty("sun.net.httpserver.nodelay") == null){
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        aServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), pPort), 0);
+        aServer.createContext("/path", this::handlePath);
+        aServer.createContext("/paths", this::handlePaths);
+        aServer.createContext("/update", this::handleUpdate);
+        aServer.createContext("/info", this::handleInfo);
+        aHttpThreads = Executors.newFixedThreadPool(HTTP_THREADS);
+        aServer.setExecutor(aHttpThreads);
+        for(int i = 0; i < aNumWorkers; i++){
+            aWorkers.execute(this::work);
+        }
+        aServer.start();
+        return aServer.getAddress().getPort();
+    }
+
+    /**
+     * A method to stop listening and stop the workers. Queries still waiting are not answered.
+     */
+    public void stop(){
+        if(aServer != null){
+            aServer.stop(0);
+            aHttpThreads.shutdownNow();
+        }
+        aWorkers.shutdownNow();
+    }
+
+    /**
+     * A method to change squares of the map, all together, and publish the new version of the map to the workers.
+     * Queries already taken by a worker finish on the version they started with.
+     * @param pLines The changes, one "row column wall|open|cost" per line, blank lines ignored.
+     * @return The version of the map with the changes.
+     * @throws IOException If a line is malformed or outside the map, in which case no change is applied.
+     */
+    public long update(String[] pLines) throws IOException {
+        int[][] changes = new int[pLines.length][];
+        int numChanges = 0;
+        for(String line : pLines){
+            if(!line.isBlank()){
+                changes[numChanges++] = parseChange(line);
+            }
+        }
+        synchronized(this){
+            for(int i = 0; i < numChanges; i++){
+                int row = changes[i][0];
+                int column = changes[i][1];
+                int cost = changes[i][2];
+                if(cost == 0){
+                    aField.makeInaccessible(row, column);
+                }else{
+                    aField.makeAccessible(row, column);
+                    aField.setCost(row, column, cost);
+                }
+            }
+            MapSnapshot snapshot = aField.snapshot();
+            aMap = new MapVersion(snapshot, new ConnectedComponents(snapshot), aMap.aVersion + 1);
+            return aMap.aVersion;
+        }
+    }
+
+    //Getter for the version of the map, bumped by every update
+    public long getVersion(){
+        return aMap.aVersion;
+    }
+    //Getter for the number of queries solved so far
+    public long getNumSolved(){
+        return aNumSolved.get();
+    }
+    //Getter for the number of requests rejected so far because the queue was full
+    public long getNumRejected(){
+        return aNumRejected.get();
+    }
+
+    /**
+     * A method to handle GET /path?from=row,column&amp;to=row,column.
+     */
+    private void handlePath(HttpExchange pExchange){
+        if(!pExchange.getRequestMethod().equals("GET")){
+            respond(pExchange, 405, "Use GET\n");
+            return;
+        }
+        String from = parameter(pExchange.getRequestURI(), "from");
+        String to = parameter(pExchange.getRequestURI(), "to");
+        PathQuery query;
+        try{
+            query = from == null || to == null ? null
+                    : BatchRunner.parseQuery(from.replace(',', ' ') + ' ' + to.replace(',', ' '));
+        }catch(IOException e){
+            query = null;
+        }
+        if(query == null){
+            respond(pExchange, 400, "Expected /path?from=row,column&to=row,column\n");
+            return;
+        }
+        submit(pExchange, new PathQuery[]{query});
+    }
+
+    /**
+     * A method to handle POST /paths, with a query per line of the body.
+     */
+    private void handlePaths(HttpExchange pExchange){
+        if(!pExchange.getRequestMethod().equals("POST")){
+            respond(pExchange, 405, "Use POST\n");
+            return;
+        }
+        ArrayList<PathQuery> queries = new ArrayList<>();
+        try{
+            for(String line : readBody(pExchange)){
+                PathQuery query = BatchRunner.parseQuery(line);
+                if(query != null){
+                    queries.add(query);
+                }
+            }
+        }catch(IOException e){
+            respond(pExchange, 400, e.getMessage() + '\n');
+            return;
+        }
+        if(queries.isEmpty()){
+            respond(pExchange, 200, "");
+            return;
+        }
+        submit(pExchange, queries.toArray(new PathQuery[0]));
+    }
+
+    /**
+     * A method to handle POST /update, with a change per line of the body.
+     */
+    private void handleUpdate(HttpExchange pExchange){
+        if(!pExchange.getRequestMethod().equals("POST")){
+            respond(pExchange, 405, "Use POST\n");
+            return;
+        }
+        try{
+            respond(pExchange, 200, update(readBody(pExchange)) + "\n");
+        }catch(IOException e){
+            respond(pExchange, 400, e.getMessage() + '\n');
+        }
+    }
+
+    /**
+     * A method to handle GET /info.
+     */
+    private void handleInfo(HttpExchange pExchange){
+        MapVersion map = aMap;
+        long numBatches = aNumBatches.get();
+        respond(pExchange, 200, String.format("rows\t%d%ncolumns\t%d%nversion\t%d%nsolved\t%d%nrejected\t%d%n"
+                        + "queued\t%d%nbatches\t%d%nmean batch\t%.2f%n", map.aSnapshot.getNumRows(),
+                map.aSnapshot.getNumColumns(), map.aVersion, aNumSolved.get(), aNumRejected.get(), aQueue.size(),
+                numBatches, numBatches == 0 ? 0 : (double) aNumSolved.get() / numBatches));
+    }
+
+    /**
+     * A method to queue the queries of a request, or to reject the request if they don't all fit in the queue.
+     */
+    private void submit(HttpExchange pExchange, PathQuery[] pQueries){
+        if(!aFreeSlots.tryAcquire(pQueries.length)){
+            aNumRejected.incrementAndGet();
+            pExchange.getResponseHeaders().set("Retry-After", "1");
+            respond(pExchange, 503, "Queue full\n");
+            return;
+        }
+        boolean full = "1".equals(parameter(pExchange.getRequestURI(), "full"));
+        Request request = new Request(pExchange, pQueries.length, full);
+        for(int i = 0; i < pQueries.length; i++){
+            aQueue.add(new Task(request, i, pQueries[i]));
+        }
+    }
+
+    /**
+     * The loop of a worker, which solves a batch of queries at a time until the server is stopped.
+     */
+    private void work(){
+        ArrayList<Task> batch = new ArrayList<>(aMaxBatch);
+        try{
+            while(true){
+                batch.add(aQueue.take());
+                aQueue.drainTo(batch, aMaxBatch - 1);
+                aFreeSlots.release(batch.size());
+                aNumBatches.incrementAndGet();
+                MapVersion map = aMap;
+                for(Task task : batch){
+                    run(map, task);
+                }
+                batch.clear();
+            }
+        }catch(InterruptedException e){
+            //The server is stopping.
+        }
+    }
+
+    /**
+     * A method to solve the query of a task and answer its request if it was the last one. An exception fails only
+     * the request of the task, so that the worker goes on with the rest of its batch.
+     */
+    private void run(MapVersion pMap, Task pTask){
+        Request request = pTask.aRequest;
+        if(!request.aFailed.get()){
+            try{
+                request.aResults[pTask.aIndex] = solve(pMap, pTask.aQuery, request.aFull);
+                aNumSolved.incrementAndGet();
+            }catch(RuntimeException e){
+                //The failure is marked before the task counts as done, so the last task sees it.
+                if(request.aFailed.compareAndSet(false, true)){
+                    PathQuery query = pTask.aQuery;
+                    respond(request.aExchange, 500, String.format("Failed to solve %d,%d to %d,%d: %s%n",
+                            query.getSourceRow(), query.getSourceColumn(), query.getDestinationRow(),
+                            query.getDestinationColumn(), e));
+                }
+            }
+        }
+        if(request.aRemaining.decrementAndGet() == 0 && !request.aFailed.get()){
+            respond(request.aExchange, 200, String.join("", request.aResults));
+        }
+    }
+
+    /**
+     * A method to solve a query on the calling thread.
+     * @return The line of the result.
+     */
+    private String solve(MapVersion pMap, PathQuery pQuery, boolean pFull){
+        MapSnapshot snapshot = pMap.aSnapshot;
+        if(!isInside(snapshot, pQuery.getSourceRow(), pQuery.getSourceColumn())
+                || !isInside(snapshot, pQuery.getDestinationRow(), pQuery.getDestinationColumn())){
+            return "invalid\t-1\t0\t" + pMap.aVersion + '\n';
+        }
+        AStar aStar = new AStar(snapshot, pQuery.getSourceRow(), pQuery.getSourceColumn(), pQuery.getDestinationRow(),
+                pQuery.getDestinationColumn(), SearchContext.forCurrentThread(snapshot.getNumCells()));
+        aStar.setMovement(aMovement);
+        aStar.setComponents(pMap.aComponents);
+        aStar.solve();
+        StringBuilder result = new StringBuilder(64);
+        result.append(aStar.isPathFound() ? "found" : "none").append('\t')
+                .append(aStar.isPathFound() ? aStar.getPathCost() : -1).append('\t')
+                .append(aStar.getNumExpanded()).append('\t').append(pMap.aVersion).append('\t');
+        int numColumns = snapshot.getNumColumns();
+        CompactPath compactPath = aStar.getCompactPath();
+        PrimitiveIterator.OfInt cells = pFull
+                ? compactPath.cells() : Arrays.stream(compactPath.getWaypoints()).iterator();
+        for(boolean first = true; cells.hasNext(); first = false){
+            int cell = cells.nextInt();
+            if(!first){
+                result.append(' ');
+            }
+            result.append(cell / numColumns).append(',').append(cell % numColumns);
+        }
+        return result.append('\n').toString();
+    }
+
+    /**
+     * A method to read a change of an update from a line.
+     * @return The row, the column and the cost of the square, 0 for a wall.
+     * @throws IOException If the line is malformed or outside the map.
+     */
+    private int[] parseChange(String pLine) throws IOException {
+        String[] parts = pLine.trim().split("\\s+");
+        try{
+            if(parts.length != 3){
+                throw new NumberFormatException();
+            }
+            int row = Integer.parseInt(parts[0]);
+            int column = Integer.parseInt(parts[1]);
+            int cost = parts[2].equals("wall") ? 0 : parts[2].equals("open") ? 1 : Integer.parseInt(parts[2]);
+            if(!isInside(aMap.aSnapshot, row, column) || cost < 0 || cost > Field.MAX_COST){
+                throw new NumberFormatException();
+            }
+            return new int[]{row, column, cost};
+        }catch(NumberFormatException e){
+            throw new IOException("Malformed change: " + pLine, e);
+        }
+    }
+
+    private static boolean isInside(GridMap pMap, int pRow, int pColumn){
+        return pRow >= 0 && pRow < pMap.getNumRows() && pColumn >= 0 && pColumn < pMap.getNumColumns();
+    }
+
+    /**
+     * A method to get a parameter of the query string of a URI.
+     * @return The value of the parameter, or null if it isn't given.
+     */
+    private static String parameter(URI pUri, String pName){
+        String query = pUri.getQuery();
+        if(query == null){
+            return null;
+        }
+        for(String parameter : query.split("&")){
+            if(parameter.startsWith(pName + "=")){
+                return parameter.substring(pName.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    private static String[] readBody(HttpExchange pExchange) throws IOException {
+        return new String(pExchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8).split("\n");
+    }
+
+    /**
+     * A method to send the response to a request and close it. A client that went away is ignored.
+     */
+    private static void respond(HttpExchange pExchange, int pStatus, String pBody){
+        byte[] body = pBody.getBytes(StandardCharsets.UTF_8);
+        pExchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        try(OutputStream output = pExchange.getResponseBody()){
+            pExchange.sendResponseHeaders(pStatus, body.length == 0 ? -1 : body.length);
+            output.write(body);
+        }catch(IOException e){
+            //The client closed the connection; there is no one left to answer.
+        }finally{
+            pExchange.close();
+        }
+    }
+
+    /**
+     * A version of the map that workers search, which never changes once published.
+     */
+    private static final class MapVersion {
+        private final MapSnapshot aSnapshot;
+        private final ConnectedComponents aComponents;
+        private final long aVersion;
+
+        private MapVersion(MapSnapshot pSnapshot, ConnectedComponents pComponents, long pVersion){
+            aSnapshot = pSnapshot;
+            aComponents = pComponents;
+            aVersion = pVersion;
+        }
+    }
+
+    /**
+     * A request waiting for its queries to be solved, answered once the last one is.
+     */
+    private static final class Request {
+        private final HttpExchange aExchange;
+        private final String[] aResults;
+        private final AtomicInteger aRemaining;
+        private final boolean aFull;
+        //Set once a query of the request failed and the request was answered 500.
+        private final AtomicBoolean aFailed = new AtomicBoolean();
+
+        private Request(HttpExchange pExchange, int pNumQueries, boolean pFull){
+            aExchange = pExchange;
+            aResults = new String[pNumQueries];
+            aRemaining = new AtomicInteger(pNumQueries);
+            aFull = pFull;
+        }
+    }
+
+    /**
+     * A query of a request and its place among the queries of the request.
+     */
+    private static final class Task {
+        private final Request aRequest;
+        private final int aIndex;
+        private final PathQuery aQuery;
+
+        private Task(Request pRequest, int pIndex, PathQuery pQuery){
+            aRequest = pRequest;
+            aIndex = pIndex;
+            aQuery = pQuery;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package PathFinding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Tests that AStar finds shortest paths on maps with walls and costs, with both movements, searching from the source
+ * only and from both ends and with the default and the landmark heuristic, against a plain Dijkstra search.
+ */
+public class AStarTest {
+    private static final int SIZE = 48;
+    private static final int NUM_MAPS = 12;
+    private static final int QUERIES_PER_MAP = 40;
+
+    @Test
+    public void cardinalPathsAreShortest(){
+        checkShortestPaths(Movement.CARDINAL);
+    }
+
+    @Test
+    public void octilePathsAreShortest(){
+        checkShortestPaths(Movement.OCTILE);
+    }
+
+    private static void checkShortestPaths(Movement pMovement){
+        for(int seed = 0; seed < NUM_MAPS; seed++){
+            Random random = new Random(seed);
+            MapSnapshot map = randomMap(random);
+            LandmarkHeuristic landmarks = LandmarkHeuristic.build(map, pMovement, 6);
+            SearchContext context = new SearchContext(map.getNumCells());
+            SearchContext backwardContext = new SearchContext(map.getNumCells());
+            for(int query = 0; query < QUERIES_PER_MAP; query++){
+                int source = randomPassable(map, random);
+                int destination = randomPassable(map, random);
+                int expected = dijkstra(map, pMovement, source)[destination];
+                for(int variant = 0; variant < 4; variant++){
+                    AStar aStar = new AStar(map, source / SIZE, source % SIZE, destination / SIZE,
+                            destination % SIZE, context);
+                    aStar.setMovement(pMovement);
+                    if(variant >= 2){
+                        aStar.setHeuristic(landmarks);
+                    }
+                    if(variant % 2 == 1){
+                        aStar.setBidirectional(backwardContext);
+                    }
+                    aStar.solve();
+                    String name = pMovement + (variant >= 2 ? " landmarks" : "") + (variant % 2 == 1
+                            ? " bidirectional" : "") + " from " + source + " to " + destination + " on map " + seed;
+                    if(expected == Integer.MAX_VALUE){
+                        assertFalse(aStar.isPathFound(), name);
+                        continue;
+                    }
+                    assertEquals(expected, aStar.getPathCost(), name);
+                    assertEquals(expected, costOf(map, pMovement, aStar.getPath()), name);
+                }
+            }
+        }
+    }
+
+    /**
+     * A method to generate a map where a tenth of the squares are walls and a third cost from 1 to 40.
+     */
+    private static MapSnapshot randomMap(Random pRandom){
+        Field field = new Field(SIZE, SIZE);
+        for(int i = 0; i < SIZE; i++){
+            for(int j = 0; j < SIZE; j++){
+                int kind = pRandom.nextInt(10);
+                if(kind == 0){
+                    field.makeInaccessible(i, j);
+                }else if(kind < 4){
+                    field.setCost(i, j, 1 + pRandom.nextInt(40));
+                }
+            }
+        }
+        return field.snapshot();
+    }
+
+    private static int randomPassable(GridMap pMap, Random pRandom){
+        while(true){
+            int cell = pRandom.nextInt(pMap.getNumCells());
+            if(pMap.isPassable(cell / SIZE, cell % SIZE)){
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * A method to find the cost of the shortest path from a square to every square, with the same steps as AStar.
+     * @return The costs, Integer.MAX_VALUE for squares that can't be reached.
+     */
+    private static int[] dijkstra(GridMap pMap, Movement pMovement, int pSource){
+        int[] distances = new int[pMap.getNumCells()];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[pSource] = 0;
+        PriorityQueue<long[]> queue = new PriorityQueue<>((first, second) -> Long.compare(first[0], second[0]));
+        queue.add(new long[]{0, pSource});
+        int[] rowOffsets = pMovement.rowOffsets();
+        int[] columnOffsets = pMovement.columnOffsets();
+        while(!queue.isEmpty()){
+            long[] entry = queue.poll();
+            int cell = (int) entry[1];
+            if(entry[0] > distances[cell]){
+                continue;
+            }
+            int row = cell / SIZE;
+            int column = cell % SIZE;
+            for(int direction = 0; direction < rowOffsets.length; direction++){
+                int adjacentRow = row + rowOffsets[direction];
+                int adjacentColumn = column + columnOffsets[direction];
+                int step = stepCost(pMap, pMovement, row, column, adjacentRow, adjacentColumn);
+                int adjacentCell = adjacentRow * SIZE + adjacentColumn;
+                if(step > 0 && distances[cell] + step < distances[adjacentCell]){
+                    distances[adjacentCell] = distances[cell] + step;
+                    queue.add(new long[]{distances[adjacentCell], adjacentCell});
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * A method to get the cost of a step between two squares.
+     * @return The cost, or 0 if the step isn't allowed.
+     */
+    private static int stepCost(GridMap pMap, Movement pMovement, int pRow, int pColumn, int pToRow, int pToColumn){
+        if(pToRow < 0 || pToRow >= SIZE || pToColumn < 0 || pToColumn >= SIZE || !pMap.isPassable(pToRow, pToColumn)){
+            return 0;
+        }
+        boolean diagonal = pRow != pToRow && pColumn != pToColumn;
+        if(diagonal && (!pMap.isPassable(pRow, pToColumn) || !pMap.isPassable(pToRow, pColumn))){
+            return 0;
+        }
+        return (diagonal ? pMovement.getDiagonalCost() : pMovement.getStraightCost()) * pMap.getCost(pToRow, pToColumn);
+    }
+
+    /**
+     * A method to add up the cost of a path, checking that every step of it is allowed.
+     */
+    private static int costOf(GridMap pMap, Movement pMovement, int[] pPath){
+        int cost = 0;
+        for(int i = 1; i < pPath.length; i++){
+            int from = pPath[i - 1];
+            int to = pPath[i];
+            assertEquals(1, Math.max(Math.abs(from / SIZE - to / SIZE), Math.abs(from % SIZE - to % SIZE)),
+                    "Step " + i + " of the path doesn't go to a neighbour");
+            int step = stepCost(pMap, pMovement, from / SIZE, from % SIZE, to / SIZE, to % SIZE);
+            assertFalse(step == 0, "Step " + i + " of the path isn't allowed");
+            cost += step;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,222 @@
+package PathFinding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the agents of a CooperativePlanner never collide, planned one after another, from several threads at
+ * once and replanned as time moves on.
+ */
+public class CooperativePlannerTest {
+    private static final int NUM_INSTANCES = 200;
+    private static final int NUM_THREADS = 8;
+
+    /**
+     * An agent that starts on its destination and must leave it for another agent passing through may not be left
+     * there: its path can't be complete, so it must not end on the destination either.
+     */
+    @Test
+    public void agentThatCantStayOnItsDestinationLeavesIt(){
+        Field field = new Field(3, 5);
+        ReservationTable reservations = new ReservationTable(3, 4);
+        CooperativePlanner planner = new CooperativePlanner(field, reservations);
+        int[] passing = planner.plan(0, new PathQuery(1, 0, 1, 4), 0);
+        assertEquals(3, passing.length);
+        assertEquals(1 * 5 + 2, passing[2]);
+
+        int[] path = planner.plan(1, new PathQuery(1, 2, 1, 2), 0);
+        int destination = 1 * 5 + 2;
+        assertEquals(3, path.length);
+        assertNotEquals(destination, path[path.length - 1]);
+        assertFalse(planner.isComplete(1));
+        assertNotEquals(1, reservations.getAgent(destination, Integer.MAX_VALUE));
+        assertNoConflicts(reservations, List.of(new Agent(0, passing, 0, 1 * 5 + 4, planner.isComplete(0)),
+                new Agent(1, path, 0, destination, false)));
+    }
+
+    @Test
+    public void agentThatCanWaitForItsDestinationIsParkedThere(){
+        Field field = new Field(3, 5);
+        ReservationTable reservations = new ReservationTable(16, 4);
+        CooperativePlanner planner = new CooperativePlanner(field, reservations);
+        planner.plan(0, new PathQuery(1, 0, 1, 4), 0);
+        int destination = 1 * 5 + 2;
+        int[] path = planner.plan(1, new PathQuery(1, 2, 1, 2), 0);
+        assertEquals(destination, path[path.length - 1]);
+        assertTrue(planner.isComplete(1));
+        assertEquals(1, reservations.getAgent(destination, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void randomInstancesHaveNoConflicts() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(NUM_THREADS);
+        try{
+            for(int instance = 0; instance < NUM_INSTANCES; instance++){
+                runInstance(new Random(instance), threads);
+            }
+        }finally{
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * A method to plan the agents of a random map from several threads, then move time on a few times and replan the
+     * agents that must be replanned as well as some that needn't, checking the plans for conflicts after every step.
+     */
+    private static void runInstance(Random pRandom, ExecutorService pThreads) throws Exception {
+        int size = 8 + pRandom.nextInt(10);
+        Field field = new Field(size, size);
+        List<Integer> free = new ArrayList<>();
+        for(int cell = 0; cell < size * size; cell++){
+            if(pRandom.nextInt(100) < 15){
+                field.makeInaccessible(cell / size, cell % size);
+            }else{
+                free.add(cell);
+            }
+        }
+        Collections.shuffle(free, pRandom);
+        int numAgents = Math.min(5 + pRandom.nextInt(31), free.size() / 2);
+        int horizon = 20 + pRandom.nextInt(61);
+        ReservationTable reservations = new ReservationTable(horizon, numAgents);
+        CooperativePlanner planner = new CooperativePlanner(field, reservations);
+        int[] destinations = new int[numAgents];
+        Agent[] agents = new Agent[numAgents];
+        List<Future<Agent>> planned = new ArrayList<>();
+        for(int i = 0; i < numAgents; i++){
+            int agent = i;
+            int source = free.get(i);
+            destinations[i] = free.get(numAgents + i);
+            planned.add(pThreads.submit(() -> plan(planner, size, agent, source, destinations[agent], 0)));
+        }
+        for(int i = 0; i < numAgents; i++){
+            agents[i] = planned.get(i).get();
+        }
+        assertNoConflicts(reservations, agents);
+
+        int now = 0;
+        for(int step = 0; step < 4; step++){
+            now += 1 + pRandom.nextInt(3);
+            reservations.advanceTo(now);
+            for(int i = 0; i < numAgents; i++){
+                Agent agent = agents[i];
+                if(agent != null && (!agent.aComplete || pRandom.nextInt(4) == 0)){
+                    int position = agent.positionAt(now);
+                    agents[i] = plan(planner, size, i, position < 0 ? agent.aPath[agent.aPath.length - 1] : position,
+                            destinations[i], now);
+                }
+            }
+            assertNoConflicts(reservations, agents);
+        }
+    }
+
+    /**
+     * A method to plan an agent between two cells of a square map.
+     * @return The plan, or null if the planner returned no path.
+     */
+    private static Agent plan(CooperativePlanner pPlanner, int pSize, int pAgent, int pSource, int pDestination,
+                              int pStartTime){
+        PathQuery query = new PathQuery(pSource / pSize, pSource % pSize, pDestination / pSize, pDestination % pSize);
+        int[] path = pPlanner.plan(pAgent, query, pStartTime);
+        return path.length == 0 ? null : new Agent(pAgent, path, pStartTime, pDestination, pPlanner.isComplete(pAgent));
+    }
+
+    private static void assertNoConflicts(ReservationTable pReservations, Agent... pAgents){
+        assertNoConflicts(pReservations, Arrays.asList(pAgents));
+    }
+
+    /**
+     * A method to check that no two agents are on the same square at the same time or swap squares, in the window of
+     * the table. A complete agent stays on its destination after its path, and an incomplete one must be replanned
+     * before its path runs out, so it isn't anywhere after it.
+     */
+    private static void assertNoConflicts(ReservationTable pReservations, List<Agent> pAgents){
+        int end = pReservations.getNow() + pReservations.getHorizon();
+        HashMap<Long, Integer> occupied = new HashMap<>();
+        for(Agent agent : pAgents){
+            if(agent == null){
+                continue;
+            }
+            int last = agent.aPath[agent.aPath.length - 1];
+            assertEquals(agent.aComplete, pReservations.getAgent(agent.aDestination, Integer.MAX_VALUE) == agent.aId,
+                    "Agent " + agent.aId + " is parked on its destination exactly if its plan is complete");
+            if(agent.aComplete){
+                assertEquals(agent.aDestination, last);
+            }else if(last == agent.aDestination){
+                assertEquals(1, agent.aPath.length,
+                        "Agent " + agent.aId + " was moved onto its destination without being parked there");
+            }
+            for(int time = pReservations.getNow(); time < end; time++){
+                int cell = agent.positionAt(time);
+                if(cell < 0){
+                    continue;
+                }
+                Integer other = occupied.put(((long) time << 32) | cell, agent.aId);
+                assertNull(other, "Agents " + other + " and " + agent.aId + " are both on square " + cell
+                        + " at time " + time);
+            }
+        }
+        for(Agent agent : pAgents){
+            if(agent == null){
+                continue;
+            }
+            for(int time = pReservations.getNow() + 1; time < end; time++){
+                int from = agent.positionAt(time - 1);
+                int to = agent.positionAt(time);
+                if(from < 0 || to < 0 || from == to){
+                    continue;
+                }
+                Integer other = occupied.get(((long) (time - 1) << 32) | to);
+                if(other != null && other != agent.aId){
+                    assertNotEquals(Integer.valueOf(other), occupied.get(((long) time << 32) | from),
+                            "Agents " + other + " and " + agent.aId + " swap squares at time " + time);
+                }
+            }
+        }
+    }
+
+    /**
+     * The plan of an agent as the planner returned it.
+     */
+    private static final class Agent {
+        private final int aId;
+        private final int[] aPath;
+        private final int aStartTime;
+        private final int aDestination;
+        private final boolean aComplete;
+
+        private Agent(int pId, int[] pPath, int pStartTime, int pDestination, boolean pComplete){
+            aId = pId;
+            aPath = pPath;
+            aStartTime = pStartTime;
+            aDestination = pDestination;
+            aComplete = pComplete;
+        }
+
+        /**
+         * A method to get the square of the agent at a time step.
+         * @return The cell, or -1 if the path of an incomplete plan has run out.
+         */
+        private int positionAt(int pTime){
+            int index = pTime - aStartTime;
+            if(index < aPath.length){
+                return aPath[index];
+            }
+            return aComplete ? aDestination : -1;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package PathFinding.cli;
+
+import PathFinding.Field;
+import PathFinding.GridMap;
+import PathFinding.Movement;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that BatchRunner writes one result line for every query of its input, whatever happens to the others.
+ */
+public class BatchRunnerTest {
+    @Test
+    public void malformedLineIsAnsweredInvalid() throws Exception {
+        BatchRunner runner = new BatchRunner(new Field(10, 10), Movement.CARDINAL, false, false);
+        StringWriter output = new StringWriter();
+        runner.run(new StringReader("0 0 9 9\n1 1 5 5\n2 2 3 3\n1 2 x 4\n"), output, 2);
+        String[][] results = sortedResults(output);
+        assertEquals(4, results.length);
+        for(int i = 0; i < 3; i++){
+            assertEquals("found", results[i][5]);
+        }
+        assertArrayEquals(new String[]{"3", "-", "-", "-", "-", "invalid"}, results[3]);
+    }
+
+    @Test
+    public void failedSearchIsAnsweredError() throws Exception {
+        Field field = new Field(1, 10);
+        //A map whose squares past the middle can't be looked at, so that searches into them throw.
+        GridMap failing = new GridMap(){
+            @Override
+            public int getNumRows(){
+                return field.getNumRows();
+            }
+
+            @Override
+            public int getNumColumns(){
+                return field.getNumColumns();
+            }
+
+            @Override
+            public boolean isPassable(int pRow, int pColumn){
+                return field.isPassable(pRow, pColumn);
+            }
+
+            @Override
+            public int getCost(int pRow, int pColumn){
+                if(pColumn > 5){
+                    throw new IllegalStateException("Broken square");
+                }
+                return 1;
+            }
+        };
+        BatchRunner runner = new BatchRunner(failing, Movement.CARDINAL, false, false);
+        StringWriter output = new StringWriter();
+        runner.run(new StringReader("0 0 0 3\n0 0 0 9\n0 1 0 4\n"), output, 1);
+        String[][] results = sortedResults(output);
+        assertEquals(3, results.length);
+        assertEquals("found", results[0][5]);
+        assertEquals("error", results[1][5]);
+        assertTrue(results[1][6].contains("Broken square"));
+        assertEquals("found", results[2][5]);
+        assertTrue(runner.summary().contains("1 failed"));
+    }
+
+    @Test
+    public void resultsAreFlushedWhenTheInputFails(){
+        BatchRunner runner = new BatchRunner(new Field(10, 10), Movement.CARDINAL, false, false);
+        StringWriter output = new StringWriter();
+        Reader input = new Reader(){
+            private final Reader aLines = new StringReader("0 0 9 9\n1 1 5 5\n2 2 3 3\n");
+
+            @Override
+            public int read(char[] pBuffer, int pOffset, int pLength) throws IOException {
+                int numRead = aLines.read(pBuffer, pOffset, pLength);
+                if(numRead < 0){
+                    throw new IOException("Input lost");
+                }
+                return numRead;
+            }
+
+            @Override
+            public void close(){
+            }
+        };
+        assertThrows(IOException.class, () -> runner.run(input, output, 2));
+        assertEquals(3, sortedResults(output).length);
+    }
+
+    /**
+     * A method to split the output of a run into the fields of its lines, in input order.
+     */
+    private static String[][] sortedResults(StringWriter pOutput){
+        String text = pOutput.toString();
+        if(text.isEmpty()){
+            return new String[0][];
+        }
+        String[][] results = Arrays.stream(text.split("\n")).map(line -> line.split("\t")).toArray(String[][]::new);
+        Arrays.sort(results, (first, second) -> Long.compare(Long.parseLong(first[0]), Long.parseLong(second[0])));
+        return results;
+    }
+}